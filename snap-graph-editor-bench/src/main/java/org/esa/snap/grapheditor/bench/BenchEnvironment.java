@@ -0,0 +1,44 @@
+package org.esa.snap.grapheditor.bench;
+
+import java.awt.GraphicsEnvironment;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.esa.snap.grapheditor.bench.stub.StubOperators;
+import org.esa.snap.grapheditor.ui.components.utils.GraphManager;
+import org.esa.snap.ui.DefaultAppContext;
+
+/**
+ * Environment shared by the benchmarks.
+ * The editor is used without any window: the stub operators are registered and the user directory is moved to a
+ * temporary folder, so that the persistent operator index of a local SNAP installation is neither used nor modified.
+ * The benchmarks can run with -Djava.awt.headless=true, in which case the GraphManager has no application context.
+ * Must be initialized before the first access to the GraphManager.
+ */
+public class BenchEnvironment {
+    static private boolean initialized = false;
+
+    private BenchEnvironment() {
+    }
+
+    /**
+     * Initialize the environment (only once per JVM).
+     */
+    static public synchronized void init() {
+        if (initialized) {
+            return;
+        }
+        try {
+            System.setProperty("user.home", Files.createTempDirectory("graph-editor-bench").toString());
+        } catch (IOException e) {
+            throw new IllegalStateException("unable to create the benchmark user directory", e);
+        }
+        StubOperators.register();
+        if (!GraphicsEnvironment.isHeadless()) {
+            GraphManager.getInstance().setAppContext(new DefaultAppContext("Graph Editor Benchmarks"));
+        } else {
+            GraphManager.getInstance();
+        }
+        initialized = true;
+    }
+}
@@ -0,0 +1,295 @@
+package org.esa.snap.grapheditor.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.swing.SwingUtilities;
+
+import org.esa.snap.grapheditor.bench.stub.StubOperators;
+import org.esa.snap.grapheditor.ui.components.NodeGui;
+import org.esa.snap.grapheditor.ui.components.utils.GraphManager;
+import org.esa.snap.grapheditor.ui.components.utils.SettingManager;
+
+/**
+ * Headless scalability harness of the editor.
+ * Synthetic graphs are opened in the GraphManager, exactly as from the GraphBuilder but without any window, then a
+ * random sequence of connections, deletions and validations is applied to them. All the editor calls are done on the
+ * Event Dispatch Thread, as the GraphPanel would do.
+ *
+ * For each operation two latencies are recorded: the time spent on the Event Dispatch Thread (what the user feels as
+ * responsiveness) and the time until the editor is idle again (loading and validation done, including the validation
+ * debounce delay). Percentiles and the peak heap usage are printed for each graph size.
+ *
+ * Usage: ScalabilityDriver [sizes] [shape] [operations] [seed] [validation]
+ *  - sizes: comma separated list of graph sizes (default 100,1000,5000)
+ *  - shape: RANDOM, CHAIN, FANOUT or DIAMOND (default RANDOM)
+ *  - operations: number of operations per graph (default 200)
+ *  - seed: random seed (default 42)
+ *  - validation: full or schema (default full), see SchemaTransfers
+ */
+public class ScalabilityDriver {
+    static private final long POLL_MS = 5;
+    static private final long TIMEOUT_MS = 10 * 60 * 1000;
+
+    private final Random random;
+    private final Latencies edt = new Latencies();
+    private final Latencies settled = new Latencies();
+
+    private ScalabilityDriver(long seed) {
+        this.random = new Random(seed);
+    }
+
+    static public void main(String[] args) throws Exception {
+        int[] sizes = args.length > 0 ? parseSizes(args[0]) : new int[]{100, 1000, 5000};
+        SyntheticGraphs.Shape shape = args.length > 1 ? SyntheticGraphs.Shape.valueOf(args[1].toUpperCase())
+                                                      : SyntheticGraphs.Shape.RANDOM;
+        int operations = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+        boolean schema = args.length > 4 && args[4].equalsIgnoreCase("schema");
+
+        BenchEnvironment.init();
+        SettingManager.getInstance().setSchemaValidationEnabled(schema);
+        System.out.println(String.format(Locale.ENGLISH, "%-8s %-8s %-18s %10s %10s %10s %10s %10s",
+                                         "shape", "nodes", "operation", "count", "p50 ms", "p90 ms", "p99 ms",
+                                         "max ms"));
+        for (int size : sizes) {
+            new ScalabilityDriver(seed).run(size, shape, operations);
+        }
+        System.exit(0);
+    }
+
+    static private int[] parseSizes(String value) {
+        String[] parts = value.split(",");
+        int[] sizes = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            sizes[i] = Integer.parseInt(parts[i].trim());
+        }
+        return sizes;
+    }
+
+    private void run(int size, SyntheticGraphs.Shape shape, int operations) throws Exception {
+        File file = SyntheticGraphs.generateFile(size, shape, random.nextLong());
+        GraphManager manager = GraphManager.getInstance();
+        System.gc();
+        resetPeakHeap();
+
+        measure("load", () -> {
+            manager.openGraph(file);
+            return true;
+        });
+        measure("validate", () -> validate(manager));
+
+        for (int i = 0; i < operations; i++) {
+            switch (random.nextInt(3)) {
+                case 0:
+                    measure("connect", () -> connect(manager));
+                    break;
+                case 1:
+                    measure("delete", () -> delete(manager));
+                    break;
+                default:
+                    measure("validate", () -> validate(manager));
+                    break;
+            }
+        }
+
+        String prefix = String.format(Locale.ENGLISH, "%-8s %-8d ", shape.name().toLowerCase(), size);
+        edt.print(prefix, "edt");
+        settled.print(prefix, "settled");
+        System.out.println(String.format(Locale.ENGLISH, "%s%-18s %10.1f MB (%d nodes left)", prefix, "peak heap",
+                                         peakHeap() / (1024.0 * 1024.0), onEdt(() -> manager.getNodes().size())));
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * Connect a random node to a free input of a random StubMerge node, as a connection dragged in the GraphPanel.
+     * @return false if no valid connection was found
+     */
+    private boolean connect(GraphManager manager) {
+        List<NodeGui> nodes = manager.getNodes();
+        for (int attempt = 0; attempt < 10; attempt++) {
+            NodeGui target = randomNode(manager, true);
+            if (target == null) {
+                return false;
+            }
+            NodeGui source = nodes.get(random.nextInt(nodes.size()));
+            int index = target.getIncomingConnections().size();
+            if (source != target && target.isConnectionAvailable(source, index)) {
+                target.addConnection(source, index);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Delete a random node, as the GraphPanel does.
+     * @return false if the graph is empty
+     */
+    private boolean delete(GraphManager manager) {
+        NodeGui node = randomNode(manager, false);
+        if (node == null) {
+            return false;
+        }
+        node.delete();
+        return true;
+    }
+
+    /**
+     * Request the validation of a random node, as done when a parameter is changed.
+     * @return false if the graph is empty
+     */
+    private boolean validate(GraphManager manager) {
+        NodeGui node = randomNode(manager, false);
+        if (node == null) {
+            return false;
+        }
+        manager.validateNode(node);
+        return true;
+    }
+
+    private NodeGui randomNode(GraphManager manager, boolean merge) {
+        List<NodeGui> nodes = manager.getNodes();
+        if (!merge) {
+            return nodes.isEmpty() ? null : nodes.get(random.nextInt(nodes.size()));
+        }
+        ArrayList<NodeGui> merges = new ArrayList<>();
+        for (NodeGui n : nodes) {
+            if (n.getNode().getOperatorName().equals(StubOperators.MERGE)) {
+                merges.add(n);
+            }
+        }
+        return merges.isEmpty() ? null : merges.get(random.nextInt(merges.size()));
+    }
+
+    /**
+     * Apply an operation on the Event Dispatch Thread and wait for the editor to settle.
+     * @param name operation name
+     * @param operation operation, returning false if it was not applicable
+     */
+    private void measure(String name, Callable<Boolean> operation) throws Exception {
+        long start = System.nanoTime();
+        boolean applied = onEdt(operation);
+        long edtEnd = System.nanoTime();
+        waitIdle();
+        long end = System.nanoTime();
+        if (applied) {
+            edt.add(name, edtEnd - start);
+            settled.add(name, end - start);
+        }
+    }
+
+    /**
+     * Wait until the GraphManager has neither a loading nor a validation pending, on two consecutive polls so that
+     * the events queued by a finished worker are processed as well.
+     */
+    static private void waitIdle() throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        int idle = 0;
+        while (idle < 2) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("the editor did not settle in time");
+            }
+            Thread.sleep(POLL_MS);
+            idle = onEdt(() -> GraphManager.getInstance().isBusy()) ? 0 : idle + 1;
+        }
+    }
+
+    static private <T> T onEdt(Callable<T> callable) throws Exception {
+        AtomicReference<T> result = new AtomicReference<>();
+        AtomicReference<Exception> error = new AtomicReference<>();
+        try {
+            SwingUtilities.invokeAndWait(() -> {
+                try {
+                    result.set(callable.call());
+                } catch (Exception e) {
+                    error.set(e);
+                }
+            });
+        } catch (InvocationTargetException e) {
+            throw new IOException(e.getCause());
+        }
+        if (error.get() != null) {
+            throw error.get();
+        }
+        return result.get();
+    }
+
+    static private void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Sum of the peak usage of the heap pools since the last reset (an upper bound, as the pools may peak at
+     * different times).
+     */
+    static private long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    /**
+     * Latency samples grouped by operation, in insertion order.
+     */
+    static private class Latencies {
+        private final ArrayList<String> names = new ArrayList<>();
+        private final ArrayList<long[]> samples = new ArrayList<>();
+        private final ArrayList<Integer> counts = new ArrayList<>();
+
+        private void add(String name, long nanos) {
+            int index = names.indexOf(name);
+            if (index < 0) {
+                names.add(name);
+                samples.add(new long[16]);
+                counts.add(0);
+                index = names.size() - 1;
+            }
+            int count = counts.get(index);
+            long[] values = samples.get(index);
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+                samples.set(index, values);
+            }
+            values[count] = nanos;
+            counts.set(index, count + 1);
+        }
+
+        private void print(String prefix, String kind) {
+            for (int i = 0; i < names.size(); i++) {
+                long[] values = Arrays.copyOf(samples.get(i), counts.get(i));
+                Arrays.sort(values);
+                System.out.println(String.format(Locale.ENGLISH, "%s%-18s %10d %10.2f %10.2f %10.2f %10.2f", prefix,
+                                                 names.get(i) + "/" + kind, values.length,
+                                                 percentile(values, 50), percentile(values, 90),
+                                                 percentile(values, 99), values[values.length - 1] / 1e6));
+            }
+        }
+
+        static private double percentile(long[] sorted, int p) {
+            int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+}
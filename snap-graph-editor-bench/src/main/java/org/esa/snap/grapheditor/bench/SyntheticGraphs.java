@@ -0,0 +1,216 @@
+package org.esa.snap.grapheditor.bench;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Random;
+
+import com.bc.ceres.binding.dom.XppDomElement;
+import com.thoughtworks.xstream.io.xml.xppdom.XppDom;
+import org.esa.snap.core.gpf.graph.Graph;
+import org.esa.snap.core.gpf.graph.GraphIO;
+import org.esa.snap.core.gpf.graph.Node;
+import org.esa.snap.core.gpf.graph.NodeSource;
+import org.esa.snap.grapheditor.bench.stub.StubOperators;
+
+/**
+ * Generator of synthetic graphs of stub operators, with a fixed seed.
+ * Available shapes:
+ *  - RANDOM: a StubSource every 50 nodes, a StubMerge of two earlier nodes every 10 nodes and StubFilter nodes
+ *    connected to one of the 20 previous nodes, so that the graph is both deep and wide
+ *  - CHAIN: a single source followed by a chain of filters
+ *  - FANOUT: a single source read by all the other nodes
+ *  - DIAMOND: a sequence of diamonds, each node is read by two filters merged by a StubMerge
+ * The Presentation data places the nodes by depth, as a left to right layered layout.
+ */
+public class SyntheticGraphs {
+    static private final int SOURCE_EVERY = 50;
+    static private final int MERGE_EVERY = 10;
+    static private final int WINDOW = 20;
+    static private final int STEP_X = 150;
+    static private final int STEP_Y = 60;
+
+    /**
+     * Graph topologies.
+     */
+    public enum Shape {
+        RANDOM,
+        CHAIN,
+        FANOUT,
+        DIAMOND,
+    }
+
+    private SyntheticGraphs() {
+    }
+
+    /**
+     * Generate a RANDOM graph.
+     * @param size number of nodes
+     * @param seed random seed
+     * @return the graph, including the Presentation data
+     */
+    static public Graph generate(int size, long seed) {
+        return generate(size, Shape.RANDOM, seed);
+    }
+
+    /**
+     * Generate a graph.
+     * @param size number of nodes
+     * @param shape graph topology
+     * @param seed random seed
+     * @return the graph, including the Presentation data
+     */
+    static public Graph generate(int size, Shape shape, long seed) {
+        Random random = new Random(seed);
+        Graph graph = new Graph("Synthetic" + size);
+        int lastSource = 0;
+        for (int i = 0; i < size; i++) {
+            Node node;
+            if (i == 0 || (shape == Shape.RANDOM && i % SOURCE_EVERY == 0)) {
+                node = source(i);
+                lastSource = i;
+            } else if (shape == Shape.CHAIN) {
+                node = filter(i, random, id(graph, i - 1));
+            } else if (shape == Shape.FANOUT) {
+                node = filter(i, random, id(graph, 0));
+            } else if (shape == Shape.DIAMOND) {
+                // pattern: top (i % 3 == 0), left and right branches, merge as top of the next diamond
+                switch (i % 3) {
+                    case 1:
+                    case 2:
+                        node = filter(i, random, id(graph, i - (i % 3)));
+                        break;
+                    default:
+                        node = merge(i, id(graph, i - 2), id(graph, i - 1));
+                        break;
+                }
+            } else if (i % MERGE_EVERY == MERGE_EVERY - 1) {
+                int first = pick(random, lastSource, i);
+                int second = pick(random, lastSource, i);
+                node = first != second ? merge(i, id(graph, first), id(graph, second)) : merge(i, id(graph, first));
+            } else {
+                node = filter(i, random, id(graph, pick(random, lastSource, i)));
+            }
+            graph.addNode(node);
+        }
+        graph.setAppData("Presentation", presentation(graph));
+        return graph;
+    }
+
+    /**
+     * Write a graph to an XML file.
+     * @param graph graph to write
+     * @param file destination
+     * @throws IOException if the file can not be written
+     */
+    static public void write(Graph graph, File file) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),
+                                                                       StandardCharsets.UTF_8))) {
+            GraphIO.write(graph, writer);
+        }
+    }
+
+    /**
+     * Generate a RANDOM graph and write it to a temporary file, deleted on exit.
+     * @param size number of nodes
+     * @param seed random seed
+     * @return the graph file
+     * @throws IOException if the file can not be written
+     */
+    static public File generateFile(int size, long seed) throws IOException {
+        return generateFile(size, Shape.RANDOM, seed);
+    }
+
+    /**
+     * Generate a graph and write it to a temporary file, deleted on exit.
+     * @param size number of nodes
+     * @param shape graph topology
+     * @param seed random seed
+     * @return the graph file
+     * @throws IOException if the file can not be written
+     */
+    static public File generateFile(int size, Shape shape, long seed) throws IOException {
+        File file = File.createTempFile("synthetic-" + shape.name().toLowerCase() + "-" + size + "-", ".xml");
+        file.deleteOnExit();
+        write(generate(size, shape, seed), file);
+        return file;
+    }
+
+    /**
+     * Pick a random node among the previous ones, never before the last source so that all the nodes of a group
+     * share the same source product size.
+     */
+    static private int pick(Random random, int lastSource, int current) {
+        int from = Math.max(lastSource, current - WINDOW);
+        return from + random.nextInt(current - from);
+    }
+
+    static private String id(Graph graph, int index) {
+        return graph.getNode(index).getId();
+    }
+
+    static private Node source(int index) {
+        Node node = new Node(StubOperators.SOURCE + " " + index, StubOperators.SOURCE);
+        XppDomElement config = new XppDomElement("parameters");
+        config.createChild("width").setValue("512");
+        config.createChild("height").setValue("512");
+        config.createChild("bandCount").setValue("2");
+        node.setConfiguration(config);
+        return node;
+    }
+
+    static private Node filter(int index, Random random, String sourceId) {
+        Node node = new Node(StubOperators.FILTER + " " + index, StubOperators.FILTER);
+        XppDomElement config = new XppDomElement("parameters");
+        config.createChild("factor").setValue(String.format(Locale.ENGLISH, "%.3f", 0.5 + random.nextDouble()));
+        config.createChild("label").setValue("f" + index);
+        config.createChild("bandNames").setValue("band_1,band_2");
+        node.setConfiguration(config);
+        node.addSource(new NodeSource("source", sourceId));
+        return node;
+    }
+
+    static private Node merge(int index, String... sourceIds) {
+        Node node = new Node(StubOperators.MERGE + " " + index, StubOperators.MERGE);
+        node.setConfiguration(new XppDomElement("parameters"));
+        for (int i = 0; i < sourceIds.length; i++) {
+            node.addSource(new NodeSource(i == 0 ? "sourceProduct" : "sourceProduct." + i, sourceIds[i]));
+        }
+        return node;
+    }
+
+    /**
+     * Layered layout: the column of a node is its depth, the rows are assigned in graph order.
+     * @param graph graph to layout
+     * @return Presentation data
+     */
+    static private XppDom presentation(Graph graph) {
+        HashMap<String, Integer> depths = new HashMap<>();
+        HashMap<Integer, Integer> rows = new HashMap<>();
+        XppDom presentation = new XppDom("applicationData");
+        presentation.setAttribute("id", "Presentation");
+        for (Node n : graph.getNodes()) {
+            int depth = 0;
+            for (NodeSource source : n.getSources()) {
+                depth = Math.max(depth, depths.getOrDefault(source.getSourceNodeId(), 0) + 1);
+            }
+            depths.put(n.getId(), depth);
+            int row = rows.merge(depth, 1, Integer::sum) - 1;
+
+            XppDom node = new XppDom("node");
+            node.setAttribute("id", n.getId());
+            XppDom position = new XppDom("displayPosition");
+            position.setAttribute("x", String.valueOf(30 + depth * STEP_X));
+            position.setAttribute("y", String.valueOf(30 + row * STEP_Y));
+            node.addChild(position);
+            presentation.addChild(node);
+        }
+        return presentation;
+    }
+}
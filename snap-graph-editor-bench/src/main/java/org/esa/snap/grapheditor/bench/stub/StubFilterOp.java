@@ -0,0 +1,62 @@
+package org.esa.snap.grapheditor.bench.stub;
+
+import com.bc.ceres.core.ProgressMonitor;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.gpf.Operator;
+import org.esa.snap.core.gpf.OperatorException;
+import org.esa.snap.core.gpf.OperatorSpi;
+import org.esa.snap.core.gpf.Tile;
+import org.esa.snap.core.gpf.annotations.OperatorMetadata;
+import org.esa.snap.core.gpf.annotations.Parameter;
+import org.esa.snap.core.gpf.annotations.SourceProduct;
+import org.esa.snap.core.gpf.annotations.TargetProduct;
+
+/**
+ * Stub single-input operator: scales all the bands of its source. Its parameters cover the common parameter types
+ * (number, string, array) so that the configuration conversions are exercised by the benchmarks.
+ */
+@OperatorMetadata(alias = "StubFilter",
+        category = "Benchmark",
+        version = "1.0",
+        description = "Synthetic single input operator used by the benchmarks")
+public class StubFilterOp extends Operator {
+    @SourceProduct(alias = "source", description = "Product to scale")
+    private Product source;
+
+    @Parameter(defaultValue = "1.0", description = "Scaling factor")
+    private double factor;
+
+    @Parameter(defaultValue = "stub", description = "Free label, not used by the computation")
+    private String label;
+
+    @Parameter(description = "Bands to scale (all if empty)")
+    private String[] bandNames;
+
+    @TargetProduct
+    private Product targetProduct;
+
+    @Override
+    public void initialize() throws OperatorException {
+        targetProduct = new Product(source.getName() + "_" + label, source.getProductType(),
+                                    source.getSceneRasterWidth(), source.getSceneRasterHeight());
+        for (Band band : source.getBands()) {
+            targetProduct.addBand(band.getName(), ProductData.TYPE_FLOAT32);
+        }
+    }
+
+    @Override
+    public void computeTile(Band targetBand, Tile targetTile, ProgressMonitor pm) throws OperatorException {
+        Tile sourceTile = getSourceTile(source.getBand(targetBand.getName()), targetTile.getRectangle());
+        for (Tile.Pos pos : targetTile) {
+            targetTile.setSample(pos.x, pos.y, sourceTile.getSampleFloat(pos.x, pos.y) * factor);
+        }
+    }
+
+    public static class Spi extends OperatorSpi {
+        public Spi() {
+            super(StubFilterOp.class);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.esa.snap.grapheditor.bench.stub;
+
+import com.bc.ceres.core.ProgressMonitor;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.gpf.Operator;
+import org.esa.snap.core.gpf.OperatorException;
+import org.esa.snap.core.gpf.OperatorSpi;
+import org.esa.snap.core.gpf.Tile;
+import org.esa.snap.core.gpf.annotations.OperatorMetadata;
+import org.esa.snap.core.gpf.annotations.SourceProducts;
+import org.esa.snap.core.gpf.annotations.TargetProduct;
+
+/**
+ * Stub multi-input operator: sums the bands of all its sources, it has a dynamic number of inputs.
+ */
+@OperatorMetadata(alias = "StubMerge",
+        category = "Benchmark",
+        version = "1.0",
+        description = "Synthetic multiple input operator used by the benchmarks")
+public class StubMergeOp extends Operator {
+    @SourceProducts(description = "Products to merge")
+    private Product[] sourceProducts;
+
+    @TargetProduct
+    private Product targetProduct;
+
+    @Override
+    public void initialize() throws OperatorException {
+        Product first = sourceProducts[0];
+        targetProduct = new Product(first.getName() + "_merge", first.getProductType(),
+                                    first.getSceneRasterWidth(), first.getSceneRasterHeight());
+        for (Band band : first.getBands()) {
+            targetProduct.addBand(band.getName(), ProductData.TYPE_FLOAT32);
+        }
+    }
+
+    @Override
+    public void computeTile(Band targetBand, Tile targetTile, ProgressMonitor pm) throws OperatorException {
+        Tile[] sourceTiles = new Tile[sourceProducts.length];
+        for (int i = 0; i < sourceProducts.length; i++) {
+            Band band = sourceProducts[i].getBand(targetBand.getName());
+            sourceTiles[i] = band != null ? getSourceTile(band, targetTile.getRectangle()) : null;
+        }
+        for (Tile.Pos pos : targetTile) {
+            float sum = 0;
+            for (Tile tile : sourceTiles) {
+                if (tile != null) {
+                    sum += tile.getSampleFloat(pos.x, pos.y);
+                }
+            }
+            targetTile.setSample(pos.x, pos.y, sum);
+        }
+    }
+
+    public static class Spi extends OperatorSpi {
+        public Spi() {
+            super(StubMergeOp.class);
+        }
+    }
+}
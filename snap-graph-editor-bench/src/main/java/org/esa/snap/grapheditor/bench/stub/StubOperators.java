@@ -0,0 +1,116 @@
+package org.esa.snap.grapheditor.bench.stub;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.gpf.GPF;
+import org.esa.snap.core.gpf.OperatorSpi;
+import org.esa.snap.core.gpf.OperatorSpiRegistry;
+import org.esa.snap.core.gpf.annotations.OperatorMetadata;
+import org.esa.snap.grapheditor.ui.components.utils.ProductSignature;
+import org.esa.snap.grapheditor.ui.components.utils.SchemaTransfers;
+import org.esa.snap.grapheditor.ui.components.utils.UnifiedMetadata;
+
+/**
+ * Registration of the stub operators, of their schema transfer functions and synthetic operator catalogs.
+ */
+public class StubOperators {
+    static public final String SOURCE = "StubSource";
+    static public final String FILTER = "StubFilter";
+    static public final String MERGE = "StubMerge";
+
+    static private boolean registered = false;
+
+    private StubOperators() {
+    }
+
+    /**
+     * Register the stub operators in the default GPF registry and their schema transfer functions (only once).
+     */
+    static public synchronized void register() {
+        if (registered) {
+            return;
+        }
+        OperatorSpiRegistry registry = GPF.getDefaultInstance().getOperatorSpiRegistry();
+        registry.loadOperatorSpis();
+        registry.addOperatorSpi(new StubSourceOp.Spi());
+        registry.addOperatorSpi(new StubFilterOp.Spi());
+        registry.addOperatorSpi(new StubMergeOp.Spi());
+        SchemaTransfers.getInstance().register(SOURCE, StubOperators::sourceSchema);
+        SchemaTransfers.getInstance().register(FILTER, (sources, parameters) -> float32(sources[0]));
+        SchemaTransfers.getInstance().register(MERGE, (sources, parameters) -> float32(sources[0]));
+        registered = true;
+    }
+
+    static private ProductSignature sourceSchema(ProductSignature[] sources, Map<String, Object> parameters) {
+        int bandCount = SchemaTransfers.toInt(parameters.get("bandCount"), 2);
+        String[] names = new String[bandCount];
+        for (int i = 0; i < bandCount; i++) {
+            names[i] = "band_" + (i + 1);
+        }
+        return float32(new ProductSignature(SchemaTransfers.toInt(parameters.get("width"), 256),
+                                            SchemaTransfers.toInt(parameters.get("height"), 256),
+                                            names, new int[bandCount], null));
+    }
+
+    /**
+     * Same bands of the source, all converted to float32 as done by the stub operators.
+     */
+    static private ProductSignature float32(ProductSignature source) {
+        int[] types = new int[source.getBandNames().length];
+        Arrays.fill(types, ProductData.TYPE_FLOAT32);
+        return source.withBands(source.getBandNames(), types);
+    }
+
+    /**
+     * Create a synthetic catalog of operators metadata, as displayed by the AddNodeDialog. The entries are copies of
+     * the stub operators metadata with distinct names and categories.
+     * @param size number of operators
+     * @return operators metadata
+     */
+    static public List<UnifiedMetadata> catalog(int size) {
+        register();
+        OperatorSpiRegistry registry = GPF.getDefaultInstance().getOperatorSpiRegistry();
+        String[] aliases = {SOURCE, FILTER, MERGE};
+        String[] verbs = {"Calibrate", "Filter", "Resample", "Mosaic", "Terrain", "Speckle", "Band", "Subset"};
+        ArrayList<UnifiedMetadata> catalog = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            OperatorSpi spi = registry.getOperatorSpi(aliases[i % aliases.length]);
+            String name = verbs[i % verbs.length] + "-" + i;
+            String category = "Raster/Group " + (i % 17) + "/" + verbs[(i / 8) % verbs.length];
+            OperatorMetadata metadata = metadata(spi.getOperatorClass().getAnnotation(OperatorMetadata.class),
+                                                 name, category);
+            catalog.add(new UnifiedMetadata(metadata, spi.getOperatorDescriptor(),
+                                            spi.getOperatorClass().getDeclaredFields()));
+        }
+        return catalog;
+    }
+
+    /**
+     * Copy of an operator annotation with a different alias and category.
+     * @param original original annotation
+     * @param alias new alias
+     * @param category new category
+     * @return the annotation copy
+     */
+    static private OperatorMetadata metadata(OperatorMetadata original, String alias, String category) {
+        return (OperatorMetadata) Proxy.newProxyInstance(
+                OperatorMetadata.class.getClassLoader(), new Class<?>[]{OperatorMetadata.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "alias":
+                            return alias;
+                        case "label":
+                            return "";
+                        case "category":
+                            return category;
+                        default:
+                            return method.invoke(original, args);
+                    }
+                });
+    }
+}
@@ -0,0 +1,56 @@
+package org.esa.snap.grapheditor.bench.stub;
+
+import com.bc.ceres.core.ProgressMonitor;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.gpf.Operator;
+import org.esa.snap.core.gpf.OperatorException;
+import org.esa.snap.core.gpf.OperatorSpi;
+import org.esa.snap.core.gpf.Tile;
+import org.esa.snap.core.gpf.annotations.OperatorMetadata;
+import org.esa.snap.core.gpf.annotations.Parameter;
+import org.esa.snap.core.gpf.annotations.TargetProduct;
+
+/**
+ * Stub source operator: a synthetic product of constant float bands, so that the benchmarks never touch the disk.
+ */
+@OperatorMetadata(alias = "StubSource",
+        category = "Benchmark",
+        version = "1.0",
+        description = "Synthetic source product used by the benchmarks")
+public class StubSourceOp extends Operator {
+    @Parameter(defaultValue = "256", description = "Width of the product")
+    private int width;
+
+    @Parameter(defaultValue = "256", description = "Height of the product")
+    private int height;
+
+    @Parameter(defaultValue = "2", description = "Number of bands")
+    private int bandCount;
+
+    @TargetProduct
+    private Product targetProduct;
+
+    @Override
+    public void initialize() throws OperatorException {
+        targetProduct = new Product("stub", "STUB", width, height);
+        for (int i = 0; i < bandCount; i++) {
+            targetProduct.addBand("band_" + (i + 1), ProductData.TYPE_FLOAT32);
+        }
+    }
+
+    @Override
+    public void computeTile(Band targetBand, Tile targetTile, ProgressMonitor pm) throws OperatorException {
+        float value = targetProduct.getBandIndex(targetBand.getName()) + 1;
+        for (Tile.Pos pos : targetTile) {
+            targetTile.setSample(pos.x, pos.y, value);
+        }
+    }
+
+    public static class Spi extends OperatorSpi {
+        public Spi() {
+            super(StubSourceOp.class);
+        }
+    }
+}
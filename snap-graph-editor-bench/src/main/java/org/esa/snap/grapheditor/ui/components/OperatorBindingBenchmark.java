@@ -0,0 +1,157 @@
+package org.esa.snap.grapheditor.ui.components;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.gpf.GPF;
+import org.esa.snap.core.gpf.Operator;
+import org.esa.snap.core.gpf.OperatorSpi;
+import org.esa.snap.grapheditor.bench.BenchEnvironment;
+import org.esa.snap.grapheditor.bench.SyntheticGraphs;
+import org.esa.snap.grapheditor.bench.stub.StubOperators;
+import org.esa.snap.grapheditor.ui.components.utils.BenchGraphs;
+import org.esa.snap.grapheditor.ui.components.utils.CancellationToken;
+import org.esa.snap.grapheditor.ui.components.utils.ProductCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Operator binding of a validation pass, as done by NodeGui.recomputeOutput for each node: parameters and source
+ * product are set and the target product is computed on fresh StubFilter operators.
+ * The reflective variant reproduces the previous NodeGui binding (a getMethod and setAccessible per call), the typed
+ * variant the current one (direct calls of the Operator API). The previous binding is not part of NodeGui anymore,
+ * so the before/after comparison is made on the binding alone; validationPass measures the whole NodeGui.validate of
+ * a StubSource read by N StubFilter nodes with the current binding, to relate the binding to the cost of the pass.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OperatorBindingBenchmark {
+
+    /**
+     * Fresh StubFilter operators and the product they read.
+     */
+    @State(Scope.Thread)
+    public static class Operators {
+        @Param({"10", "100", "1000"})
+        public int nodes;
+
+        private OperatorSpi spi;
+        private Product source;
+        private Operator[] operators;
+
+        @Setup(Level.Trial)
+        public void setupTrial() {
+            BenchEnvironment.init();
+            spi = GPF.getDefaultInstance().getOperatorSpiRegistry().getOperatorSpi(StubOperators.FILTER);
+            Operator sourceOperator = GPF.getDefaultInstance().getOperatorSpiRegistry()
+                                         .getOperatorSpi(StubOperators.SOURCE).createOperator();
+            source = sourceOperator.getTargetProduct();
+        }
+
+        @Setup(Level.Invocation)
+        public void setupInvocation() {
+            operators = new Operator[nodes];
+            for (int i = 0; i < nodes; i++) {
+                operators[i] = spi.createOperator();
+            }
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDownInvocation() {
+            for (Operator operator : operators) {
+                operator.dispose();
+            }
+        }
+    }
+
+    /**
+     * Freshly built FANOUT graph, never validated. The ProductCache is cleared after each pass, otherwise the next
+     * graph would reuse the cached products instead of binding new operators.
+     */
+    @State(Scope.Thread)
+    public static class Pass {
+        @Param({"10", "100", "1000"})
+        public int nodes;
+
+        private BenchGraphs builder;
+        private List<NodeGui> graph;
+
+        @Setup(Level.Trial)
+        public void setupTrial() {
+            BenchEnvironment.init();
+            builder = new BenchGraphs();
+        }
+
+        @Setup(Level.Invocation)
+        public void setupInvocation() {
+            graph = builder.build(SyntheticGraphs.generate(nodes, SyntheticGraphs.Shape.FANOUT, 42));
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDownInvocation() {
+            for (NodeGui n : graph) {
+                n.dispose();
+            }
+            ProductCache.getInstance().clear();
+        }
+    }
+
+    @Benchmark
+    public void typed(Operators state, Blackhole blackhole) {
+        for (int i = 0; i < state.nodes; i++) {
+            Operator operator = state.operators[i];
+            operator.setParameter("factor", 1.5);
+            operator.setParameter("label", "f" + i);
+            operator.setParameter("bandNames", new String[]{"band_1", "band_2"});
+            operator.setSourceProduct("source", state.source);
+            blackhole.consume(operator.getTargetProduct());
+        }
+    }
+
+    @Benchmark
+    public void reflective(Operators state, Blackhole blackhole) throws Exception {
+        for (int i = 0; i < state.nodes; i++) {
+            Operator operator = state.operators[i];
+            invoke(operator, "setParameter", new Class<?>[]{String.class, Object.class}, "factor", 1.5);
+            invoke(operator, "setParameter", new Class<?>[]{String.class, Object.class}, "label", "f" + i);
+            invoke(operator, "setParameter", new Class<?>[]{String.class, Object.class}, "bandNames",
+                   new String[]{"band_1", "band_2"});
+            invoke(operator, "setSourceProduct", new Class<?>[]{String.class, Product.class}, "source",
+                   state.source);
+            blackhole.consume(invoke(operator, "getTargetProduct", new Class<?>[0]));
+        }
+    }
+
+    @Benchmark
+    public void validationPass(Pass state, Blackhole blackhole) {
+        // graph order is a topological order, as the ValidationEngine would visit a single level at a time
+        for (NodeGui n : state.graph) {
+            n.updateSources();
+            n.validate(CancellationToken.NONE);
+            blackhole.consume(n.getProduct());
+        }
+    }
+
+    static private Object invoke(Operator operator, String name, Class<?>[] types, Object... args) throws Exception {
+        Method method = operator.getClass().getMethod(name, types);
+        method.setAccessible(true);
+        return method.invoke(operator, args);
+    }
+}
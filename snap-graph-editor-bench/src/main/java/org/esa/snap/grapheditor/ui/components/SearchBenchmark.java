@@ -0,0 +1,50 @@
+package org.esa.snap.grapheditor.ui.components;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.esa.snap.grapheditor.bench.BenchEnvironment;
+import org.esa.snap.grapheditor.bench.stub.StubOperators;
+import org.esa.snap.grapheditor.ui.components.utils.UnifiedMetadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Search of the AddNodeDialog over catalogs of operators metadata, executed at each key stroke.
+ * The benchmark lives in the components package to reach the package-private dialog.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SearchBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    public int operators;
+
+    @Param({"f", "filter", "raster group 3"})
+    public String query;
+
+    private List<UnifiedMetadata> catalog;
+
+    @Setup
+    public void setup() {
+        BenchEnvironment.init();
+        catalog = StubOperators.catalog(operators);
+    }
+
+    @Benchmark
+    public List<UnifiedMetadata> search() {
+        return AddNodeDialog.search(catalog, query);
+    }
+}
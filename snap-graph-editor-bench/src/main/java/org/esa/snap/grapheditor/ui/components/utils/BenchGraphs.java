@@ -0,0 +1,244 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.xml.stream.XMLStreamException;
+
+import com.thoughtworks.xstream.io.xml.xppdom.XppDom;
+import org.esa.snap.core.gpf.GPF;
+import org.esa.snap.core.gpf.OperatorSpiRegistry;
+import org.esa.snap.core.gpf.graph.Graph;
+import org.esa.snap.core.gpf.graph.GraphIO;
+import org.esa.snap.core.gpf.graph.Node;
+import org.esa.snap.grapheditor.gpf.ui.OperatorUI;
+import org.esa.snap.grapheditor.gpf.ui.OperatorUIRegistry;
+import org.esa.snap.grapheditor.ui.components.NodeGui;
+
+/**
+ * Construction of the editor nodes outside of the GraphManager, following the same steps as the GraphLoadWorker:
+ * streaming parse, configurations parsed on a pool, NodeGui creation on the calling thread in file order (the
+ * GraphLoadWorker builds them on the EDT, as the operator UIs create Swing components), positions and connections
+ * once all the nodes exist.
+ * It lives in the utils package to reach the package-private parts of the editor.
+ */
+public class BenchGraphs {
+    private final HashMap<String, UnifiedMetadata> metadata;
+    private final OperatorSpiRegistry registry;
+
+    /**
+     * Prepare the builder with the metadata of all the registered operators.
+     */
+    public BenchGraphs() {
+        registry = GPF.getDefaultInstance().getOperatorSpiRegistry();
+        metadata = OperatorMetadataIndex.build(registry);
+    }
+
+    /**
+     * Metadata of all the registered operators.
+     * @return operator alias -> metadata
+     */
+    public Map<String, UnifiedMetadata> getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Load a graph file like the GraphLoadWorker does.
+     * @param file graph file
+     * @param pool pool used to parse the node configurations
+     * @return the connected nodes, in file order
+     * @throws IOException if the file can not be read
+     * @throws XMLStreamException if the file is not valid
+     */
+    public List<NodeGui> load(File file, ExecutorService pool) throws IOException, XMLStreamException {
+        ArrayDeque<Future<Map<String, Object>>> pending = new ArrayDeque<>();
+        ArrayList<Node> parsed = new ArrayList<>();
+        HashMap<String, String[]> sources = new HashMap<>();
+        HashMap<String, XppDom> positions = new HashMap<>();
+        new GraphStreamReader(file).read(new GraphStreamReader.Handler() {
+            @Override
+            public void node(Node node, String[] sourceIds, String[] sourceNames) {
+                sources.put(node.getId(), sourceIds);
+                parsed.add(node);
+                pending.add(pool.submit(() -> getConfiguration(node)));
+            }
+
+            @Override
+            public void presentation(XppDom element) {
+                positions.put(element.getAttribute("id"), element);
+            }
+
+            @Override
+            public void progress(int value) {
+                // not reported
+            }
+        }, CancellationToken.NONE);
+
+        ArrayList<NodeGui> nodes = new ArrayList<>(pending.size());
+        HashMap<String, NodeGui> index = new HashMap<>();
+        for (Node node : parsed) {
+            try {
+                NodeGui n = createNode(node, pending.poll().get());
+                nodes.add(n);
+                index.put(n.getName(), n);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+        }
+        for (NodeGui n : nodes) {
+            XppDom position = positions.get(n.getName());
+            if (position != null) {
+                n.loadParameters(position);
+            }
+            connect(n, sources.get(n.getName()), index);
+        }
+        return nodes;
+    }
+
+    /**
+     * Build the nodes of an in-memory graph, sequentially.
+     * @param graph graph to build
+     * @return the connected nodes, in graph order
+     */
+    public List<NodeGui> build(Graph graph) {
+        ArrayList<NodeGui> nodes = new ArrayList<>(graph.getNodeCount());
+        HashMap<String, NodeGui> index = new HashMap<>();
+        for (Node node : graph.getNodes()) {
+            // sources are added back by the connections, as for the loaded nodes
+            Node copy = new Node(node.getId(), node.getOperatorName());
+            copy.setConfiguration(node.getConfiguration());
+            NodeGui n = createNode(copy, getConfiguration(copy));
+            nodes.add(n);
+            index.put(n.getName(), n);
+        }
+        for (Node node : graph.getNodes()) {
+            String[] sourceIds = new String[node.getSources().length];
+            for (int i = 0; i < sourceIds.length; i++) {
+                sourceIds[i] = node.getSource(i).getSourceNodeId();
+            }
+            connect(index.get(node.getId()), sourceIds, index);
+        }
+        return nodes;
+    }
+
+    /**
+     * Create the graph of a set of nodes, as kept by the GraphManager.
+     * @param nodes editor nodes
+     * @return graph of the nodes
+     */
+    static public Graph graphOf(List<NodeGui> nodes) {
+        Graph graph = new Graph("");
+        for (NodeGui n : nodes) {
+            graph.addNode(n.getNode());
+        }
+        return graph;
+    }
+
+    /**
+     * Create the validation engine of a set of nodes.
+     * @param nodes connected nodes
+     * @return validation engine with all the nodes marked as dirty
+     */
+    static public Validation validation(List<NodeGui> nodes) {
+        GraphIndex index = new GraphIndex();
+        for (NodeGui n : nodes) {
+            index.add(n);
+        }
+        for (NodeGui n : nodes) {
+            index.setSources(n, n.getIncomingConnections());
+        }
+        ValidationEngine engine = new ValidationEngine(index);
+        engine.markAllDirty();
+        return new Validation(engine);
+    }
+
+    /**
+     * Snapshot and serialize the nodes like GraphManager.saveGraph does, in memory.
+     * @param graph graph of the nodes
+     * @param nodes nodes of the graph
+     * @param writer destination
+     */
+    static public void save(Graph graph, List<NodeGui> nodes, Writer writer) {
+        GraphIO.write(GraphManager.snapshot(graph, nodes), writer);
+    }
+
+    /**
+     * Snapshot the nodes and write them to file like GraphManager.saveGraph does.
+     * @param graph graph of the nodes
+     * @param nodes nodes of the graph
+     * @param file destination
+     * @return number of bytes written
+     * @throws IOException if the file can not be written
+     */
+    static public long save(Graph graph, List<NodeGui> nodes, File file) throws IOException {
+        return GraphManager.writeGraph(GraphManager.snapshot(graph, nodes), file);
+    }
+
+    /**
+     * Parse the configuration of a node like GraphManager.getConfiguration does.
+     * @param node graph node
+     * @return configuration map
+     */
+    public Map<String, Object> getConfiguration(Node node) {
+        return OperatorSchema.get(registry.getOperatorSpi(node.getOperatorName())).parse(node.getConfiguration());
+    }
+
+    private NodeGui createNode(Node node, Map<String, Object> configuration) {
+        UnifiedMetadata meta = metadata.get(node.getOperatorName());
+        OperatorUI ui = OperatorUIRegistry.CreateOperatorUI(meta.getName());
+        return new NodeGui(node, configuration, meta, ui);
+    }
+
+    static private void connect(NodeGui n, String[] sourceIds, Map<String, NodeGui> index) {
+        if (sourceIds == null) {
+            return;
+        }
+        int input = 0;
+        for (String id : sourceIds) {
+            NodeGui source = index.get(id);
+            if (source != null) {
+                n.addConnection(source, input);
+                input++;
+            }
+        }
+    }
+
+    /**
+     * Validation engine wrapper, exposing the package-private engine to the benchmarks.
+     */
+    static public class Validation {
+        private final ValidationEngine engine;
+
+        private Validation(ValidationEngine engine) {
+            this.engine = engine;
+        }
+
+        /**
+         * Validate the dirty nodes.
+         * @return false if at least one node is in error
+         */
+        public boolean run() {
+            return engine.run(engine.plan(), new CancellationToken());
+        }
+
+        /**
+         * Mark a node as changed.
+         * @param node changed node
+         */
+        public void markDirty(NodeGui node) {
+            engine.markDirty(node);
+        }
+    }
+}
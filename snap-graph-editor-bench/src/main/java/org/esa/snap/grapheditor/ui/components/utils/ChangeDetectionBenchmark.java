@@ -0,0 +1,76 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.awt.Rectangle;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Detection of the parameter changes done by NodeGui on each deselection, for a configuration with a large list
+ * parameter (e.g. a list of files): the ConfigurationHash of an unchanged and of a changed configuration, compared
+ * with the previous comparison of the toString values of a configuration copy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ChangeDetectionBenchmark {
+    @Param({"10", "1000", "100000"})
+    public int entries;
+
+    private HashMap<String, Object> parameters;
+    private HashMap<String, Object> committed;
+    private ConfigurationHash hash;
+
+    @Setup
+    public void setup() {
+        String[] files = new String[entries];
+        for (int i = 0; i < entries; i++) {
+            files[i] = "/data/products/S1A_IW_GRDH_" + i + ".zip";
+        }
+        parameters = new HashMap<>();
+        parameters.put("fileList", files);
+        parameters.put("factor", 1.5);
+        parameters.put("label", "stack");
+        parameters.put("region", new Rectangle(0, 0, 1000, 1000));
+        committed = new HashMap<>(parameters);
+        hash = new ConfigurationHash();
+        hash.update(parameters);
+    }
+
+    @Benchmark
+    public boolean hashUnchanged() {
+        return hash.update(parameters);
+    }
+
+    @Benchmark
+    public boolean hashChanged() {
+        // a new array with the same content, as set by a list component
+        parameters.put("fileList", ((String[]) parameters.get("fileList")).clone());
+        return hash.update(parameters);
+    }
+
+    @Benchmark
+    public boolean toStringComparison() {
+        boolean changed = false;
+        for (Map.Entry<String, Object> e : parameters.entrySet()) {
+            changed |= !String.valueOf(e.getValue()).equals(String.valueOf(committed.get(e.getKey())));
+        }
+        committed = new HashMap<>(parameters);
+        return changed;
+    }
+}
@@ -0,0 +1,52 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.util.concurrent.TimeUnit;
+
+import org.esa.snap.core.gpf.graph.Graph;
+import org.esa.snap.core.gpf.graph.Node;
+import org.esa.snap.grapheditor.bench.BenchEnvironment;
+import org.esa.snap.grapheditor.bench.SyntheticGraphs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Conversion of the DOM configuration of all the nodes of a graph to parameter maps, as done by
+ * GraphManager.getConfiguration for every loaded or created node.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConfigurationBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    public int nodes;
+
+    private BenchGraphs builder;
+    private Graph graph;
+
+    @Setup
+    public void setup() {
+        BenchEnvironment.init();
+        builder = new BenchGraphs();
+        graph = SyntheticGraphs.generate(nodes, 42);
+    }
+
+    @Benchmark
+    public void getConfiguration(Blackhole blackhole) {
+        for (Node node : graph.getNodes()) {
+            blackhole.consume(builder.getConfiguration(node));
+        }
+    }
+}
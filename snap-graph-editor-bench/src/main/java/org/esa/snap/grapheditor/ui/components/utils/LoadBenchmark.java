@@ -0,0 +1,72 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.Reader;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.esa.snap.core.gpf.graph.Graph;
+import org.esa.snap.core.gpf.graph.GraphIO;
+import org.esa.snap.grapheditor.bench.BenchEnvironment;
+import org.esa.snap.grapheditor.bench.SyntheticGraphs;
+import org.esa.snap.grapheditor.ui.components.NodeGui;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading of a graph file: GraphIO parsing alone (baseline) and the full GraphLoadWorker steps (streaming parse,
+ * configurations parsed on a pool, NodeGui creation in file order, positions and connections).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LoadBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    public int nodes;
+
+    private File file;
+    private BenchGraphs builder;
+    private ExecutorService pool;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchEnvironment.init();
+        builder = new BenchGraphs();
+        file = SyntheticGraphs.generateFile(nodes, 42);
+        pool = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdownNow();
+        file.delete();
+    }
+
+    @Benchmark
+    public Graph parseGraphIO() throws Exception {
+        try (Reader reader = new FileReader(file)) {
+            return GraphIO.read(reader);
+        }
+    }
+
+    @Benchmark
+    public List<NodeGui> loadNodes() throws Exception {
+        return builder.load(file, pool);
+    }
+}
@@ -0,0 +1,71 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.esa.snap.core.gpf.graph.Graph;
+import org.esa.snap.grapheditor.bench.BenchEnvironment;
+import org.esa.snap.grapheditor.bench.SyntheticGraphs;
+import org.esa.snap.grapheditor.ui.components.NodeGui;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialization of a graph and of its Presentation data, as done by GraphManager.saveGraph. The graph is written
+ * either in memory, so that the disk does not affect the measure, or to a file through the buffered and atomic
+ * writer used by the editor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SaveBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    public int nodes;
+
+    private Graph graph;
+    private List<NodeGui> nodeGuis;
+    private File file;
+
+    @Setup
+    public void setup() throws IOException {
+        BenchEnvironment.init();
+        nodeGuis = new BenchGraphs().build(SyntheticGraphs.generate(nodes, 42));
+        graph = BenchGraphs.graphOf(nodeGuis);
+        file = File.createTempFile("save-benchmark", ".xml");
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    @Benchmark
+    public int saveGraph() {
+        StringWriter writer = new StringWriter(nodes * 512);
+        BenchGraphs.save(graph, nodeGuis, writer);
+        return writer.getBuffer().length();
+    }
+
+    @Benchmark
+    public long saveGraphFile() throws IOException {
+        return BenchGraphs.save(graph, nodeGuis, file);
+    }
+}
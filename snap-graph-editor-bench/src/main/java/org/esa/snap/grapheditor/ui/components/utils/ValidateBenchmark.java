@@ -0,0 +1,91 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.esa.snap.grapheditor.bench.BenchEnvironment;
+import org.esa.snap.grapheditor.bench.SyntheticGraphs;
+import org.esa.snap.grapheditor.ui.components.NodeGui;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Validation of a graph by the ValidationEngine, as done by the ValidateWorker: full validation of a freshly loaded
+ * graph and incremental validation after a change of the first source node.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ValidateBenchmark {
+
+    /**
+     * Freshly built graph, never validated.
+     */
+    @State(Scope.Thread)
+    public static class Fresh {
+        @Param({"10", "100", "1000", "10000"})
+        public int nodes;
+
+        private BenchGraphs builder;
+        private BenchGraphs.Validation validation;
+
+        @Setup(Level.Trial)
+        public void setupTrial() {
+            BenchEnvironment.init();
+            builder = new BenchGraphs();
+        }
+
+        @Setup(Level.Invocation)
+        public void setupInvocation() {
+            validation = BenchGraphs.validation(builder.build(SyntheticGraphs.generate(nodes, 42)));
+        }
+    }
+
+    /**
+     * Graph already validated, only its first node is marked as changed.
+     */
+    @State(Scope.Thread)
+    public static class Validated {
+        @Param({"10", "100", "1000", "10000"})
+        public int nodes;
+
+        private BenchGraphs.Validation validation;
+        private NodeGui changed;
+
+        @Setup(Level.Trial)
+        public void setupTrial() {
+            BenchEnvironment.init();
+            List<NodeGui> graph = new BenchGraphs().build(SyntheticGraphs.generate(nodes, 42));
+            validation = BenchGraphs.validation(graph);
+            validation.run();
+            changed = graph.get(0);
+        }
+
+        @Setup(Level.Invocation)
+        public void setupInvocation() {
+            validation.markDirty(changed);
+        }
+    }
+
+    @Benchmark
+    public boolean fullValidation(Fresh state) {
+        return state.validation.run();
+    }
+
+    @Benchmark
+    public boolean incrementalValidation(Validated state) {
+        return state.validation.run();
+    }
+}
@@ -365,6 +365,14 @@ public class ProductSetPanel extends JPanel implements TableModelListener {
         return null;
     }
 
+    public boolean isSkippingExistingTargets() {
+        return targetProductSelector != null && targetProductSelector.isSkippingExistingTargets();
+    }
+
+    public boolean isKeepingSourceProductName() {
+        return targetProductSelector != null && targetProductSelector.isKeepingSourceProductName();
+    }
+
     public void setTargetFolder(final File path) {
         if (targetProductSelector != null) {
             final TargetProductSelectorModel targetProductSelectorModel = targetProductSelector.getModel();
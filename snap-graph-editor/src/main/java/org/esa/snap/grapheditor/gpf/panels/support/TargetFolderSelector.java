@@ -73,4 +73,11 @@ public class TargetFolderSelector extends TargetProductSelector {
         return panel;
     }
 
+    public boolean isSkippingExistingTargets() {
+        return skipExistingCBox.isSelected();
+    }
+
+    public boolean isKeepingSourceProductName() {
+        return replaceWritersWithUniqueTargetProductCBox.isSelected();
+    }
 }
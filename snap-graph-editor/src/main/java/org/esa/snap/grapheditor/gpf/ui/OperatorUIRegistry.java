@@ -40,7 +40,7 @@ public class OperatorUIRegistry {
         registerOperatorUIs();
     }
 
-    public static OperatorUIRegistry getInstance() {
+    public static synchronized OperatorUIRegistry getInstance() {
         if(instance == null) {
             instance = new OperatorUIRegistry();
         }
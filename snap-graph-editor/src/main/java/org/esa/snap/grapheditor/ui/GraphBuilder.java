@@ -4,13 +4,17 @@ import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.File;
+import java.util.Map;
 
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
 import org.esa.snap.engine_utilities.util.ResourceUtils;
+import org.esa.snap.grapheditor.gpf.panels.ProductSetPanel;
+import org.esa.snap.grapheditor.gpf.panels.support.FileTable;
 import org.esa.snap.grapheditor.ui.components.MainPanel;
 import org.esa.snap.grapheditor.ui.components.StatusPanel;
+import org.esa.snap.grapheditor.ui.components.interfaces.ExecutionListener;
 import org.esa.snap.grapheditor.ui.components.interfaces.GraphListener;
 import org.esa.snap.grapheditor.ui.components.interfaces.NodeInterface;
 import org.esa.snap.grapheditor.ui.components.utils.GraphManager;
@@ -21,19 +25,25 @@ import org.esa.snap.ui.DefaultAppContext;
 
 /**
  * Main View for the new Graph Builder.
- * It implement the GraphListener to know when the graph changes to enable/disable save functionality.
+ * It implement the GraphListener to know when the graph changes to enable/disable save functionality and the
+ * ExecutionListener to enable/disable the run and stop functionalities.
  * 
  * @author Martino Ferrari (CS Group)
  */
-public class GraphBuilder extends JPanel implements GraphListener {
+public class GraphBuilder extends JPanel implements GraphListener, ExecutionListener {
     /**
      * GraphBuilder serail ID
      */
     private static final long serialVersionUID = 50849209475264574L;
     private final JButton saveAsButton;
     private final JButton saveButton;
+    private final JButton runButton;
+    private final JButton stopButton;
+    private final JButton batchButton;
+    private final JButton partitionButton;
 
     private final Window parentWindow;
+    private MainPanel mainPanel;
 
     private boolean hasChanged = false;
 
@@ -48,9 +58,14 @@ public class GraphBuilder extends JPanel implements GraphListener {
         super();
         parentWindow = frame;
 
-        // Initialise empty graph
+        // Initialise the graph of the previous session if it was not saved, or an empty graph
         GraphManager.getInstance().setAppContext(context);
-        GraphManager.getInstance().createEmptyGraph();
+        boolean recovered = GraphManager.getInstance().hasRecoverableSession() && confirmRecovery()
+                && GraphManager.getInstance().recoverSession();
+        if (!recovered) {
+            GraphManager.getInstance().discardSession();
+            GraphManager.getInstance().createEmptyGraph();
+        }
 
         // Init GUI
         this.setLayout(new BorderLayout(0, 0));
@@ -64,12 +79,33 @@ public class GraphBuilder extends JPanel implements GraphListener {
         settingsButton.addActionListener(e -> SettingManager.getInstance().showSettingsDialog(parentWindow));
         settingsButton.setToolTipText("Settings");
 
-        JButton runButton = new JButton();
+        runButton = new JButton();
         ImageIcon runIcon = TangoIcons.actions_media_playback_start(TangoIcons.R22);
         runButton.setIcon(runIcon);
         runButton.addActionListener(e -> GraphManager.getInstance().evaluate());
+
+        stopButton = new JButton();
+        ImageIcon stopIcon = TangoIcons.actions_media_playback_stop(TangoIcons.R22);
+        stopButton.setIcon(stopIcon);
+        stopButton.setEnabled(false);
+        stopButton.addActionListener(e -> GraphManager.getInstance().stopEvaluation());
+        GraphManager.getInstance().getExecutionService().addExecutionListener(this);
         runButton.setToolTipText("Run");
 
+        batchButton = new JButton();
+        ImageIcon batchIcon = new ImageIcon(GraphBuilder.class.getClassLoader()
+                                                    .getResource("org/esa/snap/grapheditor/icons/batch24.png"));
+        batchButton.setIcon(batchIcon);
+        batchButton.addActionListener(e -> runBatch(context));
+        batchButton.setToolTipText("Run on a set of products");
+
+        partitionButton = new JButton();
+        ImageIcon partitionIcon = new ImageIcon(GraphBuilder.class.getClassLoader()
+                                                        .getResource("org/esa/snap/grapheditor/icons/WorldMap24.png"));
+        partitionButton.setIcon(partitionIcon);
+        partitionButton.addActionListener(e -> GraphManager.getInstance().evaluatePartitioned());
+        partitionButton.setToolTipText("Run split into regions (see the settings)");
+
         saveButton = new JButton();
         ImageIcon saveIcon = TangoIcons.actions_document_save(TangoIcons.R22);
         saveButton.setIcon(saveIcon);
@@ -89,6 +125,16 @@ public class GraphBuilder extends JPanel implements GraphListener {
         saveAsButton.setEnabled(false);
         saveButton.setEnabled(false);
 
+        JButton undoButton = new JButton();
+        undoButton.setIcon(TangoIcons.actions_edit_undo(TangoIcons.R22));
+        undoButton.addActionListener(e -> mainPanel.getGraphPanel().undo());
+        undoButton.setToolTipText("Undo (Ctrl+Z)");
+
+        JButton redoButton = new JButton();
+        redoButton.setIcon(TangoIcons.actions_edit_redo(TangoIcons.R22));
+        redoButton.addActionListener(e -> mainPanel.getGraphPanel().redo());
+        redoButton.setToolTipText("Redo (Ctrl+Y)");
+
         JButton openButton = new JButton();
         ImageIcon openIcon = TangoIcons.actions_document_open(TangoIcons.R22);
         openButton.setIcon(openIcon);
@@ -125,17 +171,34 @@ public class GraphBuilder extends JPanel implements GraphListener {
         toolBar.add(saveButton);
         toolBar.add(saveAsButton);
         toolBar.addSeparator();
+        toolBar.add(undoButton);
+        toolBar.add(redoButton);
+        toolBar.addSeparator();
         toolBar.add(runButton);
+        toolBar.add(batchButton);
+        toolBar.add(partitionButton);
+        toolBar.add(stopButton);
         toolBar.add(Box.createHorizontalGlue());
         toolBar.add(settingsButton);
 
         StatusPanel statusBar = new StatusPanel();
         this.add(statusBar, BorderLayout.PAGE_END);
 
-        MainPanel mainPanel = new MainPanel();
+        mainPanel = new MainPanel();
         this.add(mainPanel, BorderLayout.CENTER);
 
         mainPanel.getGraphPanel().addGraphListener(this);
+        if (recovered) {
+            somethingChanged();
+        }
+    }
+
+    private boolean confirmRecovery() {
+        int dialogResult = JOptionPane.showConfirmDialog(parentWindow,
+                                                         "The graph of the previous session was not saved, "
+                                                         + "do you want to recover it?",
+                                                         "Graph Recovery", JOptionPane.YES_NO_OPTION);
+        return dialogResult == JOptionPane.YES_OPTION;
     }
 
 
@@ -165,20 +228,49 @@ public class GraphBuilder extends JPanel implements GraphListener {
                 fileChooser.setCurrentDirectory(new File(System.getProperty("user.home")));
                 int result = fileChooser.showSaveDialog(this);
                 if (result == JFileChooser.APPROVE_OPTION) {
-                    File selectedFile = fileChooser.getSelectedFile();
-                    if (GraphManager.getInstance().saveGraph(selectedFile)) {
-                        hasChanged = false;
-                        openFile = selectedFile;
-                    }
+                    saveGraph(fileChooser.getSelectedFile());
                 }
             } else {
-                if (GraphManager.getInstance().saveGraph(openFile)) {
-                    hasChanged = false;
-                }
+                saveGraph(openFile);
             }
         }
     }
 
+    /**
+     * Save the graph in background. The saved snapshot is taken immediately, so the graph is marked as unchanged
+     * right away and any edit done while it is written marks it as changed again.
+     * @param file destination file
+     */
+    private void saveGraph(File file) {
+        hasChanged = false;
+        GraphManager.getInstance().saveGraph(file, success -> {
+            if (success) {
+                openFile = file;
+            } else {
+                hasChanged = true;
+            }
+        });
+    }
+
+    private void runBatch(AppContext context) {
+        ProductSetPanel productSet = new ProductSetPanel(context, "Batch Processing", new FileTable(), true, true);
+        int result = JOptionPane.showConfirmDialog(this, productSet, "Batch Processing",
+                                                   JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (result != JOptionPane.OK_OPTION) {
+            return;
+        }
+        File[] inputs = productSet.getFileList();
+        if (inputs.length == 0) {
+            JOptionPane.showMessageDialog(this, "No product selected", "Batch Processing",
+                                          JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        productSet.onApply();
+        GraphManager.getInstance().evaluateBatch(inputs, productSet.getTargetFolder(), productSet.getTargetFormat(),
+                                                 productSet.isKeepingSourceProductName(),
+                                                 productSet.isSkippingExistingTargets());
+    }
+
     @Override
     public void selected(NodeInterface source) { }
 
@@ -200,6 +292,34 @@ public class GraphBuilder extends JPanel implements GraphListener {
         somethingChanged();
     }
 
+    @Override
+    public void executionStarted(String graphId) {
+        runButton.setEnabled(false);
+        batchButton.setEnabled(false);
+        partitionButton.setEnabled(false);
+        stopButton.setEnabled(true);
+    }
+
+    @Override
+    public void nodesMerged(Map<String, String> merged) { }
+
+    @Override
+    public void nodeProgress(String nodeId, int value) { }
+
+    @Override
+    public void tileProcessed(Rectangle tile, int done, int total) { }
+
+    @Override
+    public void executionProgress(int value) { }
+
+    @Override
+    public void executionEnded(boolean cancelled, String error) {
+        runButton.setEnabled(true);
+        batchButton.setEnabled(true);
+        partitionButton.setEnabled(true);
+        stopButton.setEnabled(false);
+    }
+
     private boolean confirmClean() {
         if (hasChanged) {
             int dialogResult = JOptionPane.showConfirmDialog (null,
@@ -230,6 +350,7 @@ public class GraphBuilder extends JPanel implements GraphListener {
             @Override
             public void windowClosing(WindowEvent e) {
                 if (builder.confirmClean()) {
+                    GraphManager.getInstance().discardSession();
                     mainFrame.setVisible(false);
                     mainFrame.dispose();
                     System.exit(0);
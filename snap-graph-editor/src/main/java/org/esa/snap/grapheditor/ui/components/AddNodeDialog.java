@@ -8,8 +8,10 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
 import org.javatuples.Pair;
 
 /**
@@ -199,22 +201,12 @@ class AddNodeDialog extends JDialog implements KeyListener, MouseWheelListener {
             results.clear();
             return;
         }
-        ArrayList<Pair<UnifiedMetadata, Double>> searchResult= new ArrayList<>();
-        final String[] normSearch = smartTokenizer(searchString);
-
-        for (UnifiedMetadata metadata: GraphManager.getInstance().getSimplifiedMetadata()) {
-            double dist = metadata.fuzzySearch(normSearch);
-            if (dist >= 0) {
-                searchResult.add(new Pair<>(metadata, dist));
-            }
-        }
+        List<UnifiedMetadata> searchResult = search(GraphManager.getInstance().getSimplifiedMetadata(), searchString);
         results.removeAllElements();
         if (searchResult.size() > 0) {
             int prevActive = resultsList.getSelectedIndex();
-            searchResult.sort(new ResultComparator());
-            for (Pair<UnifiedMetadata, Double> res: searchResult) {
-                results.addElement(res.getValue0());
-                // results.add(res.getKey());
+            for (UnifiedMetadata res: searchResult) {
+                results.addElement(res);
             }
             resultsList.setVisible(true);
 
@@ -232,6 +224,30 @@ class AddNodeDialog extends JDialog implements KeyListener, MouseWheelListener {
         this.revalidate();
     }
 
+    /**
+     * Search the operators matching a query, ordered by fitness.
+     * @param catalog operators metadata
+     * @param searchString query typed by the user
+     * @return matching operators, best match first
+     */
+    static List<UnifiedMetadata> search(Collection<UnifiedMetadata> catalog, String searchString) {
+        ArrayList<Pair<UnifiedMetadata, Double>> searchResult= new ArrayList<>();
+        final String[] normSearch = smartTokenizer(searchString);
+
+        for (UnifiedMetadata metadata: catalog) {
+            double dist = metadata.fuzzySearch(normSearch);
+            if (dist >= 0) {
+                searchResult.add(new Pair<>(metadata, dist));
+            }
+        }
+        searchResult.sort(new ResultComparator());
+        ArrayList<UnifiedMetadata> result = new ArrayList<>(searchResult.size());
+        for (Pair<UnifiedMetadata, Double> res: searchResult) {
+            result.add(res.getValue0());
+        }
+        return result;
+    }
+
     private void enter() {
         NodeGui n = createNode();
         if (n != null) {
@@ -164,6 +164,19 @@ public class GraphPanel extends JPanel
     public void keyReleased(KeyEvent event) {
         int key = event.getKeyCode();
 
+        if (event.isControlDown() && key == KeyEvent.VK_Z) {
+            if (event.isShiftDown()) {
+                redo();
+            } else {
+                undo();
+            }
+            return;
+        }
+        if (event.isControlDown() && key == KeyEvent.VK_Y) {
+            redo();
+            return;
+        }
+
         if (key == SettingManager.getInstance().getCommandPanelKey()
                 && SettingManager.getInstance().isCommandPanelEnabled()) {
             AddNodeDialog addNodeDialog = new AddNodeDialog(this);
@@ -374,11 +387,44 @@ public class GraphPanel extends JPanel
 
     private void moveNode(NodeInterface node, int x, int y) {
         node.setPosition(x, y);
+        graphManager.nodeMoved(node);
         for (GraphListener listener : graphListeners) {
             listener.updated(node);
         }
     }
 
+    /**
+     * Undo the last edit of the graph. The selected node is deselected first, so that its pending parameter changes
+     * are recorded as an edit.
+     * @return false if there was nothing to undo
+     */
+    public boolean undo() {
+        return history(true);
+    }
+
+    /**
+     * Redo the last undone edit of the graph.
+     * @return false if there was nothing to redo
+     */
+    public boolean redo() {
+        return history(false);
+    }
+
+    private boolean history(boolean undo) {
+        if (selectedNode != null) {
+            deselectNode(selectedNode);
+            selectedNode = null;
+        }
+        boolean done = undo ? graphManager.undo() : graphManager.redo();
+        if (done) {
+            for (GraphListener listener : graphListeners) {
+                listener.updated(null);
+            }
+            repaint();
+        }
+        return done;
+    }
+
     public void addGraphListener(GraphListener listener) {
         graphListeners.add(listener);
     }
@@ -408,6 +454,14 @@ public class GraphPanel extends JPanel
         }
     }
 
+    @Override
+    public void connectionRemoved(Object source) {
+        NodeGui srcNode = (NodeGui) source;
+        for (GraphListener l: graphListeners) {
+            l.updated(srcNode);
+        }
+    }
+
     @Override
     public void validateNode(Object node) {
         // nothing to do..
@@ -7,11 +7,13 @@ import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import javax.swing.JComponent;
 
@@ -28,10 +30,21 @@ import org.esa.snap.grapheditor.gpf.ui.OperatorUI;
 import org.esa.snap.grapheditor.gpf.ui.UIValidation;
 import org.esa.snap.grapheditor.ui.components.interfaces.NodeInterface;
 import org.esa.snap.grapheditor.ui.components.interfaces.NodeListener;
+import org.esa.snap.grapheditor.ui.components.interfaces.SchemaTransfer;
+import org.esa.snap.grapheditor.ui.components.utils.CancellationToken;
+import org.esa.snap.grapheditor.ui.components.utils.ConfigurationHash;
 import org.esa.snap.grapheditor.ui.components.utils.Constants;
+import org.esa.snap.grapheditor.ui.components.utils.ExecutionProfiler;
 import org.esa.snap.grapheditor.ui.components.utils.GraphManager;
 import org.esa.snap.grapheditor.ui.components.utils.GraphicalUtils;
+import org.esa.snap.grapheditor.ui.components.utils.NodeProfile;
 import org.esa.snap.grapheditor.ui.components.utils.NotificationManager;
+import org.esa.snap.grapheditor.ui.components.utils.OperatorPool;
+import org.esa.snap.grapheditor.ui.components.utils.ProductCache;
+import org.esa.snap.grapheditor.ui.components.utils.ProductLeases;
+import org.esa.snap.grapheditor.ui.components.utils.ProductSignature;
+import org.esa.snap.grapheditor.ui.components.utils.SchemaTransfers;
+import org.esa.snap.grapheditor.ui.components.utils.SettingManager;
 import org.esa.snap.grapheditor.ui.components.utils.UnifiedMetadata;
 import org.javatuples.Pair;
 
@@ -57,6 +70,7 @@ public class NodeGui implements NodeListener, NodeInterface {
     private static final Color validateColor = new Color(51, 153, 102, 200);
     private static final Color unknownColor = new Color(233, 229, 225, 230); // Color
     private static final Color activeColor = new Color(254, 223, 176, 180);
+    private static final Color progressColor = new Color(66, 133, 244, 220);
 
     private static final Color optionalColor = new Color(234, 201, 53, 255);
 
@@ -92,10 +106,18 @@ public class NodeGui implements NodeListener, NodeInterface {
 
     private final UnifiedMetadata metadata;
     private final OperatorUI operatorUI;
-    private final Operator operator;
+    // created lazily on the first validation, handed over to the ProductLeases with its target product
+    private Operator operator = null;
+    private boolean operatorUsed = false;
+    // products bound as sources to the operator, leased until the operator is released or its product registered
+    private Product[] operatorSources = new Product[0];
 
     private final Node node;
+    // parameters committed from the operator UI, replaced on each change and never modified so that it can be shared
     private Map<String, Object> configuration;
+    private ConfigurationHash configurationHash = null;
+    // digest of the parameters stored in the graph node configuration (0 if not committed yet)
+    private long committedDigest = 0;
     private int numInputs;
 
     private JComponent preferencePanel = null;
@@ -108,7 +130,14 @@ public class NodeGui implements NodeListener, NodeInterface {
 
     private boolean hasChanged = false;
     private Product output = null;
+    private ProductSignature outputSignature = null;
+    // validated on its schema only, the output product is computed on demand (see materialize)
+    private volatile boolean schemaOnly = false;
     private boolean recomputeOutputNeeded = true;
+    // progress of the current graph execution (-1 if the node is not being executed)
+    private int executionProgress = -1;
+    // node computing the product of this node during the current execution (null if the node is executed)
+    private String mergedInto = null;
 
     /**
      * Create a new Node Gui.
@@ -117,10 +146,9 @@ public class NodeGui implements NodeListener, NodeInterface {
      * @param configuration current node configuration
      * @param metadata      unified metadata
      * @param operatorUI    operator properties ui
-     * @param context       execution context
      */
     public NodeGui(Node node, Map<String, Object> configuration, UnifiedMetadata metadata,
-            OperatorUI operatorUI, Operator operator) {
+            OperatorUI operatorUI) {
         this.x = 0;
         this.y = 0;
         this.metadata = metadata;
@@ -131,7 +159,6 @@ public class NodeGui implements NodeListener, NodeInterface {
         this.configuration = configuration;
         numInputs = metadata.getMinNumberOfInputs();
         height = Math.max(height, connectionOffset * (numInputs + 1));
-        this.operator = operator;
     }
 
     @Override
@@ -170,6 +197,15 @@ public class NodeGui implements NodeListener, NodeInterface {
 
         g.drawString(name, x + (width - textW) / 2, y + (textH + 5));
 
+        if (executionProgress >= 0) {
+            g.setColor(progressColor);
+            g.fillRect(x + 4, y + height - 5, (width - 8) * executionProgress / 100, 3);
+        }
+        if (mergedInto != null) {
+            g.setColor(Color.darkGray);
+            g.drawString("= " + mergedInto, x, y + height + textH);
+        }
+
         paintInputs(g);
         paintOutput(g);
     }
@@ -314,12 +350,29 @@ public class NodeGui implements NodeListener, NodeInterface {
                 c = unknownColor;
                 break;
         }
+        if (SettingManager.getInstance().isHeatMapEnabled() && validationStatus != ValidationStatus.ERROR) {
+            double heat = ExecutionProfiler.getInstance().getHeat(name);
+            if (heat >= 0) {
+                c = heatColor(heat);
+            }
+        }
         if ((this.status & STATUS_MASK_OVER) > 0) {
             return c.brighter();
         }
         return c;
     }
 
+    /**
+     * Heat map color, from green (fast) to red (slowest node).
+     * @param heat relative cost of the node (0-1)
+     * @return node color
+     */
+    static private Color heatColor(double heat) {
+        float hue = (float) (1.0 - heat) / 3.0f;
+        Color c = Color.getHSBColor(hue, 0.8f, 0.85f);
+        return new Color(c.getRed(), c.getGreen(), c.getBlue(), 200);
+    }
+
     private Color borderColor() {
         return color().darker().darker();
     }
@@ -445,9 +498,30 @@ public class NodeGui implements NodeListener, NodeInterface {
     public void select() {
         if ((status & STATUS_MASK_SELECTED) == 0)
             status += STATUS_MASK_SELECTED;
+        materializeSources();
         updateSources();
     }
 
+    /**
+     * Compute in background the products of the sources validated on their schema only, the operator UI needs them.
+     * The materialization may wait for a running validation, so the sources of the operator UI are updated once
+     * the products are available.
+     */
+    private void materializeSources() {
+        ArrayList<NodeGui> pending = new ArrayList<>();
+        for (NodeInterface source : incomingConnections.values()) {
+            if (source instanceof NodeGui && ((NodeGui) source).schemaOnly && source.getProduct() == null) {
+                pending.add((NodeGui) source);
+            }
+        }
+        if (!pending.isEmpty()) {
+            GraphManager.getInstance().materialize(pending, () -> {
+                hasChanged = true;
+                updateSources();
+            });
+        }
+    }
+
     /**
      * Update sources products.
      */
@@ -479,7 +553,7 @@ public class NodeGui implements NodeListener, NodeInterface {
     }
 
     private void incomplete() {
-        output = null;
+        setOutput(null);
         NotificationManager.getInstance().warning(this.getName(),
                 "Some input products are missing. Node can not be validated");
         validationStatus = ValidationStatus.WARNING;
@@ -499,59 +573,119 @@ public class NodeGui implements NodeListener, NodeInterface {
         return true;
     }
 
-    private void recomputeOutput() {
+    private void recomputeOutput(CancellationToken token) {
         // Check completude
         if (!isComplete()) {
             incomplete();
             return;
         }
 
-        // setting inputs
-
+        // source products, in input order
+        Product[] sources = new Product[incomingConnections.size()];
+        String[] sourceNames = new String[sources.length];
+        int k = 0;
         for (int i : incomingConnections.keySet()) {
-            String sourceName = metadata.getInputName(i);
             Product p = incomingConnections.get(i).getProduct();
+            if (p == null && incomingConnections.get(i) instanceof NodeGui) {
+                p = ((NodeGui) incomingConnections.get(i)).materialize(token);
+            }
             if (p == null) {
                 incomplete();
                 return;
             }
-            NotificationManager.getInstance().info(this.getName(), "source: " + sourceName);
-            setOperatorSourceProduct(sourceName,p);
-
+            sourceNames[k] = metadata.getInputName(i);
+            sources[k++] = p;
+        }
+        if (token.isCancelled()) {
+            return;
         }
 
         operatorUI.updateParameters();
+        Map<String, Object> parameters = operatorUI.getParameters() != null ? operatorUI.getParameters()
+                                                                           : configuration;
+        // the node digest keeps the hashes of the unchanged values, the lookup does not hash them again
+        long digest = getConfigurationHash().digestOf(parameters);
+        ProductCache.Key key = ProductCache.key(node.getOperatorName(), digest, sources);
+        Product cached = ProductCache.getInstance().get(key);
+        if (cached != null) {
+            // same operator, parameters and sources: the product validated before is still valid, no operator is
+            // prepared and no source is leased
+            if (digest != committedDigest) {
+                commitConfiguration(digest);
+            }
+            if (operatorUsed) {
+                releaseOperator();
+            }
+            recomputeOutputNeeded = false;
+            setOutput(cached);
+            NotificationManager.getInstance().ok(this.getName(), "Validated (cached)");
+            validationStatus = ValidationStatus.VALIDATED;
+            return;
+        }
+
+        if (!prepareOperator()) {
+            NotificationManager.getInstance().error(this.getName(), "Operator not available");
+            setOutput(null);
+            validationStatus = ValidationStatus.ERROR;
+            return;
+        }
+        // the sources must stay alive as long as the operator (and later its product) reads them
+        ProductLeases.getInstance().acquire(sources);
+        ProductLeases.getInstance().release(operatorSources);
+        operatorSources = sources;
+        for (int i = 0; i < sources.length; i++) {
+            NotificationManager.getInstance().info(this.getName(), "source: " + sourceNames[i]);
+            setOperatorSourceProduct(sourceNames[i], sources[i]);
+        }
+        if (token.isCancelled()) {
+            return;
+        }
 
         recomputeOutputNeeded = false;
         UIValidation.State state = operatorUI.validateParameters().getState();
 
         if (state == UIValidation.State.OK) {
-            final XppDomElement config = new XppDomElement("parameters");
-            try {
-                this.operatorUI.convertToDOM(config);
-                node.setConfiguration(config);
-            } catch (GraphException e) {
-                NotificationManager.getInstance().error(this.getName(),
-                        "could not retrieve configuration `" + e.getMessage() + "`");
-                validationStatus = ValidationStatus.ERROR;
-            }
+            commitConfiguration(digest);
 
             NotificationManager.getInstance().info(this.getName(), "setting parameters");
-            for (String param : configuration.keySet()) {
-                setOperatorParameter(param,configuration.get(param));
+            for (String param : parameters.keySet()) {
+                setOperatorParameter(param, parameters.get(param));
+            }
+            if (token.isCancelled()) {
+                // superseded, a new validation will follow
+                recomputeOutputNeeded = true;
+                return;
             }
             try {
                 NotificationManager.getInstance().info(this.getName(), "validating");
-                output = (Product)getTargetProduct();
+                long start = System.nanoTime();
+                Product product = getTargetProduct();
+                ExecutionProfiler.getInstance().validated(name, System.nanoTime() - start);
+                if (token.isCancelled()) {
+                    // superseded, do not publish a result that may be already outdated
+                    recomputeOutputNeeded = true;
+                    return;
+                }
+                // the leases own the operator now, it is disposed once its product is not used anymore
+                ProductLeases.getInstance().register(product, operator, operatorSources);
+                operator = null;
+                operatorUsed = false;
+                operatorSources = new Product[0];
+                setOutput(product);
+                ProductCache.getInstance().put(key, product);
                 NotificationManager.getInstance().ok(this.getName(), "Validated");
                 validationStatus = ValidationStatus.VALIDATED;
             } catch (Exception e) {
+                if (token.isCancelled()) {
+                    recomputeOutputNeeded = true;
+                    return;
+                }
                 NotificationManager.getInstance().error(this.getName(), e.getMessage());
-                output = null;
+                setOutput(null);
                 validationStatus = ValidationStatus.ERROR;
             }
         } else {
-            output = null;
+            setOutput(null);
             if (state == UIValidation.State.ERROR) {
                 String msg = operatorUI.validateParameters().getMsg();
                 NotificationManager.getInstance().error(this.getName(), "Operator UI could not be validated `" + msg + "`" );
@@ -566,42 +700,169 @@ public class NodeGui implements NodeListener, NodeInterface {
     }
 
     /**
-     * set Operator context parameter with java reflectivity
-    */
+     * Store the parameters of the operator UI in the graph node configuration.
+     * @param digest digest of the parameters
+     */
+    private void commitConfiguration(long digest) {
+        final XppDomElement config = new XppDomElement("parameters");
+        try {
+            this.operatorUI.convertToDOM(config);
+            node.setConfiguration(config);
+            committedDigest = digest;
+        } catch (GraphException e) {
+            NotificationManager.getInstance().error(this.getName(),
+                    "could not retrieve configuration `" + e.getMessage() + "`");
+            validationStatus = ValidationStatus.ERROR;
+        }
+    }
+
+    /**
+     * Validate the node propagating only the product schema, using the SchemaTransfer of the operator.
+     * @param token cancellation token of the validation job
+     * @return false if the schema can not be derived, the node must be fully validated
+     */
+    private boolean validateSchema(CancellationToken token) {
+        SchemaTransfer transfer = SchemaTransfers.getInstance().get(node.getOperatorName());
+        if (transfer == null || !isComplete()) {
+            return false;
+        }
+        ProductSignature[] sources = new ProductSignature[incomingConnections.size()];
+        int k = 0;
+        for (int i : incomingConnections.keySet()) {
+            NodeInterface source = incomingConnections.get(i);
+            ProductSignature signature = source instanceof NodeGui ? ((NodeGui) source).getOutputSignature()
+                                                                   : ProductSignature.of(source.getProduct());
+            if (signature == null) {
+                return false;
+            }
+            sources[k++] = signature;
+        }
+        operatorUI.updateParameters();
+        if (operatorUI.validateParameters().getState() != UIValidation.State.OK) {
+            // the full validation reports the problem
+            return false;
+        }
+        Map<String, Object> parameters = operatorUI.getParameters() != null ? operatorUI.getParameters()
+                                                                           : configuration;
+        ProductSignature signature;
+        try {
+            signature = transfer.apply(sources, parameters);
+        } catch (RuntimeException e) {
+            SystemUtils.LOG.fine("Schema transfer of " + node.getOperatorName() + " failed: " + e.getMessage());
+            signature = null;
+        }
+        if (signature == null) {
+            return false;
+        }
+        if (token.isCancelled()) {
+            recomputeOutputNeeded = true;
+            return true;
+        }
+        commitConfiguration(getConfigurationHash().digestOf(parameters));
+        recomputeOutputNeeded = false;
+        if (operatorUsed) {
+            releaseOperator();
+        }
+        setOutput(null);
+        schemaOnly = true;
+        outputSignature = signature;
+        NotificationManager.getInstance().ok(this.getName(), "Validated (schema)");
+        validationStatus = ValidationStatus.VALIDATED;
+        return true;
+    }
+
+    /**
+     * Get the output product, computing it if the node has been validated on its schema only. The products of the
+     * ancestors are computed as well if needed.
+     * @param token cancellation token of the validation job
+     * @return output product (null if it can not be computed)
+     */
+    public synchronized Product materialize(CancellationToken token) {
+        if (schemaOnly && output == null) {
+            recomputeOutput(token);
+        }
+        return output;
+    }
+
+    /**
+     * Replace the output product, moving the lease of the node to the new one (a cached product is not evicted
+     * while it is leased by a node).
+     * @param product new output (may be null)
+     */
+    private void setOutput(Product product) {
+        if (product != output) {
+            ProductLeases.getInstance().acquire(product);
+            ProductLeases.getInstance().release(output);
+            output = product;
+        }
+    }
+
+    /**
+     * Make sure that a fresh operator is available: an operator that already computed its target product can not be
+     * re-initialized, so it is released and replaced by a new instance from the OperatorPool.
+     * @return if the operator is available
+     */
+    private boolean prepareOperator() {
+        if (operatorUsed) {
+            releaseOperator();
+        }
+        if (operator == null) {
+            operator = OperatorPool.getInstance().acquire(metadata.getAlias());
+        }
+        return operator != null;
+    }
+
+    /**
+     * Release the operator of the node, if any, and the leases on the sources bound to it.
+     */
+    private void releaseOperator() {
+        OperatorPool.getInstance().release(operator);
+        operator = null;
+        operatorUsed = false;
+        ProductLeases.getInstance().release(operatorSources);
+        operatorSources = new Product[0];
+    }
+
+    /**
+     * Release the output product and the operator of the node, e.g. when the node is removed. The output is disposed
+     * once the downstream products and the ProductCache do not use it anymore.
+     */
+    public void dispose() {
+        setOutput(null);
+        releaseOperator();
+    }
+
+    /**
+     * Set an operator parameter.
+     */
     private void setOperatorParameter(String name, Object param) {
         try {
-            Method contextMethod = operator.getClass().getMethod("setParameter",String.class,Object.class);
-            contextMethod.setAccessible(true);
-            contextMethod.invoke(operator,name, param);
-        } catch (Exception e) {
+            operator.setParameter(name, param);
+        } catch (RuntimeException e) {
             NotificationManager.getInstance().error(this.getName(), "Unable to set parameter");
         }
     }
 
     /**
-     * set Operator context source product with java reflectivity
-    */
+     * Set an operator source product.
+     */
     private void setOperatorSourceProduct(String name, Product product) {
-
         try {
-            Method contextMethod = operator.getClass().getMethod("setSourceProduct",String.class,Product.class);
-            contextMethod.setAccessible(true);
-            contextMethod.invoke(operator,name, product);
-        } catch (Exception e) {
+            operator.setSourceProduct(name, product);
+        } catch (RuntimeException e) {
             String msg = "Unable to set source product ";
             NotificationManager.getInstance().error(this.getName(), msg);
         }
     }
 
     /**
-     * set Operator target product with java reflectivity
-    */
-    private Object getTargetProduct() throws Exception {
+     * Initialize the operator and get its target product.
+     */
+    private Product getTargetProduct() throws Exception {
+        operatorUsed = true;
         try {
-            Method contextMethod = operator.getClass().getMethod("getTargetProduct");
-            contextMethod.setAccessible(true);
-            return contextMethod.invoke(operator);
-        }catch (Exception e) {
+            return operator.getTargetProduct();
+        } catch (RuntimeException e) {
             String msg = "Unable to get Target Product";
             throw new Exception(msg);
         }
@@ -618,7 +879,7 @@ public class NodeGui implements NodeListener, NodeInterface {
     public void deselect() {
         if ((status & STATUS_MASK_SELECTED) > 0)
             status -= STATUS_MASK_SELECTED;
-        if (recomputeOutputNeeded || output == null || check_changes()) {
+        if (recomputeOutputNeeded || (output == null && !schemaOnly) || check_changes()) {
             for (NodeListener l : nodeListeners) {
                 l.validateNode(this);
             }
@@ -627,46 +888,39 @@ public class NodeGui implements NodeListener, NodeInterface {
     }
 
     /**
-     * Check the equality between to Node configurations, validating the existence of the same keys and checking the
-     * values using the toString method (a better way could be found or implemented!).
-     * @param a first node configuration
-     * @param b second node configuration
-     * @return equality between the two configurations
+     * Check if any changes in the node configuration has been detected. The parameters of the operator UI are
+     * compared with the digest of the committed configuration, which is replaced only if something changed.
+     * @return if a change has been detected
      */
-    private boolean equals(Map<String, Object> a,Map<String, Object> b){
-        Set<String> aset = a.keySet();
-        Set<String> bset = b.keySet();
-        if (aset.size() == bset.size() && bset.containsAll(aset)) {
-            for (String key: aset) {
-                Object aobj = a.get(key);
-                Object bobj = b.get(key);
-                if (aobj == null && bobj == null) // if both are null
-                    continue;
-                if (aobj == null || bobj == null) // if only one of the two is null
-                    return false;
-                // As not all object implement a correct equality I try to use the toString method and comapring
-                // the string... To be see if it actually improve the situation.
-                String astr = aobj.toString();
-                String bstr = bobj.toString();
-                if (!astr.equals(bstr))
-                    return false;
+    private boolean check_changes() {
+        operatorUI.updateParameters();
+        Map<String, Object> update = operatorUI.getParameters();
+        if (!getConfigurationHash().update(update)) {
+            return false;
+        }
+        this.configuration = new HashMap<>(update);
+        return true;
+    }
 
-            }
-            return true;
+    /**
+     * Digest of the committed configuration, created on first use.
+     * @return configuration digest
+     */
+    private ConfigurationHash getConfigurationHash() {
+        if (configurationHash == null) {
+            configurationHash = new ConfigurationHash();
+            configurationHash.update(configuration);
         }
-        return false;
+        return configurationHash;
     }
 
     /**
-     * Check if any changes in the node configuration has been detected.
-     * @return if a change has been detected
+     * Structural digest of the committed configuration, two nodes with the same operator and digest have the same
+     * parameters.
+     * @return configuration digest
      */
-    private boolean check_changes() {
-        operatorUI.updateParameters();
-        Map<String, Object> update = operatorUI.getParameters();
-        boolean res = equals(update, this.configuration);
-        this.configuration = new HashMap<>(update);
-        return !res;
+    public long getConfigurationDigest() {
+        return getConfigurationHash().getDigest();
     }
 
     /**
@@ -715,6 +969,11 @@ public class NodeGui implements NodeListener, NodeInterface {
             }
         }
         hasChanged = true;
+        // To avoid co-modifaction of the nodeListeners arraylist
+        ArrayList<NodeListener> listeners = new ArrayList<>(nodeListeners);
+        for (NodeListener l: listeners) {
+            l.connectionRemoved(this);
+        }
     }
 
     /**
@@ -727,6 +986,7 @@ public class NodeGui implements NodeListener, NodeInterface {
             l.sourceDeleted(this);
         }
         incomingConnections.clear();
+        dispose();
     }
 
     /**
@@ -773,7 +1033,12 @@ public class NodeGui implements NodeListener, NodeInterface {
         if (connectionIndex == Constants.CONNECTION_OUTPUT && metadata.hasOutput()) {
             // OUTPUT
             tooltipVisible_ = true;
-            tooltipText_ = split_text(metadata.getOutputDescription());
+            String text = metadata.getOutputDescription();
+            NodeProfile profile = ExecutionProfiler.getInstance().getProfile(name);
+            if (profile != null && !profile.describe().isEmpty()) {
+                text = text + "\n" + profile.describe();
+            }
+            tooltipText_ = split_text(text);
             tooltipIndex_ = connectionIndex;
         } else if (connectionIndex >= 0 && metadata.hasInputs()) {
             // INPUT
@@ -797,7 +1062,9 @@ public class NodeGui implements NodeListener, NodeInterface {
     public JComponent getPreferencePanel(){
         if (preferencePanel == null) {
             try {
-                preferencePanel = operatorUI.CreateOpTab(this.metadata.getName(), configuration , GraphManager.getInstance().getContext(), metadata);
+                // the operator UI works on its own copy, the committed configuration is never modified
+                preferencePanel = operatorUI.CreateOpTab(this.metadata.getName(), new HashMap<>(configuration),
+                                                         GraphManager.getInstance().getContext(), metadata);
                 operatorUI.initParameters(); 
             } catch (Exception e) {
                 SystemUtils.LOG.info(e.getMessage());
@@ -853,6 +1120,10 @@ public class NodeGui implements NodeListener, NodeInterface {
                 return false;
             }
         }
+        // avoid cycles: the other node must not be reachable from this node
+        if (GraphManager.getInstance().getGraphIndex().isReachable(this, other)) {
+            return false;
+        }
         return (!incomingConnections.containsKey(index) && (metadata.getMaxNumberOfInputs() <0 || index < metadata.getMaxNumberOfInputs()));
     }
 
@@ -891,6 +1162,16 @@ public class NodeGui implements NodeListener, NodeInterface {
         return null;
     }
 
+    /**
+     * Remove all the input connections, the listeners are notified of each disconnection.
+     */
+    public void removeConnections() {
+        while (!incomingConnections.isEmpty()) {
+            // from the last input, so that the other inputs keep their index
+            disconnect(Collections.max(incomingConnections.keySet()));
+        }
+    }
+
     @Override
     public void sourceDeleted(Object source) {
         for (int i = 0; i < incomingConnections.size();i ++) {
@@ -909,6 +1190,9 @@ public class NodeGui implements NodeListener, NodeInterface {
         hasChanged = true;
     }
 
+    @Override
+    public void connectionRemoved(Object source) {}
+
     @Override
     public void validateNode(Object source) {}
 
@@ -939,17 +1223,7 @@ public class NodeGui implements NodeListener, NodeInterface {
 
     @Override
     public int distance(NodeInterface n) {
-        if (n == this) {
-            return 0;
-        }
-        int max_d = -1;
-        for (NodeInterface c: incomingConnections.values()) {
-            int d = c.distance(n);
-            if (d > max_d) {
-                max_d = d + 1;
-            }
-        }
-        return max_d;
+        return GraphManager.getInstance().getGraphIndex().distance(n, this);
     }
 
     /**
@@ -985,7 +1259,54 @@ public class NodeGui implements NodeListener, NodeInterface {
      * Validate node using the internal recomputeOutput methdo.
      */
     public void validate() {
-        recomputeOutput();
+        validate(CancellationToken.NONE);
+    }
+
+    /**
+     * Validate node using the internal recomputeOutput method, the validation stops as soon as the token is
+     * cancelled leaving the previous output untouched.
+     * With the schema validation enabled, nodes whose operator has a SchemaTransfer only compute the schema of their
+     * output (see SchemaTransfers).
+     * @param token cancellation token of the validation job
+     */
+    public synchronized void validate(CancellationToken token) {
+        if (token.isCancelled()) {
+            return;
+        }
+        if (SettingManager.getInstance().isSchemaValidationEnabled() && validateSchema(token)) {
+            return;
+        }
+        schemaOnly = false;
+        recomputeOutput(token);
+        outputSignature = ProductSignature.of(output);
+    }
+
+    /**
+     * Get the signature of the last validated output.
+     * @return output signature (null if the node has no valid output)
+     */
+    public ProductSignature getOutputSignature() {
+        return outputSignature;
+    }
+
+    /**
+     * Get the nodes connected to the inputs of this node.
+     * @return incoming connections
+     */
+    public Collection<NodeInterface> getIncomingConnections() {
+        return incomingConnections.values();
+    }
+
+    /**
+     * Get the ids of the nodes connected to the inputs of this node.
+     * @return input index -> source node id, in input order
+     */
+    public SortedMap<Integer, String> getInputSources() {
+        TreeMap<Integer, String> sources = new TreeMap<>();
+        for (Map.Entry<Integer, NodeInterface> entry : incomingConnections.entrySet()) {
+            sources.put(entry.getKey(), entry.getValue().getName());
+        }
+        return sources;
     }
 
     /**
@@ -995,6 +1316,22 @@ public class NodeGui implements NodeListener, NodeInterface {
         this.validationStatus = ValidationStatus.WARNING;
     }
 
+    /**
+     * Set the progress of the current graph execution, displayed as a bar at the bottom of the node.
+     * @param value progress (0-100) or -1 to hide the progress bar
+     */
+    public void setExecutionProgress(int value) {
+        this.executionProgress = value;
+    }
+
+    /**
+     * Mark the node as merged into an identical node for the current execution, see GraphOptimizer.
+     * @param id id of the node executed in place of this one (null to clear the mark)
+     */
+    public void setMergedInto(String id) {
+        this.mergedInto = id;
+    }
+
     /**
      * Get current validation status.
      * @return current status
@@ -1003,6 +1340,34 @@ public class NodeGui implements NodeListener, NodeInterface {
         return this.validationStatus;
     }
 
+    /**
+     * Get the parameters of the node, as last committed from the operator UI.
+     * The map is replaced on each change and must not be modified.
+     * @return node parameters
+     */
+    public Map<String, Object> getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Replace the parameters of the node (e.g. on undo), updating the operator UI and requesting a validation.
+     * @param parameters new parameters, the map is kept and must not be modified
+     */
+    public void setConfiguration(Map<String, Object> parameters) {
+        configuration = parameters;
+        getConfigurationHash().update(parameters);
+        Map<String, Object> uiParameters = operatorUI.getParameters();
+        if (uiParameters != null) {
+            uiParameters.clear();
+            uiParameters.putAll(parameters);
+            operatorUI.initParameters();
+        }
+        recomputeOutputNeeded = true;
+        for (NodeListener l : new ArrayList<>(nodeListeners)) {
+            l.validateNode(this);
+        }
+    }
+
     /**
      * Get graph Node
      * @return the node
@@ -88,7 +88,7 @@ public class OptionPanel extends JPanel implements GraphListener {
 
     @Override
     public void updated(NodeInterface source) {
-        // NOTHING TO DO, it can be used to create history of the graph.
+        // NOTHING TO DO, the history of the graph is kept by the GraphManager.
     }
 
     @Override
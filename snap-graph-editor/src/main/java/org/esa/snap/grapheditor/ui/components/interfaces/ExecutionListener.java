@@ -0,0 +1,50 @@
+package org.esa.snap.grapheditor.ui.components.interfaces;
+
+import java.awt.Rectangle;
+import java.util.Map;
+
+/**
+ * Listener of the execution of a graph. All the events are dispatched on the EDT.
+ */
+public interface ExecutionListener {
+    /**
+     * The execution of a graph started.
+     * @param graphId id of the executed graph
+     */
+    void executionStarted(String graphId);
+
+    /**
+     * Some nodes are not executed as they compute the same product of other nodes (see GraphOptimizer).
+     * @param merged merged node id -> id of the node executed in its place
+     */
+    void nodesMerged(Map<String, String> merged);
+
+    /**
+     * Update of the progress of a single node.
+     * @param nodeId id of the node
+     * @param value current node progress (0-100)
+     */
+    void nodeProgress(String nodeId, int value);
+
+    /**
+     * A tile has been computed. During fast executions the events are coalesced and only the last tile of each batch
+     * is notified, the number of tiles computed is always exact.
+     * @param tile tile area
+     * @param done number of tiles computed so far
+     * @param total total number of tiles
+     */
+    void tileProcessed(Rectangle tile, int done, int total);
+
+    /**
+     * Update of the progress of the whole execution.
+     * @param value current execution progress (0-100)
+     */
+    void executionProgress(int value);
+
+    /**
+     * The execution ended.
+     * @param cancelled if the execution has been cancelled by the user
+     * @param error error message (null if the execution succeeded)
+     */
+    void executionEnded(boolean cancelled, String error);
+}
@@ -19,6 +19,12 @@ public interface NodeListener {
      */
     void connectionAdded(Object source);
 
+    /**
+     * Notify that an input connection has been removed.
+     * @param source source of the event
+     */
+    void connectionRemoved(Object source);
+
     /**
      * Ask for validation of the node
      * @param node node to be verified
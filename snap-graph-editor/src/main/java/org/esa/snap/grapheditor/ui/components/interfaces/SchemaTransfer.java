@@ -0,0 +1,20 @@
+package org.esa.snap.grapheditor.ui.components.interfaces;
+
+import java.util.Map;
+
+import org.esa.snap.grapheditor.ui.components.utils.ProductSignature;
+
+/**
+ * Schema transfer function of an operator, used by the schema validation: it derives the schema of the target
+ * product from the schemas of the source products and the parameters, without creating the operator.
+ * Transfer functions are registered by operator alias in the SchemaTransfers registry.
+ */
+public interface SchemaTransfer {
+    /**
+     * Compute the schema of the target product.
+     * @param sources schemas of the source products, in input order
+     * @param parameters operator parameters
+     * @return target schema, or null if it can not be derived (the node is then fully validated)
+     */
+    ProductSignature apply(ProductSignature[] sources, Map<String, Object> parameters);
+}
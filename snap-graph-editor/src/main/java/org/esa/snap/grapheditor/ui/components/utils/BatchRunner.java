@@ -0,0 +1,455 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingWorker;
+
+import com.bc.ceres.binding.dom.DomElement;
+import com.bc.ceres.core.NullProgressMonitor;
+import org.esa.snap.core.gpf.graph.Graph;
+import org.esa.snap.core.gpf.graph.GraphException;
+import org.esa.snap.core.gpf.graph.GraphProcessor;
+import org.esa.snap.core.gpf.graph.Node;
+import org.esa.snap.core.util.SystemUtils;
+import org.esa.snap.grapheditor.ui.components.interfaces.ExecutionListener;
+
+/**
+ * Batch execution of a graph over a list of input products.
+ * The graph is cloned once per input file: the file of the single Read (or ProductSet-Reader) node is replaced by the
+ * input file and the file of the Write nodes is derived from the input name, either in the target folder or, if no
+ * target folder is given, next to the file configured in the Write node. Unless the source product name is kept, the
+ * input name is prefixed by the name configured in the Write node. A job cancelled or failed while writing removes
+ * its partial targets, so that they are not skipped by the next batch as existing targets. Up to N graphs are
+ * executed concurrently (see SettingManager.getBatchParallelism), and a new graph is started only if the memory
+ * expected for a job (see SettingManager.getBatchJobMemory) is available, so that a large batch does not exhaust the
+ * heap. The throughput is reported in products per hour.
+ */
+public class BatchRunner extends SwingWorker<Integer, BatchRunner.JobResult> {
+    static private final String READ = "Read";
+    static private final String PRODUCTSET_READER = "ProductSet-Reader";
+    static private final String WRITE = "Write";
+    // delay between two checks of the available memory
+    static private final long ADMISSION_DELAY = 500;
+
+    private final Graph graph;
+    private final File[] inputs;
+    private final File targetFolder;
+    private final String formatName;
+    private final boolean keepSourceName;
+    private final boolean skipExisting;
+    private final int parallelism;
+    private final long jobMemory;
+    private final Collection<ExecutionListener> listeners;
+    private final CancellationToken token = new CancellationToken();
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final long startTime = System.currentTimeMillis();
+    // counters updated by the jobs, the chunks published by the jobs may reach process() after done()
+    private final AtomicInteger processed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger cancelled = new AtomicInteger();
+
+    /**
+     * Outcome of a single job.
+     */
+    static class JobResult {
+        private final File input;
+        private final String error;
+        private final boolean skipped;
+        private final boolean cancelled;
+        private final long duration;
+
+        private JobResult(File input, String error, boolean skipped, boolean cancelled, long duration) {
+            this.input = input;
+            this.error = error;
+            this.skipped = skipped;
+            this.cancelled = cancelled;
+            this.duration = duration;
+        }
+    }
+
+    /**
+     * Progress monitor cancelled through the batch token.
+     */
+    private static class TokenMonitor extends NullProgressMonitor {
+        private final CancellationToken token;
+
+        private TokenMonitor(CancellationToken token) {
+            this.token = token;
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return token.isCancelled();
+        }
+
+        @Override
+        public void setCanceled(boolean canceled) {
+            if (canceled) {
+                token.cancel();
+            }
+        }
+    }
+
+    /**
+     * Prepare a batch, must be created on the EDT.
+     * @param graph graph to execute (it is copied, merging the duplicated nodes if enabled)
+     * @param inputs input products
+     * @param targetFolder folder of the target products (null to keep the folder of the Write nodes)
+     * @param formatName format of the target products (null to keep the format of the Write nodes)
+     * @param keepSourceName name the target products after the inputs only, without the name of the Write nodes
+     * @param skipExisting skip the inputs whose target product already exists
+     * @param listeners execution listeners to notify
+     */
+    BatchRunner(Graph graph, File[] inputs, File targetFolder, String formatName, boolean keepSourceName,
+                boolean skipExisting, Collection<ExecutionListener> listeners) {
+        // no signatures: the inputs change at each job
+        GraphOptimizer.Result result = GraphOptimizer.optimize(graph);
+        this.graph = result.getGraph();
+        Map<String, String> merged = result.getMerged();
+        this.inputs = inputs;
+        this.targetFolder = targetFolder;
+        this.formatName = formatName;
+        this.keepSourceName = keepSourceName;
+        this.skipExisting = skipExisting;
+        this.parallelism = SettingManager.getInstance().getBatchParallelism();
+        this.jobMemory = SettingManager.getInstance().getBatchJobMemory();
+        this.listeners = new ArrayList<>(listeners);
+        for (ExecutionListener l : this.listeners) {
+            l.executionStarted(graph.getId());
+            if (!merged.isEmpty()) {
+                l.nodesMerged(merged);
+            }
+        }
+        NotificationManager.getInstance().processStart();
+        NotificationManager.getInstance().info("Batch", "processing " + inputs.length + " product(s), "
+                + parallelism + " at a time");
+        for (GraphRewriter.Rewrite rewrite : result.getRewrites()) {
+            NotificationManager.getInstance().info("Graph Optimizer", rewrite.toString());
+        }
+    }
+
+    /**
+     * Check if a graph can be executed in batch, i.e. if it contains exactly one reader: with several readers it is
+     * not known which one must read the inputs.
+     * @param graph graph to check
+     * @return if the graph has a single Read or ProductSet-Reader node
+     */
+    static boolean isBatchable(Graph graph) {
+        int readers = 0;
+        for (Node node : graph.getNodes()) {
+            if (node.getOperatorName().equals(READ) || node.getOperatorName().equals(PRODUCTSET_READER)) {
+                readers++;
+            }
+        }
+        return readers == 1;
+    }
+
+    /**
+     * Stop the batch, the running graphs stop at the end of the tiles being computed.
+     */
+    void cancelBatch() {
+        token.cancel();
+    }
+
+    @Override
+    protected Integer doInBackground() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+        Semaphore slots = new Semaphore(parallelism);
+        int submitted = 0;
+        try {
+            for (File input : inputs) {
+                slots.acquire();
+                waitForMemory();
+                if (token.isCancelled()) {
+                    slots.release();
+                    break;
+                }
+                running.incrementAndGet();
+                pool.execute(() -> {
+                    try {
+                        JobResult result = runJob(input);
+                        count(result);
+                        publish(result);
+                    } finally {
+                        running.decrementAndGet();
+                        slots.release();
+                    }
+                });
+                submitted++;
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+        return submitted;
+    }
+
+    /**
+     * Count the outcome of a job.
+     * @param result job outcome
+     */
+    private void count(JobResult result) {
+        if (result.skipped) {
+            skipped.incrementAndGet();
+        } else if (result.cancelled) {
+            cancelled.incrementAndGet();
+        } else if (result.error != null) {
+            failed.incrementAndGet();
+        } else {
+            processed.incrementAndGet();
+        }
+    }
+
+    /**
+     * Memory aware admission: wait until the memory expected for a new job is available. A job is always admitted
+     * if nothing else is running.
+     * @throws InterruptedException if the worker is interrupted
+     */
+    private void waitForMemory() throws InterruptedException {
+        while (running.get() > 0 && !token.isCancelled() && availableMemory() < jobMemory) {
+            Thread.sleep(ADMISSION_DELAY);
+        }
+    }
+
+    static private long availableMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    /**
+     * Execute the graph for a single input.
+     * @param input input product
+     * @return job outcome
+     */
+    private JobResult runJob(File input) {
+        Graph job = createJobGraph(input);
+        if (skipExisting && targetsExist(job)) {
+            return new JobResult(input, null, true, false, 0);
+        }
+        long start = System.currentTimeMillis();
+        String error = null;
+        try {
+            GraphProcessor processor = new GraphProcessor();
+            processor.executeGraph(job, new TokenMonitor(token));
+        } catch (GraphException | RuntimeException e) {
+            error = e.getMessage() != null ? e.getMessage() : e.toString();
+        }
+        // the GraphProcessor returns normally when it is cancelled
+        boolean jobCancelled = token.isCancelled();
+        if (jobCancelled || error != null) {
+            deleteTargets(job, start);
+        }
+        return new JobResult(input, jobCancelled ? null : error, false, jobCancelled,
+                             System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Delete the target products written by a job that did not complete. Only the files modified since the start
+     * of the job are deleted, a target that existed before and was not overwritten yet is kept.
+     * @param job graph of the job
+     * @param start start time of the job (ms)
+     */
+    static private void deleteTargets(Graph job, long start) {
+        // file systems may store the modification time with a second precision
+        long since = start - start % 1000;
+        for (File file : targetFiles(job)) {
+            if (file.lastModified() < since) {
+                continue;
+            }
+            try {
+                PartitionRunner.delete(file);
+            } catch (IOException e) {
+                SystemUtils.LOG.warning("Unable to delete the partial target `" + file + "`: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Clone the graph for an input product, substituting the reader and writer files.
+     * @param input input product
+     * @return graph of the job
+     */
+    private Graph createJobGraph(File input) {
+        Graph job = GraphExecutionService.copyGraph(graph);
+        String baseName = baseName(input);
+        int writers = 0;
+        for (Node node : job.getNodes()) {
+            if (node.getOperatorName().equals(WRITE)) {
+                writers++;
+            }
+        }
+        for (Node node : job.getNodes()) {
+            String operator = node.getOperatorName();
+            if (operator.equals(READ)) {
+                node.setConfiguration(ConfigurationUtils.copy(node.getConfiguration()));
+                setParameter(node.getConfiguration(), "file", input.getAbsolutePath());
+            } else if (operator.equals(PRODUCTSET_READER)) {
+                node.setConfiguration(ConfigurationUtils.copy(node.getConfiguration()));
+                setParameter(node.getConfiguration(), "fileList", input.getAbsolutePath());
+            } else if (operator.equals(WRITE)) {
+                node.setConfiguration(ConfigurationUtils.copy(node.getConfiguration()));
+                File target = targetFile(node.getConfiguration(), node.getId(), baseName, writers > 1);
+                setParameter(node.getConfiguration(), "file", target.getAbsolutePath());
+                if (formatName != null) {
+                    setParameter(node.getConfiguration(), "formatName", formatName);
+                }
+            }
+        }
+        return job;
+    }
+
+    /**
+     * Compute the target file of a Write node.
+     * @param config configuration of the Write node
+     * @param nodeId id of the Write node
+     * @param baseName base name of the input product
+     * @param suffix if the node id must be appended, to keep the target names unique with more than one writer
+     * @return target file (without extension)
+     */
+    private File targetFile(DomElement config, String nodeId, String baseName, boolean suffix) {
+        String name = suffix ? baseName + "_" + nodeId.replace(' ', '_') : baseName;
+        DomElement file = config.getChild("file");
+        File configured = null;
+        if (file != null && file.getValue() != null && !file.getValue().isEmpty()) {
+            configured = new File(file.getValue());
+        }
+        File folder = targetFolder;
+        if (folder == null) {
+            folder = configured != null ? configured.getParentFile() : SystemUtils.getUserHomeDir();
+        }
+        if (!keepSourceName && configured != null) {
+            name = baseName(configured) + "_" + name;
+        }
+        return new File(folder, name);
+    }
+
+    /**
+     * Check if the target products of a job already exist, whatever their format.
+     * @param job graph of the job
+     * @return if the job has targets and all of them exist
+     */
+    static private boolean targetsExist(Graph job) {
+        boolean found = false;
+        for (Node node : job.getNodes()) {
+            if (node.getOperatorName().equals(WRITE)) {
+                if (targetFiles(node).length == 0) {
+                    return false;
+                }
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * List the files of the target products of a job, whatever their format (e.g. the .dim file and the .data
+     * folder of a BEAM-DIMAP product).
+     * @param job graph of the job
+     * @return existing target files
+     */
+    static private List<File> targetFiles(Graph job) {
+        ArrayList<File> files = new ArrayList<>();
+        for (Node node : job.getNodes()) {
+            if (node.getOperatorName().equals(WRITE)) {
+                files.addAll(Arrays.asList(targetFiles(node)));
+            }
+        }
+        return files;
+    }
+
+    static private File[] targetFiles(Node write) {
+        File target = new File(write.getConfiguration().getChild("file").getValue());
+        String name = baseName(target);
+        File folder = target.getAbsoluteFile().getParentFile();
+        File[] files = folder.listFiles((dir, n) -> n.equals(name) || n.startsWith(name + "."));
+        return files != null ? files : new File[0];
+    }
+
+    static String baseName(File input) {
+        String name = input.getName();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    static void setParameter(DomElement config, String name, String value) {
+        DomElement child = config.getChild(name);
+        if (child == null) {
+            child = config.createChild(name);
+        }
+        child.setValue(value);
+    }
+
+    /**
+     * Throughput of the batch.
+     * @return products per hour
+     */
+    private double getThroughput() {
+        double hours = Math.max(1, System.currentTimeMillis() - startTime) / 3600000.0;
+        return processed.get() / hours;
+    }
+
+    @Override
+    protected void process(List<JobResult> chunks) {
+        for (JobResult result : chunks) {
+            String name = result.input.getName();
+            if (result.skipped) {
+                NotificationManager.getInstance().info("Batch", "`" + name + "` skipped, target exists");
+            } else if (result.cancelled) {
+                NotificationManager.getInstance().warning("Batch", "`" + name + "` cancelled, partial target removed");
+            } else if (result.error != null) {
+                NotificationManager.getInstance().error("Batch", "`" + name + "` failed: " + result.error);
+            } else {
+                NotificationManager.getInstance().ok("Batch", String.format(Locale.ENGLISH,
+                        "`%s` processed in %.1fs (%.1f products/hour)", name, result.duration / 1000.0,
+                        getThroughput()));
+            }
+        }
+        if (isDone()) {
+            // late chunk, the batch has already been reported as ended
+            return;
+        }
+        int done = processed.get() + failed.get() + skipped.get() + cancelled.get();
+        int progress = done * 100 / Math.max(1, inputs.length);
+        // the jobs are executed as separate graphs, only the progress of the whole batch is meaningful
+        for (ExecutionListener l : listeners) {
+            l.executionProgress(progress);
+        }
+        NotificationManager.getInstance().progress(progress);
+    }
+
+    @Override
+    protected void done() {
+        String error = null;
+        try {
+            get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            error = e.getCause().toString();
+            NotificationManager.getInstance().error("Batch", error);
+        }
+        NotificationManager.getInstance().info("Batch", String.format(Locale.ENGLISH,
+                "%s: %d processed, %d failed, %d skipped, %d cancelled, %.1f products/hour",
+                token.isCancelled() ? "cancelled" : "done", processed.get(), failed.get(), skipped.get(),
+                cancelled.get(), getThroughput()));
+        NotificationManager.getInstance().processEnd();
+        for (ExecutionListener l : listeners) {
+            l.executionEnded(token.isCancelled(), error);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+/**
+ * Simple cooperative cancellation token.
+ * A long running task (e.g. a validation job) checks the token between its steps and stops as soon as the token has
+ * been cancelled, without leaving partial results behind.
+ */
+public class CancellationToken {
+    /**
+     * Token that is never cancelled, used for synchronous operations.
+     */
+    public static final CancellationToken NONE = new CancellationToken() {
+        @Override
+        public void cancel() {
+            // can not be cancelled
+        }
+    };
+
+    private volatile boolean cancelled = false;
+
+    /**
+     * Request the cancellation of the task.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Check if the cancellation has been requested.
+     * @return if the task has been cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,410 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.bc.ceres.binding.dom.DomElement;
+import org.esa.snap.core.datamodel.ProductNode;
+import org.locationtech.jts.geom.CoordinateFilter;
+import org.locationtech.jts.geom.Geometry;
+
+/**
+ * Structural digest of a node configuration, used to detect parameter changes without converting the values to
+ * strings.
+ * Values are hashed by content: numbers by value, arrays and collections element by element, geometries by
+ * coordinates, DOM elements by name, value, attributes and children, and objects without a value based hashCode
+ * (e.g. the descriptors converted to DOM by the operators) field by field. Strings cache their own hash code.
+ *
+ * The digest keeps the hash of every parameter: an unchanged immutable value (same reference) is not hashed again,
+ * so checking an unchanged configuration costs a lookup per parameter and does not allocate. As with the previous
+ * toString comparison, an array modified in place without being replaced is not detected. The digest is updated on
+ * the EDT and read by the validation threads, its methods are synchronized.
+ */
+public class ConfigurationHash {
+    static private final int MAX_DEPTH = 6;
+    static private final long NULL_HASH = 0x9E3779B97F4A7C15L;
+
+    // fields hashed one by one for the classes without a value based hashCode (null if hashCode is overridden)
+    static private final ClassValue<Field[]> FIELDS = new ClassValue<Field[]>() {
+        @Override
+        protected Field[] computeValue(Class<?> type) {
+            try {
+                if (type.getMethod("hashCode").getDeclaringClass() != Object.class) {
+                    return null;
+                }
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+            ArrayList<Field> fields = new ArrayList<>();
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+                        try {
+                            field.setAccessible(true);
+                            fields.add(field);
+                        } catch (RuntimeException e) {
+                            // not accessible, hashed by toString
+                            return new Field[0];
+                        }
+                    }
+                }
+            }
+            return fields.toArray(new Field[0]);
+        }
+    };
+
+    private final HashMap<String, Entry> entries = new HashMap<>();
+    private long digest = 0;
+
+    /**
+     * Update the digest with the current parameters.
+     * @param parameters node parameters
+     * @return if the parameters changed since the previous update
+     */
+    public synchronized boolean update(Map<String, Object> parameters) {
+        boolean changed = parameters.size() != entries.size();
+        long sum = 0;
+        for (Map.Entry<String, Object> p : parameters.entrySet()) {
+            Object value = p.getValue();
+            Entry entry = entries.get(p.getKey());
+            long h;
+            if (entry != null && entry.value == value && isImmutable(value)) {
+                h = entry.hash;
+            } else {
+                h = hash(value, 0);
+                if (entry == null) {
+                    entries.put(p.getKey(), new Entry(value, h));
+                    changed = true;
+                } else {
+                    changed |= entry.hash != h;
+                    entry.value = value;
+                    entry.hash = h;
+                }
+            }
+            // order independent combination
+            sum += mix(p.getKey().hashCode() * 0x100000001B3L ^ h);
+        }
+        if (entries.size() != parameters.size()) {
+            entries.keySet().retainAll(parameters.keySet());
+        }
+        digest = sum;
+        return changed;
+    }
+
+    /**
+     * Digest of the last update.
+     * @return digest
+     */
+    public synchronized long getDigest() {
+        return digest;
+    }
+
+    /**
+     * Compute the digest of parameters without updating this digest, the hashes of the unchanged immutable values
+     * (same reference) are reused.
+     * @param parameters node parameters
+     * @return digest
+     */
+    public synchronized long digestOf(Map<String, Object> parameters) {
+        long sum = 0;
+        for (Map.Entry<String, Object> p : parameters.entrySet()) {
+            Object value = p.getValue();
+            Entry entry = entries.get(p.getKey());
+            long h = entry != null && entry.value == value && isImmutable(value) ? entry.hash : hash(value, 0);
+            sum += mix(p.getKey().hashCode() * 0x100000001B3L ^ h);
+        }
+        return sum;
+    }
+
+    /**
+     * Compute the digest of a parameter map.
+     * @param parameters node parameters
+     * @return digest
+     */
+    static public long of(Map<String, Object> parameters) {
+        ConfigurationHash hash = new ConfigurationHash();
+        hash.update(parameters);
+        return hash.getDigest();
+    }
+
+    static private boolean isImmutable(Object value) {
+        return value == null || value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof Enum || value instanceof File || value.getClass().isArray()
+                || value instanceof Geometry;
+    }
+
+    /**
+     * Structural hash of a parameter value.
+     * @param value value (may be null)
+     * @param depth nesting level, the recursion stops at MAX_DEPTH
+     * @return 64 bit hash
+     */
+    static long hash(Object value, int depth) {
+        if (value == null) {
+            return NULL_HASH;
+        }
+        if (value instanceof String) {
+            return mix(value.hashCode());
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return mix(Double.doubleToLongBits(((Number) value).doubleValue()));
+        }
+        if (value instanceof Number) {
+            return mix(((Number) value).longValue());
+        }
+        if (value instanceof Enum) {
+            return mix(((Enum<?>) value).name().hashCode());
+        }
+        if (value instanceof File) {
+            return mix(((File) value).getPath().hashCode());
+        }
+        if (value.getClass().isArray()) {
+            return hashArray(value, depth);
+        }
+        if (depth >= MAX_DEPTH || value instanceof ProductNode) {
+            // products and nodes are compared by identity
+            return mix(System.identityHashCode(value));
+        }
+        if (value instanceof Geometry) {
+            return hashGeometry((Geometry) value);
+        }
+        if (value instanceof DomElement) {
+            return hashDom((DomElement) value, depth);
+        }
+        if (value instanceof Map) {
+            long sum = 0;
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+                sum += mix(hash(e.getKey(), depth + 1) * 31 ^ hash(e.getValue(), depth + 1));
+            }
+            return sum;
+        }
+        if (value instanceof Iterable) {
+            long h = 1;
+            Iterator<?> iterator = ((Iterable<?>) value).iterator();
+            while (iterator.hasNext()) {
+                h = h * 31 + hash(iterator.next(), depth + 1);
+            }
+            return mix(h);
+        }
+        Field[] fields = FIELDS.get(value.getClass());
+        if (fields == null) {
+            // value based hashCode (Boolean, Rectangle, ...)
+            return mix(value.hashCode());
+        }
+        if (fields.length == 0) {
+            return mix(value.toString().hashCode());
+        }
+        long h = value.getClass().getName().hashCode();
+        for (Field field : fields) {
+            try {
+                h = h * 31 + hash(field.get(value), depth + 1);
+            } catch (IllegalAccessException e) {
+                return mix(value.toString().hashCode());
+            }
+        }
+        return mix(h);
+    }
+
+    /**
+     * Structural equality of two parameter values, following the rules of the hash: it confirms that two values with
+     * the same hash are indeed equal.
+     * @param a first value (may be null)
+     * @param b second value (may be null)
+     * @param depth nesting level, beyond MAX_DEPTH the values are compared by identity
+     * @return if the values are equal
+     */
+    static boolean equal(Object a, Object b, int depth) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null) {
+            return false;
+        }
+        if (a.getClass().isArray()) {
+            if (a.getClass() != b.getClass()) {
+                return false;
+            }
+            if (a instanceof Object[]) {
+                Object[] x = (Object[]) a;
+                Object[] y = (Object[]) b;
+                if (x.length != y.length) {
+                    return false;
+                }
+                for (int i = 0; i < x.length; i++) {
+                    if (!equal(x[i], y[i], depth + 1)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            // primitive arrays
+            return Arrays.deepEquals(new Object[]{a}, new Object[]{b});
+        }
+        if (a instanceof String || a instanceof Number || a instanceof Enum || a instanceof File) {
+            return a.equals(b);
+        }
+        if (depth >= MAX_DEPTH || a instanceof ProductNode) {
+            return false;
+        }
+        if (a instanceof Geometry) {
+            return b instanceof Geometry && ((Geometry) a).equalsExact((Geometry) b);
+        }
+        if (a instanceof DomElement) {
+            return b instanceof DomElement && equalDom((DomElement) a, (DomElement) b, depth);
+        }
+        if (a instanceof Map) {
+            if (!(b instanceof Map) || ((Map<?, ?>) a).size() != ((Map<?, ?>) b).size()) {
+                return false;
+            }
+            Map<?, ?> other = (Map<?, ?>) b;
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) a).entrySet()) {
+                if (!other.containsKey(e.getKey()) || !equal(e.getValue(), other.get(e.getKey()), depth + 1)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (a instanceof Iterable) {
+            if (!(b instanceof Iterable)) {
+                return false;
+            }
+            Iterator<?> x = ((Iterable<?>) a).iterator();
+            Iterator<?> y = ((Iterable<?>) b).iterator();
+            while (x.hasNext() && y.hasNext()) {
+                if (!equal(x.next(), y.next(), depth + 1)) {
+                    return false;
+                }
+            }
+            return !x.hasNext() && !y.hasNext();
+        }
+        if (a.getClass() != b.getClass()) {
+            return false;
+        }
+        Field[] fields = FIELDS.get(a.getClass());
+        if (fields == null) {
+            // value based equals (String, Number, File, Rectangle, ...)
+            return a.equals(b);
+        }
+        if (fields.length == 0) {
+            return a.toString().equals(b.toString());
+        }
+        for (Field field : fields) {
+            try {
+                if (!equal(field.get(a), field.get(b), depth + 1)) {
+                    return false;
+                }
+            } catch (IllegalAccessException e) {
+                return a.toString().equals(b.toString());
+            }
+        }
+        return true;
+    }
+
+    static private boolean equalDom(DomElement a, DomElement b, int depth) {
+        if (!a.getName().equals(b.getName()) || !equal(a.getValue(), b.getValue(), depth + 1)
+                || a.getChildCount() != b.getChildCount()) {
+            return false;
+        }
+        String[] attributes = a.getAttributeNames();
+        String[] others = b.getAttributeNames();
+        int count = attributes != null ? attributes.length : 0;
+        if (count != (others != null ? others.length : 0)) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            if (!equal(a.getAttribute(attributes[i]), b.getAttribute(attributes[i]), depth + 1)) {
+                return false;
+            }
+        }
+        for (int i = 0; i < a.getChildCount(); i++) {
+            if (!equalDom(a.getChild(i), b.getChild(i), depth)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static private long hashArray(Object value, int depth) {
+        if (value instanceof Object[]) {
+            long h = 1;
+            for (Object element : (Object[]) value) {
+                h = h * 31 + hash(element, depth + 1);
+            }
+            return mix(h);
+        }
+        if (value instanceof int[]) {
+            return mix(Arrays.hashCode((int[]) value));
+        }
+        if (value instanceof double[]) {
+            return mix(Arrays.hashCode((double[]) value));
+        }
+        if (value instanceof float[]) {
+            return mix(Arrays.hashCode((float[]) value));
+        }
+        if (value instanceof long[]) {
+            return mix(Arrays.hashCode((long[]) value));
+        }
+        if (value instanceof byte[]) {
+            return mix(Arrays.hashCode((byte[]) value));
+        }
+        if (value instanceof short[]) {
+            return mix(Arrays.hashCode((short[]) value));
+        }
+        if (value instanceof char[]) {
+            return mix(Arrays.hashCode((char[]) value));
+        }
+        return mix(Arrays.hashCode((boolean[]) value));
+    }
+
+    static private long hashGeometry(Geometry geometry) {
+        long[] h = {geometry.getGeometryType().hashCode()};
+        CoordinateFilter filter = c -> {
+            h[0] = h[0] * 31 + Double.doubleToLongBits(c.x);
+            h[0] = h[0] * 31 + Double.doubleToLongBits(c.y);
+        };
+        geometry.apply(filter);
+        return mix(h[0]);
+    }
+
+    static private long hashDom(DomElement element, int depth) {
+        long h = element.getName().hashCode() * 31L + hash(element.getValue(), depth + 1);
+        String[] attributes = element.getAttributeNames();
+        if (attributes != null) {
+            for (String attribute : attributes) {
+                h += mix(attribute.hashCode() * 31L + hash(element.getAttribute(attribute), depth + 1));
+            }
+        }
+        for (DomElement child : element.getChildren()) {
+            h = h * 31 + hashDom(child, depth);
+        }
+        return mix(h);
+    }
+
+    /**
+     * 64 bit finalizer (SplitMix64), spreads the bits of the combined hashes.
+     */
+    static private long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Last hashed value of a parameter.
+     */
+    static private class Entry {
+        private Object value;
+        private long hash;
+
+        private Entry(Object value, long hash) {
+            this.value = value;
+            this.hash = hash;
+        }
+    }
+}
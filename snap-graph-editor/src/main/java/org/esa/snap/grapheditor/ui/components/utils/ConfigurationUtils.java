@@ -0,0 +1,61 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import com.bc.ceres.binding.dom.DomElement;
+import com.bc.ceres.binding.dom.XppDomElement;
+
+/**
+ * Utility class to manipulate the DOM configurations of the graph nodes.
+ */
+public class ConfigurationUtils {
+
+    /**
+     * Deep copy of a node configuration, the configurations of the edited graph must never be modified.
+     * @param source configuration to copy
+     * @param skip names of the direct children not copied (e.g. the parameters replaced in the copy)
+     * @return independent copy
+     */
+    static DomElement copy(DomElement source, String... skip) {
+        DomElement copy = new XppDomElement(source.getName());
+        copyAttributes(source, copy);
+        if (source.getChildCount() == 0) {
+            copyValue(source, copy);
+            return copy;
+        }
+        children:
+        for (DomElement child : source.getChildren()) {
+            for (String name : skip) {
+                if (name.equals(child.getName())) {
+                    continue children;
+                }
+            }
+            copyContent(child, copy.createChild(child.getName()));
+        }
+        return copy;
+    }
+
+    static private void copyContent(DomElement source, DomElement target) {
+        copyAttributes(source, target);
+        if (source.getChildCount() == 0) {
+            copyValue(source, target);
+            return;
+        }
+        for (DomElement child : source.getChildren()) {
+            copyContent(child, target.createChild(child.getName()));
+        }
+    }
+
+    static private void copyAttributes(DomElement source, DomElement target) {
+        String[] attributes = source.getAttributeNames();
+        if (attributes != null) {
+            for (String attribute : attributes) {
+                target.setAttribute(attribute, source.getAttribute(attribute));
+            }
+        }
+    }
+
+    static private void copyValue(DomElement source, DomElement target) {
+        if (source.getValue() != null) {
+            target.setValue(source.getValue());
+        }
+    }
+}
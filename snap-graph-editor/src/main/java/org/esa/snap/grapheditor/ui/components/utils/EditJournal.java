@@ -0,0 +1,568 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.xml.stream.XMLStreamException;
+
+import com.bc.ceres.binding.dom.DomElement;
+import com.bc.ceres.binding.dom.XppDomElement;
+import com.thoughtworks.xstream.io.xml.xppdom.XppDom;
+import org.esa.snap.core.gpf.graph.Graph;
+import org.esa.snap.core.gpf.graph.Node;
+import org.esa.snap.core.gpf.graph.NodeSource;
+import org.esa.snap.core.util.SystemUtils;
+import org.esa.snap.grapheditor.ui.components.NodeGui;
+
+/**
+ * Append-only journal of the edits of the current graph, used to recover the graph after a crash.
+ * Instead of writing the whole graph after each edit, the state of each edited node (operator, position, sources and
+ * configuration) is appended to the journal as a single line record, so that the cost of the autosave depends on the
+ * size of the edit and not on the size of the graph. The nodes edited during an EDT event are collected and written
+ * once the event has been processed, so that a multi-step edit (e.g. a delete disconnecting all the outputs) is
+ * written as a whole.
+ *
+ * The session is stored as generations, each made of a snapshot (snapshot-N.xml) and of the journal started with it
+ * (journal-N.log). When the journal grows larger than the last snapshot it is compacted: a new snapshot is written in
+ * background and a new journal is started, the older generations are deleted once the snapshot is complete. The graph
+ * of a session is therefore the latest complete snapshot with all the following journals replayed in order. As a
+ * record holds the whole state of a node, replaying a record already contained in the snapshot has no effect.
+ *
+ * The graph is clean after it has been loaded or saved: the session is started by the first edit only, and all its
+ * files are deleted when the graph is saved. A journal newer than or as new as the last snapshot is therefore a
+ * session to recover, even if it is empty: the first edit of a clean graph and the compactions are written in the
+ * snapshot only.
+ *
+ * The parameter changes are reported by the node that changed (see parametersChanged), but they reach the graph node
+ * configuration only when the node is validated: the node is journaled once its new configuration is committed.
+ * All the methods must be called from the EDT.
+ */
+class EditJournal {
+    static private final String FOLDER = "graph-builder" + File.separator + "autosave";
+    static private final String SNAPSHOT = "snapshot-";
+    static private final String SNAPSHOT_EXT = ".xml";
+    static private final String JOURNAL = "journal-";
+    static private final String JOURNAL_EXT = ".log";
+    static private final String RECOVERED = "recovered.xml";
+    // small journals are not compacted, to avoid frequent snapshots of small graphs
+    static private final long MIN_COMPACT_SIZE = 256 * 1024;
+
+    static private final String NODE_RECORD = "N";
+    static private final String DELETE_RECORD = "D";
+
+    private final File folder = new File(SystemUtils.getApplicationDataDir(), FOLDER);
+    private final Function<String, NodeGui> lookup;
+    private final Supplier<Graph> snapshots;
+
+    // ids of the nodes edited since the last flush
+    private final LinkedHashSet<String> dirty = new LinkedHashSet<>();
+    // node id -> configuration of the node when its parameters changed, until the new one is committed
+    private final HashMap<String, DomElement> changedConfigurations = new HashMap<>();
+    // node id -> configuration digest of the last record of the node
+    private final HashMap<String, Long> journaledDigests = new HashMap<>();
+
+    private boolean recording = false;
+    private boolean flushScheduled = false;
+    private int generation = -1;
+    private Writer writer = null;
+    private long journalSize = 0;
+    private long snapshotSize = 0;
+    private long editCount = 0;
+
+    /**
+     * Initialize the journal.
+     * @param lookup node id -> node of the current graph (null if the node does not exist)
+     * @param snapshots provider of immutable snapshots of the current graph
+     */
+    EditJournal(Function<String, NodeGui> lookup, Supplier<Graph> snapshots) {
+        this.lookup = lookup;
+        this.snapshots = snapshots;
+    }
+
+    /**
+     * Check if a previous session has edits that were not saved: a journal exists from the generation of the last
+     * snapshot on (the journal of a generation is created before its snapshot is written).
+     * @return true if the session can be recovered
+     */
+    boolean hasSession() {
+        int base = lastGeneration(SNAPSHOT, SNAPSHOT_EXT);
+        return base >= 0 && lastGeneration(JOURNAL, JOURNAL_EXT) >= base;
+    }
+
+    /**
+     * Number of edits recorded since the start of the application.
+     * @return edit count
+     */
+    long getEditCount() {
+        return editCount;
+    }
+
+    /**
+     * Stop recording, for instance while a graph is being loaded. The files of the session are kept.
+     */
+    void suspend() {
+        recording = false;
+        dirty.clear();
+        closeWriter();
+    }
+
+    /**
+     * Delete the current session and stop recording.
+     */
+    void discard() {
+        suspend();
+        deleteGenerations(Integer.MAX_VALUE);
+        changedConfigurations.clear();
+        journaledDigests.clear();
+        generation = -1;
+    }
+
+    /**
+     * Start recording a graph identical to a file on disk (just loaded or saved): the current session is deleted and
+     * a new one will be started by the next edit.
+     */
+    void clean() {
+        discard();
+        recording = true;
+    }
+
+    /**
+     * Start recording a graph that is not on disk (e.g. a recovered graph): a new session is started at once.
+     */
+    void start() {
+        recording = true;
+        try {
+            compact();
+        } catch (IOException e) {
+            disable(e);
+        }
+    }
+
+    /**
+     * Notify that the graph has been saved. The session is deleted if the graph has not been edited since the save
+     * started.
+     * @param savedEditCount edit count when the graph snapshot was taken
+     */
+    void saved(long savedEditCount) {
+        if (recording && savedEditCount == editCount) {
+            clean();
+        }
+    }
+
+    /**
+     * Record the current state of a node, or its deletion if it does not exist anymore.
+     * @param id node id
+     */
+    void markDirty(String id) {
+        if (!recording) {
+            return;
+        }
+        editCount++;
+        dirty.add(id);
+        if (!flushScheduled) {
+            flushScheduled = true;
+            SwingUtilities.invokeLater(this::flush);
+        }
+    }
+
+    /**
+     * Notify that the parameters of a node changed. The node is journaled once the validation has committed its new
+     * configuration, see validated. Nothing is recorded if the parameters are back to the journaled ones.
+     * @param n node whose parameters changed
+     */
+    void parametersChanged(NodeGui n) {
+        if (!recording) {
+            return;
+        }
+        Long journaled = journaledDigests.get(n.getName());
+        if (journaled != null && journaled == n.getConfigurationDigest()) {
+            changedConfigurations.remove(n.getName());
+        } else if (!changedConfigurations.containsKey(n.getName())) {
+            changedConfigurations.put(n.getName(), n.getNode().getConfiguration());
+        }
+    }
+
+    /**
+     * Record the nodes whose changed parameters have been committed to their configuration, to be called once a
+     * validation is done. Only the nodes reported by parametersChanged are checked.
+     */
+    void validated() {
+        if (!recording || changedConfigurations.isEmpty()) {
+            return;
+        }
+        Iterator<Map.Entry<String, DomElement>> it = changedConfigurations.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, DomElement> e = it.next();
+            NodeGui n = lookup.apply(e.getKey());
+            if (n == null) {
+                // the deletion is journaled already
+                it.remove();
+            } else if (n.getNode().getConfiguration() != e.getValue()) {
+                // the validation replaces the configuration element when it commits the parameters
+                it.remove();
+                markDirty(e.getKey());
+            }
+        }
+    }
+
+    /**
+     * Recover the graph of the previous session.
+     * @return a graph file with the recovered graph
+     * @throws IOException if the session can not be read
+     * @throws XMLStreamException if the snapshot is not valid
+     */
+    File recover() throws IOException, XMLStreamException {
+        int base = lastGeneration(SNAPSHOT, SNAPSHOT_EXT);
+        if (base < 0) {
+            throw new IOException("no graph snapshot found");
+        }
+        LinkedHashMap<String, Node> nodes = new LinkedHashMap<>();
+        HashMap<String, NodeSource[]> sources = new HashMap<>();
+        HashMap<String, XppDom> positions = new HashMap<>();
+        new GraphStreamReader(snapshotFile(base)).read(new GraphStreamReader.Handler() {
+            @Override
+            public void node(Node node, String[] sourceIds, String[] sourceNames) {
+                nodes.put(node.getId(), node);
+                NodeSource[] nodeSources = new NodeSource[sourceIds.length];
+                for (int i = 0; i < nodeSources.length; i++) {
+                    nodeSources[i] = new NodeSource(sourceNames[i], sourceIds[i]);
+                }
+                sources.put(node.getId(), nodeSources);
+            }
+
+            @Override
+            public void presentation(XppDom element) {
+                positions.put(element.getAttribute("id"), element);
+            }
+
+            @Override
+            public void progress(int value) {
+                // not reported
+            }
+        }, CancellationToken.NONE);
+        for (int gen : generations(JOURNAL, JOURNAL_EXT)) {
+            if (gen >= base) {
+                replay(journalFile(gen), nodes, sources, positions);
+            }
+        }
+
+        Graph graph = new Graph("Recovered");
+        XppDom presentation = new XppDom("applicationData");
+        presentation.setAttribute("id", "Presentation");
+        for (Node n : nodes.values()) {
+            for (NodeSource source : sources.get(n.getId())) {
+                n.addSource(source);
+            }
+            graph.addNode(n);
+            if (positions.containsKey(n.getId())) {
+                presentation.addChild(positions.get(n.getId()));
+            }
+        }
+        graph.setAppData("Presentation", presentation);
+        File file = new File(folder, RECOVERED);
+        GraphManager.writeGraph(graph, file);
+        return file;
+    }
+
+    /**
+     * Replay a journal file. A malformed record ends the replay of the file, as the last record may have been
+     * truncated by the crash.
+     */
+    static private void replay(File file, LinkedHashMap<String, Node> nodes, HashMap<String, NodeSource[]> sources,
+                               HashMap<String, XppDom> positions) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", -1);
+                for (int i = 0; i < fields.length; i++) {
+                    fields[i] = unescape(fields[i]);
+                }
+                try {
+                    if (fields[0].equals(DELETE_RECORD) && fields.length == 2) {
+                        nodes.remove(fields[1]);
+                        sources.remove(fields[1]);
+                        positions.remove(fields[1]);
+                    } else if (fields[0].equals(NODE_RECORD) && fields.length > 6
+                            && fields.length == 7 + 2 * Integer.parseInt(fields[5])) {
+                        String id = fields[1];
+                        Node node = new Node(id, fields[2]);
+                        node.setConfiguration(new XppDomElement(GraphStreamReader.readDom(fields[fields.length - 1])));
+                        nodes.put(id, node);
+                        NodeSource[] nodeSources = new NodeSource[(fields.length - 7) / 2];
+                        for (int i = 0; i < nodeSources.length; i++) {
+                            nodeSources[i] = new NodeSource(fields[6 + 2 * i], fields[7 + 2 * i]);
+                        }
+                        sources.put(id, nodeSources);
+                        positions.put(id, position(id, Integer.parseInt(fields[3]), Integer.parseInt(fields[4])));
+                    } else {
+                        throw new IllegalArgumentException("malformed record");
+                    }
+                } catch (XMLStreamException | IllegalArgumentException e) {
+                    SystemUtils.LOG.warning("Edit journal `" + file.getName() + "` truncated: " + e.getMessage());
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Presentation element of a node, as written by NodeGui.saveParameters.
+     */
+    static private XppDom position(String id, int x, int y) {
+        XppDom elem = new XppDom("node");
+        elem.setAttribute("id", id);
+        XppDom dpElem = new XppDom("displayPosition");
+        dpElem.setAttribute("y", String.valueOf(y));
+        dpElem.setAttribute("x", String.valueOf(x));
+        elem.addChild(dpElem);
+        return elem;
+    }
+
+    /**
+     * Write the records of the nodes edited during the last EDT events.
+     */
+    private void flush() {
+        flushScheduled = false;
+        if (!recording || dirty.isEmpty()) {
+            return;
+        }
+        try {
+            if (writer == null) {
+                // first edit of a clean graph: the snapshot contains the edit already
+                dirty.clear();
+                compact();
+                return;
+            }
+            StringBuilder records = new StringBuilder();
+            for (String id : dirty) {
+                NodeGui n = lookup.apply(id);
+                if (n == null) {
+                    changedConfigurations.remove(id);
+                    journaledDigests.remove(id);
+                    records.append(DELETE_RECORD);
+                    field(records, id);
+                } else {
+                    appendNode(records, n);
+                    journaledDigests.put(id, n.getConfigurationDigest());
+                }
+                records.append('\n');
+            }
+            dirty.clear();
+            writer.write(records.toString());
+            writer.flush();
+            journalSize += records.length();
+            if (journalSize > Math.max(MIN_COMPACT_SIZE, snapshotSize)) {
+                compact();
+            }
+        } catch (IOException e) {
+            disable(e);
+        }
+    }
+
+    static private void appendNode(StringBuilder out, NodeGui n) {
+        Node node = n.getNode();
+        NodeSource[] sources = node.getSources();
+        out.append(NODE_RECORD);
+        field(out, n.getName());
+        field(out, node.getOperatorName());
+        field(out, String.valueOf(n.getX()));
+        field(out, String.valueOf(n.getY()));
+        field(out, String.valueOf(sources.length));
+        for (NodeSource source : sources) {
+            field(out, source.getName());
+            field(out, source.getSourceNodeId());
+        }
+        DomElement config = node.getConfiguration();
+        field(out, config != null ? config.toXml() : "<parameters/>");
+    }
+
+    /**
+     * Append a tab separated field, escaping the tabs and line breaks of the value.
+     */
+    static private void field(StringBuilder out, String value) {
+        out.append('\t');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                default:
+                    out.append(c);
+            }
+        }
+    }
+
+    static private String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                i++;
+                char e = value.charAt(i);
+                out.append(e == 't' ? '\t' : e == 'n' ? '\n' : e == 'r' ? '\r' : e);
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Start a new generation: a new journal is opened and the snapshot of the graph is written in background.
+     * @throws IOException if the journal can not be created
+     */
+    private void compact() throws IOException {
+        closeWriter();
+        generation = Math.max(generation, Math.max(lastGeneration(SNAPSHOT, SNAPSHOT_EXT),
+                                                   lastGeneration(JOURNAL, JOURNAL_EXT))) + 1;
+        Files.createDirectories(folder.toPath());
+        FileChannel channel = FileChannel.open(journalFile(generation).toPath(), StandardOpenOption.CREATE,
+                                               StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1));
+        journalSize = 0;
+        new SnapshotWorker(snapshots.get(), generation).execute();
+    }
+
+    private void disable(IOException e) {
+        SystemUtils.LOG.warning("Unable to write the edit journal, autosave disabled: " + e.getMessage());
+        suspend();
+    }
+
+    private void closeWriter() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                SystemUtils.LOG.warning("Unable to close the edit journal: " + e.getMessage());
+            }
+            writer = null;
+        }
+    }
+
+    private File snapshotFile(int gen) {
+        return new File(folder, SNAPSHOT + gen + SNAPSHOT_EXT);
+    }
+
+    private File journalFile(int gen) {
+        return new File(folder, JOURNAL + gen + JOURNAL_EXT);
+    }
+
+    /**
+     * Generations of the existing files of a kind, in increasing order.
+     */
+    private List<Integer> generations(String prefix, String extension) {
+        ArrayList<Integer> result = new ArrayList<>();
+        String[] names = folder.list();
+        if (names == null) {
+            return result;
+        }
+        for (String name : names) {
+            if (name.startsWith(prefix) && name.endsWith(extension)) {
+                try {
+                    result.add(Integer.parseInt(name.substring(prefix.length(), name.length() - extension.length())));
+                } catch (NumberFormatException e) {
+                    // not a session file
+                }
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    private int lastGeneration(String prefix, String extension) {
+        List<Integer> gens = generations(prefix, extension);
+        return gens.isEmpty() ? -1 : gens.get(gens.size() - 1);
+    }
+
+    /**
+     * Delete the session files older than a generation, and the recovered graph.
+     * @param below first generation to keep
+     */
+    private void deleteGenerations(int below) {
+        for (int gen : generations(SNAPSHOT, SNAPSHOT_EXT)) {
+            if (gen < below && !snapshotFile(gen).delete()) {
+                snapshotFile(gen).deleteOnExit();
+            }
+        }
+        for (int gen : generations(JOURNAL, JOURNAL_EXT)) {
+            if (gen < below && !journalFile(gen).delete()) {
+                journalFile(gen).deleteOnExit();
+            }
+        }
+        File recovered = new File(folder, RECOVERED);
+        if (recovered.exists() && !recovered.delete()) {
+            recovered.deleteOnExit();
+        }
+    }
+
+    /**
+     * Worker used to write the snapshot of a generation.
+     */
+    private class SnapshotWorker extends SwingWorker<Long, Object> {
+        private final Graph snapshot;
+        private final int gen;
+
+        SnapshotWorker(Graph snapshot, int gen) {
+            this.snapshot = snapshot;
+            this.gen = gen;
+        }
+
+        @Override
+        protected Long doInBackground() throws Exception {
+            return GraphManager.writeGraph(snapshot, snapshotFile(gen));
+        }
+
+        @Override
+        protected void done() {
+            try {
+                long size = get();
+                if (generation == gen) {
+                    snapshotSize = size;
+                    deleteGenerations(gen);
+                } else if (generation < gen && !snapshotFile(gen).delete()) {
+                    // the session has been discarded meanwhile
+                    snapshotFile(gen).deleteOnExit();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // the previous generations are kept, the session can still be recovered from them
+                SystemUtils.LOG.warning("Unable to write the graph snapshot: " + e.getCause().getMessage());
+            }
+        }
+    }
+}
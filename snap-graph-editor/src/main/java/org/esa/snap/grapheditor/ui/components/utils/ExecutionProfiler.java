@@ -0,0 +1,219 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.awt.Rectangle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.gpf.Operator;
+import org.esa.snap.core.gpf.graph.GraphContext;
+import org.esa.snap.core.gpf.graph.Node;
+import org.esa.snap.core.gpf.graph.NodeContext;
+import org.esa.snap.core.gpf.internal.OperatorImage;
+import org.esa.snap.core.gpf.monitor.TileComputationEvent;
+import org.esa.snap.core.gpf.monitor.TileComputationObserver;
+import org.esa.snap.core.util.SystemUtils;
+
+/**
+ * Per-node profiler of the graph executions and validations.
+ * The tiles computed by the operators are observed through the GPF TileComputationObserver, configured with the
+ * `snap.gpf.tileComputationObserver` system property. The property is JVM-wide, so it is set only for the duration of
+ * an execution of the editor (see install) and never replaces an observer configured by the user, in which case the
+ * executions are not profiled. The operators read the property when they are initialized, the operators of the
+ * validation created meanwhile are observed as well but their tiles are ignored. During an
+ * execution the operators of the GraphContext are mapped back to the node ids, so that for each node the wall time,
+ * the number of tiles, their total computation time, the bytes produced and the part of the tile grid already
+ * computed (the per-node progress) are collected. The validation time of the nodes (see NodeGui) is recorded as
+ * well. The profiles are kept until the next execution and are used by the NodeGui to display the heat map and the
+ * tooltip.
+ */
+public class ExecutionProfiler {
+    static private final String OBSERVER_PROPERTY = "snap.gpf.tileComputationObserver";
+    static private ExecutionProfiler instance = null;
+
+    private final ConcurrentHashMap<String, NodeProfile> profiles = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Operator, NodeProfile> operators = new ConcurrentHashMap<>();
+    private volatile long maxTileNanos = 0;
+    private volatile long maxValidationNanos = 0;
+    // tiles observed during the current execution
+    private final AtomicLong observedTiles = new AtomicLong();
+    private boolean installed = false;
+    private volatile boolean available = false;
+
+    private ExecutionProfiler() {
+    }
+
+    /**
+     * Access the ExecutionProfiler instance.
+     * @return the instance
+     */
+    static public synchronized ExecutionProfiler getInstance() {
+        if (instance == null) {
+            instance = new ExecutionProfiler();
+        }
+        return instance;
+    }
+
+    /**
+     * Tile observer instantiated by GPF, it forwards the events to the profiler.
+     */
+    public static class Observer extends TileComputationObserver {
+        @Override
+        public void start() {
+            // the profiler is active only during the executions
+        }
+
+        @Override
+        public void tileComputed(TileComputationEvent event) {
+            ExecutionProfiler.getInstance().tileComputed(event);
+        }
+
+        @Override
+        public void stop() {
+            // the profiler is active only during the executions
+        }
+    }
+
+    /**
+     * Install the tile observer, to be called before the operators of an execution are initialized.
+     * @return false if another observer is configured and the execution can not be profiled
+     */
+    synchronized boolean install() {
+        String observer = System.getProperty(OBSERVER_PROPERTY);
+        available = observer == null || observer.equals(Observer.class.getName());
+        if (observer == null) {
+            System.setProperty(OBSERVER_PROPERTY, Observer.class.getName());
+            installed = true;
+        } else if (!observer.equals(Observer.class.getName())) {
+            SystemUtils.LOG.warning("Execution profiling unavailable: the tile computation observer `" + observer
+                                            + "` is already configured (" + OBSERVER_PROPERTY + ")");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Remove the tile observer installed by install, to be called when the execution ended.
+     */
+    synchronized void uninstall() {
+        if (installed && Observer.class.getName().equals(System.getProperty(OBSERVER_PROPERTY))) {
+            System.clearProperty(OBSERVER_PROPERTY);
+        }
+        installed = false;
+    }
+
+    /**
+     * Start profiling an execution, to be called once all the nodes have been initialized.
+     * @param graphContext context of the executed graph
+     */
+    void start(GraphContext graphContext) {
+        operators.clear();
+        maxTileNanos = 0;
+        observedTiles.set(0);
+        for (Node node : graphContext.getGraph().getNodes()) {
+            NodeProfile profile = new NodeProfile();
+            NodeProfile previous = profiles.get(node.getId());
+            if (previous != null) {
+                profile.setValidationNanos(previous.getValidationNanos());
+            }
+            profiles.put(node.getId(), profile);
+            NodeContext context = graphContext.getNodeContext(node);
+            if (context != null && context.getOperator() != null) {
+                operators.put(context.getOperator(), profile);
+            }
+        }
+    }
+
+    /**
+     * Stop profiling the current execution.
+     */
+    void stop() {
+        if (available && !operators.isEmpty() && observedTiles.get() == 0) {
+            SystemUtils.LOG.info("Execution profiling unavailable: no tile computation observed, the nodes of the "
+                                         + "graph have not been profiled");
+        }
+        operators.clear();
+        long max = 0;
+        for (NodeProfile profile : profiles.values()) {
+            max = Math.max(max, profile.getTileNanos());
+        }
+        maxTileNanos = max;
+    }
+
+    /**
+     * Record the duration of the validation of a node.
+     * @param nodeId id of the node
+     * @param nanos duration in nanoseconds
+     */
+    public void validated(String nodeId, long nanos) {
+        profiles.computeIfAbsent(nodeId, k -> new NodeProfile()).setValidationNanos(nanos);
+        if (nanos > maxValidationNanos) {
+            maxValidationNanos = nanos;
+        }
+    }
+
+    /**
+     * Forget the profile of a node, e.g. when the node is removed.
+     * @param nodeId id of the node
+     */
+    public void remove(String nodeId) {
+        profiles.remove(nodeId);
+    }
+
+    /**
+     * Forget all the profiles.
+     */
+    public void clear() {
+        profiles.clear();
+        maxTileNanos = 0;
+        maxValidationNanos = 0;
+    }
+
+    /**
+     * Get the profile of a node.
+     * @param nodeId id of the node
+     * @return the profile or null if the node has not been profiled
+     */
+    public NodeProfile getProfile(String nodeId) {
+        return profiles.get(nodeId);
+    }
+
+    /**
+     * Relative cost of a node for the heat map: its tile time compared to the slowest node of the last execution
+     * or, if the graph has never been executed, its validation time compared to the slowest validation.
+     * @param nodeId id of the node
+     * @return heat between 0 and 1 (-1 if the node has not been profiled)
+     */
+    public double getHeat(String nodeId) {
+        NodeProfile profile = profiles.get(nodeId);
+        if (profile == null) {
+            return -1;
+        }
+        if (maxTileNanos > 0) {
+            return Math.min(1.0, (double) profile.getTileNanos() / maxTileNanos);
+        }
+        if (maxValidationNanos > 0 && profile.getValidationNanos() >= 0) {
+            return Math.min(1.0, (double) profile.getValidationNanos() / maxValidationNanos);
+        }
+        return -1;
+    }
+
+    private void tileComputed(TileComputationEvent event) {
+        OperatorImage image = event.getImage();
+        if (operators.isEmpty() || image.getOperatorContext() == null) {
+            return;
+        }
+        NodeProfile profile = operators.get(image.getOperatorContext().getOperator());
+        if (profile == null) {
+            // internal operator or tile computed outside of a profiled execution
+            return;
+        }
+        observedTiles.incrementAndGet();
+        Rectangle rect = image.getTileRect(event.getTileX(), event.getTileY());
+        long bytes = (long) rect.width * rect.height * ProductData.getElemSize(image.getTargetBand().getDataType());
+        profile.tileComputed(event.getStartNanos(), event.getEndNanos(), bytes);
+        int index = (event.getTileY() - image.getMinTileY()) * image.getNumXTiles() + event.getTileX()
+                - image.getMinTileX();
+        profile.tilePosition(index, image.getNumXTiles() * image.getNumYTiles());
+    }
+}
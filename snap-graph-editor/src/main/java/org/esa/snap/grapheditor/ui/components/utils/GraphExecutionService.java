@@ -0,0 +1,383 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import javax.swing.SwingWorker;
+
+import com.bc.ceres.core.NullProgressMonitor;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.gpf.graph.Graph;
+import org.esa.snap.core.gpf.graph.GraphContext;
+import org.esa.snap.core.gpf.graph.GraphProcessingObserver;
+import org.esa.snap.core.gpf.graph.GraphProcessor;
+import org.esa.snap.core.gpf.graph.Node;
+import org.esa.snap.core.gpf.graph.NodeContext;
+import org.esa.snap.core.gpf.graph.NodeSource;
+import org.esa.snap.grapheditor.ui.components.interfaces.ExecutionListener;
+
+/**
+ * Execution service of the graphs.
+ * Graphs are executed by the GraphProcessor on a background worker, so that the editor stays responsive during long
+ * executions. The executed graph is a copy of the edited one, so that the user can keep editing while the graph is
+ * running. The execution can be cancelled at any time: the GraphProcessor checks the ProgressMonitor between tiles.
+ * The progress is reported per tile and, for the nodes profiled by the ExecutionProfiler, per node to the
+ * ExecutionListeners, always on the EDT.
+ */
+public class GraphExecutionService {
+    private final HashSet<ExecutionListener> listeners = new HashSet<>();
+    private ExecutionWorker currentJob = null;
+    private BatchRunner currentBatch = null;
+    private PartitionRunner currentPartition = null;
+
+    /**
+     * Add an execution listener.
+     * @param l listener to add
+     */
+    public void addExecutionListener(ExecutionListener l) {
+        listeners.add(l);
+    }
+
+    /**
+     * Remove an execution listener.
+     * @param l listener to remove
+     */
+    public void removeExecutionListener(ExecutionListener l) {
+        listeners.remove(l);
+    }
+
+    /**
+     * Check if a graph is running.
+     * @return if an execution is in progress
+     */
+    public boolean isRunning() {
+        return (currentJob != null && !currentJob.isDone()) || (currentBatch != null && !currentBatch.isDone())
+                || (currentPartition != null && !currentPartition.isDone());
+    }
+
+    /**
+     * Execute a copy of a graph in background, without the rewrites depending on the validated products.
+     * @param graph graph to execute
+     * @return false if another graph is already running
+     */
+    public boolean execute(Graph graph) {
+        return execute(graph, id -> null);
+    }
+
+    /**
+     * Execute a copy of a graph in background. The copy is optimized as enabled in the settings (see
+     * GraphOptimizer).
+     * @param graph graph to execute
+     * @param signatures node id -> validated output signature (null if unknown)
+     * @return false if another graph is already running
+     */
+    public boolean execute(Graph graph, Function<String, ProductSignature> signatures) {
+        if (isRunning()) {
+            return false;
+        }
+        GraphOptimizer.Result result = GraphOptimizer.optimize(graph, signatures);
+        currentJob = new ExecutionWorker(result.getGraph(), result.getMerged());
+        for (GraphRewriter.Rewrite rewrite : result.getRewrites()) {
+            NotificationManager.getInstance().info("Graph Optimizer", rewrite.toString());
+        }
+        currentJob.execute();
+        return true;
+    }
+
+    /**
+     * Execute a copy of a graph once per input product in background, see BatchRunner.
+     * @param graph graph to execute, it must contain a single Read or ProductSet-Reader node
+     * @param inputs input products
+     * @param targetFolder folder of the target products
+     * @param formatName format of the target products (null to keep the format of the Write nodes)
+     * @param keepSourceName name the target products after the inputs only
+     * @param skipExisting skip the inputs whose target product already exists
+     * @return false if another graph is already running or if the graph has not exactly one reader
+     */
+    public boolean executeBatch(Graph graph, File[] inputs, File targetFolder, String formatName,
+                                boolean keepSourceName, boolean skipExisting) {
+        if (isRunning() || !BatchRunner.isBatchable(graph)) {
+            return false;
+        }
+        currentBatch = new BatchRunner(graph, inputs, targetFolder, formatName, keepSourceName, skipExisting,
+                                       listeners);
+        currentBatch.execute();
+        return true;
+    }
+
+    /**
+     * Execute a copy of a graph split into regions, each region in a separate gpt process, and stitch the products
+     * written, see PartitionRunner.
+     * @param graph graph to execute, it must read a whole product with a single Read node and have a Write node
+     * @param regions number of regions
+     * @param overlap pixels shared by two neighbouring regions
+     * @return false if another graph is already running or if the graph can not be partitioned
+     */
+    public boolean executePartitioned(Graph graph, int regions, int overlap) {
+        if (isRunning() || !PartitionRunner.isPartitionable(graph)) {
+            return false;
+        }
+        currentPartition = new PartitionRunner(graph, regions, overlap, listeners);
+        currentPartition.execute();
+        return true;
+    }
+
+    /**
+     * Cancel the current execution, the execution stops at the end of the tiles being computed.
+     */
+    public void cancel() {
+        if (currentJob != null && !currentJob.isDone()) {
+            currentJob.monitor.setCanceled(true);
+        }
+        if (currentBatch != null && !currentBatch.isDone()) {
+            currentBatch.cancelBatch();
+        }
+        if (currentPartition != null && !currentPartition.isDone()) {
+            currentPartition.cancelPartition();
+        }
+    }
+
+    /**
+     * Copy the structure and configuration of a graph, the configurations are shared as they are replaced and never
+     * modified by the editor.
+     * @param graph graph to copy
+     * @return independent copy of the graph
+     */
+    static public Graph copyGraph(Graph graph) {
+        Graph copy = new Graph(graph.getId());
+        for (Node node : graph.getNodes()) {
+            Node n = new Node(node.getId(), node.getOperatorName());
+            n.setConfiguration(node.getConfiguration());
+            for (NodeSource source : node.getSources()) {
+                n.addSource(new NodeSource(source.getName(), source.getSourceNodeId()));
+            }
+            copy.addNode(n);
+        }
+        return copy;
+    }
+
+    /**
+     * Execution event, produced on the worker thread and dispatched on the EDT.
+     */
+    private static class Event {
+        private final String nodeId;
+        private final Rectangle tile;
+        private final int value;
+        private final int total;
+
+        private Event(String nodeId, Rectangle tile, int value, int total) {
+            this.nodeId = nodeId;
+            this.tile = tile;
+            this.value = value;
+            this.total = total;
+        }
+    }
+
+    /**
+     * Progress monitor of the GraphProcessor, it can be cancelled from the EDT.
+     */
+    private static class ExecutionMonitor extends NullProgressMonitor {
+        private volatile boolean canceled = false;
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @Override
+        public void setCanceled(boolean canceled) {
+            this.canceled = canceled;
+        }
+    }
+
+    /**
+     * Worker executing the graph.
+     */
+    private class ExecutionWorker extends SwingWorker<Void, Event> implements GraphProcessingObserver {
+        private final Graph graph;
+        private final ExecutionMonitor monitor = new ExecutionMonitor();
+        private final ArrayList<String> nodeIds = new ArrayList<>();
+        // last progress reported for each node, only accessed on the EDT
+        private final HashMap<String, Integer> nodeProgress = new HashMap<>();
+        private volatile int totalTiles = 1;
+        // tiles may be completed by the tile scheduler threads
+        private final AtomicInteger doneTiles = new AtomicInteger();
+
+        /**
+         * Initialize the worker.
+         * @param graph graph to execute
+         * @param merged nodes removed from the graph by the GraphOptimizer
+         */
+        ExecutionWorker(Graph graph, Map<String, String> merged) {
+            this.graph = graph;
+            for (ExecutionListener l : listeners) {
+                l.executionStarted(graph.getId());
+                if (!merged.isEmpty()) {
+                    l.nodesMerged(merged);
+                }
+            }
+            NotificationManager.getInstance().processStart();
+            NotificationManager.getInstance().info("Graph Execution", "started");
+            for (Map.Entry<String, String> e : merged.entrySet()) {
+                NotificationManager.getInstance().info("Graph Execution", "node `" + e.getKey()
+                        + "` merged into `" + e.getValue() + "`");
+            }
+        }
+
+        @Override
+        protected Void doInBackground() throws Exception {
+            GraphProcessor processor = new GraphProcessor();
+            processor.addObserver(this);
+            // the operators of the graph are initialized by executeGraph
+            ExecutionProfiler.getInstance().install();
+            try {
+                processor.executeGraph(graph, monitor);
+            } finally {
+                ExecutionProfiler.getInstance().uninstall();
+            }
+            return null;
+        }
+
+        @Override
+        public void graphProcessingStarted(GraphContext graphContext) {
+            // at this point all the nodes have been initialized
+            totalTiles = Math.max(countTiles(graphContext), 1);
+            ExecutionProfiler.getInstance().start(graphContext);
+            for (Node node : graph.getNodes()) {
+                nodeIds.add(node.getId());
+                publish(new Event(node.getId(), null, 0, 0));
+            }
+        }
+
+        @Override
+        public void graphProcessingStopped(GraphContext graphContext) {
+            // completion is notified in done()
+            ExecutionProfiler.getInstance().stop();
+        }
+
+        @Override
+        public void tileProcessingStarted(GraphContext graphContext, Rectangle tileRectangle) {
+            // only completed tiles are reported
+        }
+
+        @Override
+        public void tileProcessingStopped(GraphContext graphContext, Rectangle tileRectangle) {
+            publish(new Event(null, tileRectangle, doneTiles.incrementAndGet(), totalTiles));
+        }
+
+        @Override
+        protected void process(List<Event> chunks) {
+            // during long executions events are coalesced by the SwingWorker, only the last tile is relevant
+            Event lastTile = null;
+            for (Event e : chunks) {
+                if (e.tile == null) {
+                    for (ExecutionListener l : listeners) {
+                        l.nodeProgress(e.nodeId, e.value);
+                    }
+                } else {
+                    lastTile = e;
+                }
+            }
+            if (lastTile != null) {
+                int progress = (int) Math.min(100, 100L * lastTile.value / lastTile.total);
+                for (ExecutionListener l : listeners) {
+                    l.tileProcessed(lastTile.tile, lastTile.value, lastTile.total);
+                    l.executionProgress(progress);
+                }
+                updateNodeProgress();
+                NotificationManager.getInstance().progress(progress);
+            }
+        }
+
+        /**
+         * Report the progress of the nodes whose tiles have been observed by the ExecutionProfiler, nodes without
+         * observed tiles (e.g. when the profiler is not available) are only notified at the end of the execution.
+         */
+        private void updateNodeProgress() {
+            for (String id : nodeIds) {
+                NodeProfile profile = ExecutionProfiler.getInstance().getProfile(id);
+                int progress = profile != null ? profile.getTileProgress() : -1;
+                Integer last = nodeProgress.get(id);
+                if (progress < 0 || (last != null && last == progress)) {
+                    continue;
+                }
+                nodeProgress.put(id, progress);
+                for (ExecutionListener l : listeners) {
+                    l.nodeProgress(id, progress);
+                }
+            }
+        }
+
+        @Override
+        protected void done() {
+            // the observer is not notified when the execution fails
+            ExecutionProfiler.getInstance().stop();
+            String error = null;
+            try {
+                get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                error = e.getCause().getMessage();
+                if (error == null) {
+                    error = e.getCause().toString();
+                }
+            }
+            boolean cancelled = monitor.isCanceled();
+            if (cancelled) {
+                NotificationManager.getInstance().warning("Graph Execution", "cancelled");
+            } else if (error != null) {
+                NotificationManager.getInstance().error("Graph Execution", error);
+            } else {
+                NotificationManager.getInstance().ok("Graph Execution", "done");
+            }
+            NotificationManager.getInstance().processEnd();
+            for (ExecutionListener l : listeners) {
+                if (!cancelled && error == null) {
+                    for (String id : nodeIds) {
+                        l.nodeProgress(id, 100);
+                    }
+                }
+                l.executionEnded(cancelled, error);
+            }
+        }
+
+        /**
+         * Count the tiles processed by the GraphProcessor: it iterates once over the tile grid of the largest output
+         * (with the tile size of the first output), each tile rectangle covering all the output products.
+         * @param graphContext context of the executed graph
+         * @return number of tiles
+         */
+        private int countTiles(GraphContext graphContext) {
+            Dimension tileSize = null;
+            int width = 0;
+            int height = 0;
+            for (NodeContext context : graphContext.getOutputNodeContexts()) {
+                Product product = context.getTargetProduct();
+                if (product == null) {
+                    continue;
+                }
+                if (tileSize == null) {
+                    tileSize = product.getPreferredTileSize();
+                }
+                width = Math.max(width, product.getSceneRasterWidth());
+                height = Math.max(height, product.getSceneRasterHeight());
+            }
+            if (tileSize == null) {
+                return width > 0 ? 1 : 0;
+            }
+            int nx = (width + tileSize.width - 1) / tileSize.width;
+            int ny = (height + tileSize.height - 1) / tileSize.height;
+            return nx * ny;
+        }
+    }
+}
@@ -0,0 +1,471 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+import org.esa.snap.grapheditor.ui.components.NodeGui;
+import org.esa.snap.grapheditor.ui.components.interfaces.NodeInterface;
+
+/**
+ * Adjacency index of the graph.
+ * Each node is mapped to a dense integer index and the forward (output) and reverse (input) edges are stored in
+ * primitive int arrays, so that distance, descendant and ancestor queries are answered in linear time, without the
+ * exponential blow-up of the recursive traversal on diamond shaped graphs.
+ * The index is updated incrementally when nodes are added/removed and when the inputs of a node change, while the
+ * topological order is computed lazily and cached in an immutable Snapshot until the next structural change.
+ *
+ * The index is meant to be modified only from the EDT, Snapshots can be shared with worker threads.
+ */
+public class GraphIndex {
+    private static final int[] EMPTY = new int[0];
+
+    private NodeGui[] nodes = new NodeGui[16];
+    private int[][] forward = new int[16][];
+    private int[] forwardCount = new int[16];
+    private int[][] reverse = new int[16][];
+    private int[] reverseCount = new int[16];
+
+    private final HashMap<NodeGui, Integer> indexes = new HashMap<>();
+    private int[] freeSlots = new int[16];
+    private int freeCount = 0;
+    private int size = 0;
+
+    private Snapshot snapshot = null;
+
+    /**
+     * Add a node to the index.
+     * @param node node to add
+     * @return dense index of the node
+     */
+    public int add(NodeGui node) {
+        Integer existing = indexes.get(node);
+        if (existing != null) {
+            return existing;
+        }
+        int index;
+        if (freeCount > 0) {
+            index = freeSlots[--freeCount];
+        } else {
+            index = size++;
+            if (index >= nodes.length) {
+                grow(nodes.length * 2);
+            }
+        }
+        nodes[index] = node;
+        forward[index] = EMPTY;
+        forwardCount[index] = 0;
+        reverse[index] = EMPTY;
+        reverseCount[index] = 0;
+        indexes.put(node, index);
+        snapshot = null;
+        return index;
+    }
+
+    /**
+     * Remove a node and all its edges from the index.
+     * @param node node to remove
+     */
+    public void remove(NodeGui node) {
+        Integer boxed = indexes.remove(node);
+        if (boxed == null) {
+            return;
+        }
+        int index = boxed;
+        for (int i = 0; i < reverseCount[index]; i++) {
+            removeEdge(forward, forwardCount, reverse[index][i], index);
+        }
+        for (int i = 0; i < forwardCount[index]; i++) {
+            removeEdge(reverse, reverseCount, forward[index][i], index);
+        }
+        nodes[index] = null;
+        forward[index] = null;
+        forwardCount[index] = 0;
+        reverse[index] = null;
+        reverseCount[index] = 0;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeCount++] = index;
+        snapshot = null;
+    }
+
+    /**
+     * Update the input edges of a node, used after a connection or a disconnection.
+     * Only the edges of the given node and of its old and new sources are touched.
+     * @param node target node
+     * @param sources current input nodes of the target
+     */
+    public void setSources(NodeGui node, Collection<NodeInterface> sources) {
+        Integer boxed = indexes.get(node);
+        if (boxed == null) {
+            return;
+        }
+        int index = boxed;
+        for (int i = 0; i < reverseCount[index]; i++) {
+            removeEdge(forward, forwardCount, reverse[index][i], index);
+        }
+        reverseCount[index] = 0;
+        for (NodeInterface source : sources) {
+            Integer src = indexes.get(source);
+            if (src != null) {
+                addEdge(reverse, reverseCount, index, src);
+                addEdge(forward, forwardCount, src, index);
+            }
+        }
+        snapshot = null;
+    }
+
+    /**
+     * Remove all nodes from the index.
+     */
+    public void clear() {
+        Arrays.fill(nodes, null);
+        Arrays.fill(forward, null);
+        Arrays.fill(reverse, null);
+        Arrays.fill(forwardCount, 0);
+        Arrays.fill(reverseCount, 0);
+        indexes.clear();
+        freeCount = 0;
+        size = 0;
+        snapshot = null;
+    }
+
+    /**
+     * Get the index of a node.
+     * @param node node
+     * @return dense index or -1 if the node is not indexed
+     */
+    public int indexOf(NodeInterface node) {
+        Integer index = indexes.get(node);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Number of indexed nodes.
+     * @return node count
+     */
+    public int getNodeCount() {
+        return indexes.size();
+    }
+
+    /**
+     * Get the nodes directly connected to the output of a node.
+     * @param node source node
+     * @return list of children
+     */
+    public List<NodeGui> getChildren(NodeGui node) {
+        int index = indexOf(node);
+        ArrayList<NodeGui> result = new ArrayList<>();
+        if (index >= 0) {
+            for (int i = 0; i < forwardCount[index]; i++) {
+                result.add(nodes[forward[index][i]]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get all the nodes reachable from the given node (excluded).
+     * @param node source node
+     * @return list of descendants
+     */
+    public List<NodeGui> getDescendants(NodeGui node) {
+        return traverse(node, forward, forwardCount);
+    }
+
+    /**
+     * Get all the nodes from which the given node can be reached (excluded).
+     * @param node target node
+     * @return list of ancestors
+     */
+    public List<NodeGui> getAncestors(NodeGui node) {
+        return traverse(node, reverse, reverseCount);
+    }
+
+    /**
+     * Check if a node can be reached from another node.
+     * @param from source node
+     * @param to target node
+     * @return if there is a path from source to target
+     */
+    public boolean isReachable(NodeInterface from, NodeInterface to) {
+        int src = indexOf(from);
+        int trg = indexOf(to);
+        if (src < 0 || trg < 0) {
+            return false;
+        }
+        if (src == trg) {
+            return true;
+        }
+        boolean[] visited = new boolean[size];
+        int[] stack = new int[size];
+        int top = 0;
+        stack[top++] = src;
+        visited[src] = true;
+        while (top > 0) {
+            int current = stack[--top];
+            for (int i = 0; i < forwardCount[current]; i++) {
+                int next = forward[current][i];
+                if (next == trg) {
+                    return true;
+                }
+                if (!visited[next]) {
+                    visited[next] = true;
+                    stack[top++] = next;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compute the longest path distance between two nodes.
+     * @param from source node
+     * @param to target node
+     * @return 0 if the nodes are the same, -1 if the target can not be reached, the maximum distance otherwise
+     */
+    public int distance(NodeInterface from, NodeInterface to) {
+        int src = indexOf(from);
+        int trg = indexOf(to);
+        if (src < 0 || trg < 0) {
+            return -1;
+        }
+        return distancesFrom(src)[trg];
+    }
+
+    /**
+     * Compute the longest path distance from a node to all the other nodes, in a single pass over the
+     * topological order.
+     * @param node source node
+     * @return array of distances indexed by the dense node index (-1 for nodes that can not be reached)
+     */
+    public int[] distancesFrom(NodeGui node) {
+        int src = indexOf(node);
+        if (src < 0) {
+            int[] distances = new int[size];
+            Arrays.fill(distances, -1);
+            return distances;
+        }
+        return distancesFrom(src);
+    }
+
+    private int[] distancesFrom(int src) {
+        int[] distances = new int[size];
+        Arrays.fill(distances, -1);
+        distances[src] = 0;
+        for (int current : getSnapshot().order) {
+            if (distances[current] < 0) {
+                continue;
+            }
+            for (int i = 0; i < forwardCount[current]; i++) {
+                int next = forward[current][i];
+                distances[next] = Math.max(distances[next], distances[current] + 1);
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Get the current immutable snapshot of the graph structure, computed lazily and cached until the next
+     * structural change.
+     * @return current snapshot
+     */
+    public Snapshot getSnapshot() {
+        if (snapshot == null) {
+            snapshot = new Snapshot(this);
+        }
+        return snapshot;
+    }
+
+    private List<NodeGui> traverse(NodeGui node, int[][] edges, int[] counts) {
+        int start = indexOf(node);
+        ArrayList<NodeGui> result = new ArrayList<>();
+        if (start < 0) {
+            return result;
+        }
+        boolean[] visited = new boolean[size];
+        int[] stack = new int[size];
+        int top = 0;
+        stack[top++] = start;
+        visited[start] = true;
+        while (top > 0) {
+            int current = stack[--top];
+            for (int i = 0; i < counts[current]; i++) {
+                int next = edges[current][i];
+                if (!visited[next]) {
+                    visited[next] = true;
+                    result.add(nodes[next]);
+                    stack[top++] = next;
+                }
+            }
+        }
+        return result;
+    }
+
+    private void grow(int capacity) {
+        nodes = Arrays.copyOf(nodes, capacity);
+        forward = Arrays.copyOf(forward, capacity);
+        forwardCount = Arrays.copyOf(forwardCount, capacity);
+        reverse = Arrays.copyOf(reverse, capacity);
+        reverseCount = Arrays.copyOf(reverseCount, capacity);
+    }
+
+    private static void addEdge(int[][] edges, int[] counts, int from, int to) {
+        int count = counts[from];
+        for (int i = 0; i < count; i++) {
+            if (edges[from][i] == to) {
+                return;
+            }
+        }
+        if (count == edges[from].length) {
+            edges[from] = Arrays.copyOf(edges[from], Math.max(4, count * 2));
+        }
+        edges[from][count] = to;
+        counts[from] = count + 1;
+    }
+
+    private static void removeEdge(int[][] edges, int[] counts, int from, int to) {
+        int count = counts[from];
+        for (int i = 0; i < count; i++) {
+            if (edges[from][i] == to) {
+                edges[from][i] = edges[from][count - 1];
+                counts[from] = count - 1;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Immutable copy of the graph structure: nodes, topological order, levels and children of each node.
+     */
+    public static class Snapshot {
+        private final NodeGui[] nodes;
+        private final HashMap<NodeGui, Integer> indexes;
+        private final int[] order;
+        private final int[][] levels;
+        private final int[][] children;
+        private final boolean acyclic;
+
+        private Snapshot(GraphIndex index) {
+            int size = index.size;
+            nodes = Arrays.copyOf(index.nodes, size);
+            indexes = new HashMap<>(index.indexes);
+            children = new int[size][];
+            int[] inDegree = new int[size];
+            for (int i = 0; i < size; i++) {
+                if (nodes[i] != null) {
+                    children[i] = Arrays.copyOf(index.forward[i], index.forwardCount[i]);
+                    inDegree[i] = index.reverseCount[i];
+                } else {
+                    children[i] = EMPTY;
+                }
+            }
+            // Kahn algorithm
+            int[] queue = new int[size];
+            int head = 0;
+            int tail = 0;
+            for (int i = 0; i < size; i++) {
+                if (nodes[i] != null && inDegree[i] == 0) {
+                    queue[tail++] = i;
+                }
+            }
+            while (head < tail) {
+                int current = queue[head++];
+                for (int next : children[current]) {
+                    if (--inDegree[next] == 0) {
+                        queue[tail++] = next;
+                    }
+                }
+            }
+            order = Arrays.copyOf(queue, tail);
+            acyclic = tail == index.indexes.size();
+
+            // level of a node is its longest distance from a root, nodes of the same level are independent
+            int[] depth = new int[size];
+            int maxDepth = -1;
+            for (int current : order) {
+                for (int next : children[current]) {
+                    depth[next] = Math.max(depth[next], depth[current] + 1);
+                }
+                maxDepth = Math.max(maxDepth, depth[current]);
+            }
+            int[] levelSize = new int[maxDepth + 1];
+            for (int current : order) {
+                levelSize[depth[current]]++;
+            }
+            levels = new int[maxDepth + 1][];
+            for (int l = 0; l <= maxDepth; l++) {
+                levels[l] = new int[levelSize[l]];
+                levelSize[l] = 0;
+            }
+            for (int current : order) {
+                int l = depth[current];
+                levels[l][levelSize[l]++] = current;
+            }
+        }
+
+        /**
+         * Number of slots of the snapshot, dense indexes are in [0, size).
+         * @return snapshot size
+         */
+        public int size() {
+            return nodes.length;
+        }
+
+        /**
+         * Get node from its dense index.
+         * @param index dense index
+         * @return the node (null for free slots)
+         */
+        public NodeGui getNode(int index) {
+            return nodes[index];
+        }
+
+        /**
+         * Get the dense index of a node in this snapshot.
+         * @param node node
+         * @return dense index or -1 if the node is not part of the snapshot
+         */
+        public int indexOf(NodeInterface node) {
+            Integer index = indexes.get(node);
+            return index == null ? -1 : index;
+        }
+
+        /**
+         * Topological order of the graph as dense indexes.
+         * @return topological order (do not modify)
+         */
+        public int[] getOrder() {
+            return order;
+        }
+
+        /**
+         * Nodes grouped by level (longest distance from a root node), in topological order. Nodes of the same level
+         * do not depend on each other.
+         * @return levels of dense indexes (do not modify)
+         */
+        public int[][] getLevels() {
+            return levels;
+        }
+
+        /**
+         * Children of a node as dense indexes.
+         * @param index dense index of the node
+         * @return children indexes (do not modify)
+         */
+        public int[] getChildren(int index) {
+            return children[index];
+        }
+
+        /**
+         * Check if the graph has no cycles (i.e. the topological order contains all nodes).
+         * @return if the graph is acyclic
+         */
+        public boolean isAcyclic() {
+            return acyclic;
+        }
+    }
+}
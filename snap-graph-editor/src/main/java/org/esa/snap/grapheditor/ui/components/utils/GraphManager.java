@@ -1,48 +1,50 @@
 package org.esa.snap.grapheditor.ui.components.utils;
 
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.lang.reflect.Field;
+import java.io.Writer;
 import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
 import java.util.*;
 
+import java.awt.Rectangle;
 import java.awt.event.ActionListener;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 import javax.swing.*;
+import javax.swing.Timer;
+import javax.xml.stream.XMLStreamException;
 
-import com.bc.ceres.binding.ConversionException;
-import com.bc.ceres.binding.Converter;
-import com.bc.ceres.binding.Property;
-import com.bc.ceres.binding.PropertyContainer;
-import com.bc.ceres.binding.PropertyDescriptor;
-import com.bc.ceres.binding.dom.DomConverter;
-import com.bc.ceres.binding.dom.DomElement;
 import com.bc.ceres.binding.dom.XppDomElement;
 
 import com.thoughtworks.xstream.io.xml.xppdom.XppDom;
 import org.esa.snap.core.gpf.GPF;
-import org.esa.snap.core.gpf.Operator;
 import org.esa.snap.core.gpf.OperatorSpi;
 import org.esa.snap.core.gpf.OperatorSpiRegistry;
-import org.esa.snap.core.gpf.annotations.OperatorMetadata;
-import org.esa.snap.core.gpf.annotations.ParameterDescriptorFactory;
-import org.esa.snap.core.gpf.descriptor.OperatorDescriptor;
 import org.esa.snap.core.gpf.graph.Graph;
-import org.esa.snap.core.gpf.graph.GraphException;
 import org.esa.snap.core.gpf.graph.GraphIO;
-import org.esa.snap.core.gpf.graph.GraphProcessor;
 import org.esa.snap.core.gpf.graph.Node;
-import org.esa.snap.core.gpf.graph.NodeSource;
 import org.esa.snap.core.util.SystemUtils;
 import org.esa.snap.grapheditor.gpf.ui.OperatorUI;
 import org.esa.snap.grapheditor.gpf.ui.OperatorUIRegistry;
 import org.esa.snap.grapheditor.ui.components.NodeGui;
+import org.esa.snap.grapheditor.ui.components.interfaces.ExecutionListener;
+import org.esa.snap.grapheditor.ui.components.interfaces.NodeInterface;
 import org.esa.snap.grapheditor.ui.components.interfaces.NodeListener;
 import org.esa.snap.grapheditor.ui.components.interfaces.RefreshListener;
 import org.esa.snap.ui.AppContext;
@@ -63,17 +65,37 @@ import org.esa.snap.ui.AppContext;
 public class GraphManager implements NodeListener {
     private final OperatorSpiRegistry opSpiRegistry;
 
-    private final HashMap<String, UnifiedMetadata> simpleMetadata = new HashMap<>();
+    // replaced as a whole when the operator index is rebuilt, as it is read by the loading threads
+    private volatile HashMap<String, UnifiedMetadata> simpleMetadata;
 
     private final ArrayList<NodeGui> nodes = new ArrayList<>();
     private final Graph graph = new Graph("");
+    // node id -> node, kept consistent with nodes and graph
+    private final HashMap<String, NodeGui> nodeIndex = new HashMap<>();
+    // operator name -> next free id counter
+    private final HashMap<String, Integer> idCounters = new HashMap<>();
 
     static private GraphManager instance = null;
 
     private final HashSet<RefreshListener> listeners = new HashSet<>();
     private AppContext appContext = null;
 
+    private final GraphIndex graphIndex = new GraphIndex();
+    private final ValidationEngine validationEngine = new ValidationEngine(graphIndex);
+    private final GraphExecutionService executionService = new GraphExecutionService();
     private ValidateWorker currentJob = null;
+    private GraphLoadWorker currentLoader = null;
+    // delay used to coalesce bursts of edits (e.g. several connections dragged in a row) into a single job
+    static private final int VALIDATION_DELAY = 150;
+    private final Timer validationTimer = new Timer(VALIDATION_DELAY, e -> startValidation());
+    // buffer of the graph writer, large enough to write the graph with few system calls
+    static private final int SAVE_BUFFER_SIZE = 1 << 16;
+    private int cancelledJobs = 0;
+    private final EditJournal journal = new EditJournal(this::getNode, () -> snapshot(graph, nodes));
+    private final UndoHistory history = new UndoHistory(this::getNode, this::restore);
+    // the graph being loaded is a recovered session and not a file on disk
+    private boolean recovering = false;
+    private int coalescedRequests = 0;
 
     /**
      * Access the GraphManager instance,
@@ -87,21 +109,24 @@ public class GraphManager implements NodeListener {
     }
 
     /**
-     * private GraphManager initializer. It extract all the Operator from the Operator SPI registry and fill the
-     * metadata lists.
+     * private GraphManager initializer. It loads the operator metadata from the persistent OperatorMetadataIndex if
+     * available, otherwise it extracts all the Operator from the Operator SPI registry and fill the metadata lists.
+     * If the installed modules or operators changed since the index has been built, the stored metadata are stale
+     * (removed operators could still be added) so the metadata are extracted again and the index is stored in
+     * background.
      */
     private GraphManager() {
+        validationTimer.setRepeats(false);
+        executionService.addExecutionListener(new ExecutionProgressListener());
         GPF gpf = GPF.getDefaultInstance();
         opSpiRegistry = gpf.getOperatorSpiRegistry();
-        for (final OperatorSpi opSpi : opSpiRegistry.getOperatorSpis()) {
-            OperatorDescriptor descriptor = opSpi.getOperatorDescriptor();
-            if (descriptor != null && !descriptor.isInternal()) {
-                OperatorMetadata operatorMetadata = opSpi.getOperatorClass().getAnnotation(OperatorMetadata.class);
-                Field[] fields = opSpi.getOperatorClass().getDeclaredFields();
-                ArrayList<OperatorMetadata> metadata = new ArrayList<>();
-                metadata.add(operatorMetadata);
-                simpleMetadata.put(operatorMetadata.alias(), new UnifiedMetadata(operatorMetadata, descriptor, fields));
-            }
+        String fingerprint = OperatorMetadataIndex.computeFingerprint(opSpiRegistry);
+        OperatorMetadataIndex index = OperatorMetadataIndex.load();
+        if (index != null && index.getFingerprint().equals(fingerprint)) {
+            simpleMetadata = index.getMetadata();
+        } else {
+            simpleMetadata = OperatorMetadataIndex.build(opSpiRegistry);
+            new IndexWorker(new OperatorMetadataIndex(fingerprint, simpleMetadata)).execute();
         }
     }
 
@@ -130,19 +155,6 @@ public class GraphManager implements NodeListener {
         }
     }
 
-    /**
-     * Create an Operator from metadata.
-     * @param metadata input metadata
-     * @return the new operator
-     */
-    private Operator getOperator(UnifiedMetadata metadata) {
-        OperatorSpi spi = opSpiRegistry.getOperatorSpi(metadata.getName());
-        if (spi != null) {
-            return spi.createOperator();
-        }
-        return null;
-    }
-
     /**
      * Retrive the collection of metadata loaded from the register.
      * @return all the available metadata
@@ -171,58 +183,8 @@ public class GraphManager implements NodeListener {
      * @return node configuration map
      */
     private Map<String, Object> getConfiguration(final Node node) {
-        final HashMap<String, Object> parameterMap = new HashMap<>();
-        final String opName = node.getOperatorName();
-        final OperatorSpi operatorSpi = opSpiRegistry.getOperatorSpi(opName);
-
-        final ParameterDescriptorFactory parameterDescriptorFactory = new ParameterDescriptorFactory();
-        final PropertyContainer valueContainer = PropertyContainer.createMapBacked(parameterMap,
-                operatorSpi.getOperatorClass(), parameterDescriptorFactory);
-        final DomElement config = node.getConfiguration();
-        final int count = config.getChildCount();
-        for (int i = 0; i < count; ++i) {
-            final DomElement child = config.getChild(i);
-            final String name = child.getName();
-            final String value = child.getValue();
-            try {
-                if (name == null || value == null || value.startsWith("$")) {
-                    continue;
-                }
-                if (child.getChildCount() == 0) {
-                    final Converter<?> converter = getConverter(valueContainer, name);
-                    if (converter != null) {
-                        parameterMap.put(name, converter.parse(value));
-                    }
-                } else {
-                    final DomConverter domConverter = getDomConverter(valueContainer, name);
-                    if (domConverter != null) {
-                        try {
-                            final Object obj = domConverter.convertDomToValue(child, null);
-                            parameterMap.put(name, obj);
-                        } catch (final Exception e) {
-                            SystemUtils.LOG.warning(e.getMessage());
-                        }
-                    } else {
-                        final Converter<?> converter = getConverter(valueContainer, name);
-                        final Object[] objArray = new Object[child.getChildCount()];
-                        int c = 0;
-                        for (final DomElement ch : child.getChildren()) {
-                            final String v = ch.getValue();
-
-                            if (converter != null) {
-                                objArray[c++] = converter.parse(v);
-                            } else {
-                                objArray[c++] = v;
-                            }
-                        }
-                        parameterMap.put(name, objArray);
-                    }
-                }
-            } catch (final ConversionException e) {
-                SystemUtils.LOG.info(e.getMessage());
-            }
-        }
-        return parameterMap;
+        final OperatorSpi operatorSpi = opSpiRegistry.getOperatorSpi(node.getOperatorName());
+        return OperatorSchema.get(operatorSpi).parse(node.getConfiguration());
     }
 
     /**
@@ -232,64 +194,42 @@ public class GraphManager implements NodeListener {
      */
     private String id(final String opName) {
         final String res = opName + " ";
-        int counter = 0;
-        int N = res.length();
-        for (NodeGui n : nodes) {
-
-            if (n.getName().startsWith(res)) {
-                String postfix = n.getName().substring(N);
-                try {
-                    int id = Integer.parseInt(postfix);
-                    if (id >= counter) {
-                        counter = id + 1;
-                    }
-                } catch (NumberFormatException e) {
-                    // not a problem
-                }
-            }
+        int counter = idCounters.getOrDefault(opName, 0);
+        while (nodeIndex.containsKey(res + counter)) {
+            counter++;
         }
-
+        idCounters.put(opName, counter + 1);
         return res + counter;
     }
 
     /**
-     * Get propertyConverter for the given property.
-     * @param valueContainer property container
-     * @param name name of the property to be converted
-     * @return the propertyConverter if it is found (null otherwise)
+     * Add a node to the id index and update the id counter of its operator, so that new ids never clash with the
+     * ones of the loaded nodes.
+     * @param n node to index
      */
-    private static Converter<?> getConverter(final PropertyContainer valueContainer, final String name) {
-        final Property[] properties = valueContainer.getProperties();
-
-        for (final Property p : properties) {
-
-            final PropertyDescriptor descriptor = p.getDescriptor();
-            if (descriptor != null && (descriptor.getName().equals(name)
-                    || (descriptor.getAlias() != null && descriptor.getAlias().equals(name)))) {
-                return descriptor.getConverter();
+    private void indexNode(NodeGui n) {
+        nodeIndex.put(n.getName(), n);
+        final String opName = n.getNode().getOperatorName();
+        final String res = opName + " ";
+        if (n.getName().startsWith(res)) {
+            try {
+                int id = Integer.parseInt(n.getName().substring(res.length()));
+                if (id >= idCounters.getOrDefault(opName, 0)) {
+                    idCounters.put(opName, id + 1);
+                }
+            } catch (NumberFormatException e) {
+                // not a problem
             }
         }
-        return null;
     }
 
     /**
-     * Get the DOM property converter for a given poperty.
-     * @param valueContainer property container
-     * @param name property name
-     * @return dom converter
+     * Find a node of the current graph from its id.
+     * @param id node id
+     * @return the node or null if not found
      */
-    private static DomConverter getDomConverter(final PropertyContainer valueContainer, final String name) {
-        final Property[] properties = valueContainer.getProperties();
-
-        for (final Property p : properties) {
-
-            final PropertyDescriptor descriptor = p.getDescriptor();
-            if (descriptor != null && (descriptor.getName().equals(name)
-                    || (descriptor.getAlias() != null && descriptor.getAlias().equals(name)))) {
-                return descriptor.getDomConverter();
-            }
-        }
-        return null;
+    public NodeGui getNode(String id) {
+        return nodeIndex.get(id);
     }
 
     /**
@@ -366,11 +306,12 @@ public class GraphManager implements NodeListener {
                     "The node ID `" + node.getId() + "` exists already");
             return null;
         }
-        Operator operator = GraphManager.getInstance().getOperator(metadata);
-        assert operator != null;
-        NodeGui newNode = new NodeGui(node, getConfiguration(node), metadata, ui, operator);
+        NodeGui newNode = new NodeGui(node, getConfiguration(node), metadata, ui);
         this.nodes.add(newNode);
+        indexNode(newNode);
+        this.graphIndex.add(newNode);
         newNode.addNodeListener(this);
+        edited(newNode.getName());
         NotificationManager.getInstance().info(newNode.getName(), "Created");
         return newNode;
     }
@@ -383,69 +324,185 @@ public class GraphManager implements NodeListener {
         return this.nodes;
     }
 
+    /**
+     * Get the adjacency index of the current graph, used for distance and reachability queries.
+     * @return the graph index
+     */
+    public GraphIndex getGraphIndex() {
+        return this.graphIndex;
+    }
+
+    /**
+     * Get the service used to execute the graphs.
+     * @return the execution service
+     */
+    public GraphExecutionService getExecutionService() {
+        return this.executionService;
+    }
+
     /**
      * Evaluates the current graph.
+     * The graph is executed in background, see GraphExecutionService. The validated output signatures are handed
+     * to the GraphOptimizer, unless a validation is pending (they could be outdated).
      */
     public void evaluate() {
-        if (currentJob != null && !currentJob.isDone()) {
-            currentJob.cancel(true);
+        boolean validated = !isBusy();
+        validationTimer.stop();
+        cancelCurrentJob();
+        if (!executionService.execute(graph, id -> {
+            NodeGui node = validated ? getNode(id) : null;
+            return node != null ? node.getOutputSignature() : null;
+        })) {
+            NotificationManager.getInstance().warning("Graph Execution", "a graph is already running");
         }
-        GraphProcessor processor = new GraphProcessor();
-        try {
-            processor.executeGraph(graph, NotificationManager.getInstance());
-        } catch (GraphException e) {
-            NotificationManager.getInstance().error("Graph Execution", e.getMessage());
+    }
+
+    /**
+     * Evaluates the current graph once per input product.
+     * The graphs are executed in background, see BatchRunner.
+     * @param inputs input products
+     * @param targetFolder folder of the target products (null to keep the folder of the Write nodes)
+     * @param formatName format of the target products (null to keep the format of the Write nodes)
+     * @param keepSourceName name the target products after the inputs only, without the name of the Write nodes
+     * @param skipExisting skip the inputs whose target product already exists
+     */
+    public void evaluateBatch(File[] inputs, File targetFolder, String formatName, boolean keepSourceName,
+                              boolean skipExisting) {
+        validationTimer.stop();
+        cancelCurrentJob();
+        if (executionService.isRunning()) {
+            NotificationManager.getInstance().warning("Batch", "a graph is already running");
+        } else if (!executionService.executeBatch(graph, inputs, targetFolder, formatName, keepSourceName,
+                                                    skipExisting)) {
+            NotificationManager.getInstance().error("Batch", "the graph must have exactly one Read or "
+                    + "ProductSet-Reader node");
+        }
+    }
+
+    /**
+     * Evaluates the current graph split into regions, with the region count and overlap of the settings.
+     * The regions are executed in background by gpt processes, see PartitionRunner.
+     */
+    public void evaluatePartitioned() {
+        validationTimer.stop();
+        cancelCurrentJob();
+        SettingManager settings = SettingManager.getInstance();
+        if (executionService.isRunning()) {
+            NotificationManager.getInstance().warning("Partitioned execution", "a graph is already running");
+        } else if (!executionService.executePartitioned(graph, settings.getPartitionRegions(),
+                                                         settings.getPartitionOverlap())) {
+            NotificationManager.getInstance().error("Partitioned execution",
+                    "the graph must read a whole product with a single Read node and have a Write node");
         }
     }
 
+    /**
+     * Stop the execution of the current graph.
+     */
+    public void stopEvaluation() {
+        executionService.cancel();
+    }
+
     /**
      * Validate the full graph.
      * The validation will be done on a separate thread.
      */
     private void validate() {
-        ArrayList<NodeGui> sources = new ArrayList<>();
-        for (NodeGui n: nodes ){
-            if (n.isSource()) {
-                sources.add(n);
-            }
-        }
-        for (NodeGui n: sources) {
-            NotificationManager.getInstance().info("GraphManager", n.getName() + " initialized");
-            n.updateSources();
-            n.validate();
-        }
-        
-        if (sources.size() > 0) {
-            NotificationManager.getInstance().info("GraphManager", "validation of graph started...");
-            validate(sources.get(0));
-        }
+        NotificationManager.getInstance().info("GraphManager", "validation of graph started...");
+        validationEngine.markAllDirty();
+        scheduleValidation();
     }
 
     /**
-     * Validate a subset of the graph starting from the given node, including the node.
+     * Mark a node as changed and validate the part of the graph affected by the change.
      * The validation will be done on a separate thread.
-     * @param source root node of the sub-graph
+     * @param source changed node
      */
     private void validate(NodeGui source) {
-        validate(source, true);
+        validationEngine.markDirty(source);
+        scheduleValidation();
     }
 
     /**
-     * Validate a subset of the graph from the given node, including or not the given node.
-     * The validation will be done on a separate thread.
-     *
-     * @param source root node of the sub-graph
-     * @param sourceFlag validate root node or not
+     * Compute the products of nodes validated on their schema only (see NodeGui.materialize) on the validation pool.
+     * @param sources nodes to materialize
+     * @param done callback executed on the EDT once the products are available
      */
-    private void validate(NodeGui source, boolean sourceFlag) {
-        if (currentJob != null && !currentJob.isDone()) {
-            currentJob.cancel(true);
+    public void materialize(List<NodeGui> sources, Runnable done) {
+        validationEngine.submit(() -> {
+            try {
+                for (NodeGui n : sources) {
+                    n.materialize(CancellationToken.NONE);
+                }
+            } finally {
+                SwingUtilities.invokeLater(done);
+            }
+        });
+    }
+
+    /**
+     * Schedule a validation job, so that all the changes produced in a short window (e.g. deleting a node
+     * disconnects all its outputs, or several connections are dragged in a row) are collected by a single job.
+     */
+    private void scheduleValidation() {
+        if (validationTimer.isRunning()) {
+            coalescedRequests++;
+        }
+        validationTimer.restart();
+    }
+
+    /**
+     * Start a new validation job with the current dirty nodes, superseding the running one if any.
+     */
+    private void startValidation() {
+        if (!validationEngine.hasDirtyNodes()) {
+            return;
         }
-        
-        currentJob = new ValidateWorker(nodes, source, sourceFlag);
+        cancelCurrentJob();
+
+        currentJob = new ValidateWorker(validationEngine.plan());
         currentJob.execute();
     }
 
+    /**
+     * Cancel the running validation job. The job stops at the next node and the nodes it could not validate are
+     * handed over to the next job.
+     */
+    private void cancelCurrentJob() {
+        if (currentJob != null && !currentJob.isDone()) {
+            currentJob.token.cancel();
+            cancelledJobs++;
+        }
+    }
+
+    /**
+     * Number of validation jobs superseded by a newer job since the start of the application.
+     * @return cancelled jobs count
+     */
+    public int getCancelledJobs() {
+        return cancelledJobs;
+    }
+
+    /**
+     * Number of validation requests merged into an already scheduled job since the start of the application.
+     * @return coalesced requests count
+     */
+    public int getCoalescedRequests() {
+        return coalescedRequests;
+    }
+
+    /**
+     * Check if the graph is still being loaded or validated, including the validations scheduled but not started.
+     * To be called from the Event Dispatch Thread.
+     * @return true if a loading or validation is pending
+     */
+    public boolean isBusy() {
+        return (currentLoader != null && !currentLoader.isDone())
+                || validationTimer.isRunning()
+                || (currentJob != null && !currentJob.isDone())
+                || validationEngine.hasDirtyNodes();
+    }
+
     /**
      * remove a node and revalidate the part of graph affected.
      * @param source source of the event
@@ -455,8 +512,12 @@ public class GraphManager implements NodeListener {
         NodeGui srcNode = (NodeGui) source;
         NotificationManager.getInstance().info(srcNode.getName(), "Deleted");
         this.nodes.remove(srcNode);
+        this.nodeIndex.remove(srcNode.getName());
         this.graph.removeNode(srcNode.getName());
-        validate(srcNode, false);
+        ExecutionProfiler.getInstance().remove(srcNode.getName());
+        // outputs of the deleted node will be marked as changed when disconnected
+        this.graphIndex.remove(srcNode);
+        edited(srcNode.getName());
     }
 
     /**
@@ -467,22 +528,182 @@ public class GraphManager implements NodeListener {
     public void connectionAdded(Object source) {
         NodeGui srcNode = (NodeGui) source;
         NotificationManager.getInstance().info(srcNode.getName(), "Connected");
+        graphIndex.setSources(srcNode, srcNode.getIncomingConnections());
+        edited(srcNode.getName());
         // Try to revalidate graph
-        validate(srcNode, true);
+        validate(srcNode);
+    }
+
+    /**
+     * a connection has been removed, revalidate the part of the graph affected.
+     * @param source source of the event
+     */
+    @Override
+    public void connectionRemoved(Object source) {
+        NodeGui srcNode = (NodeGui) source;
+        NotificationManager.getInstance().info(srcNode.getName(), "Disconnected");
+        graphIndex.setSources(srcNode, srcNode.getIncomingConnections());
+        edited(srcNode.getName());
+        validate(srcNode);
     }
 
     @Override
     public void validateNode(Object node) {
+        // requested when the parameters of the node have been changed
+        history.markDirty(((NodeGui) node).getName());
+        journal.parametersChanged((NodeGui) node);
         validate((NodeGui)node);
     }
 
+    /**
+     * Notify that a node has been moved, so that its position is autosaved.
+     * @param node moved node
+     */
+    public void nodeMoved(NodeInterface node) {
+        edited(node.getName());
+    }
+
+    /**
+     * Record the edit of a node in the undo history and in the autosave journal.
+     * @param id node id
+     */
+    private void edited(String id) {
+        history.markDirty(id);
+        journal.markDirty(id);
+    }
+
+    /**
+     * Undo the last edit of the graph, only the nodes affected by the edit are validated again.
+     * @return false if there is nothing to undo
+     */
+    public boolean undo() {
+        return history.undo();
+    }
+
+    /**
+     * Redo the last undone edit of the graph.
+     * @return false if there is nothing to redo
+     */
+    public boolean redo() {
+        return history.redo();
+    }
+
+    /**
+     * Bring a set of nodes back to a recorded state, through the same operations used by the editor so that the
+     * validation and the journal follow.
+     * @param states node id -> state (null if the node must not exist)
+     */
+    private void restore(Map<String, UndoHistory.NodeState> states) {
+        // deleted first, their outputs are part of the same edit
+        for (Map.Entry<String, UndoHistory.NodeState> entry : states.entrySet()) {
+            NodeGui n = getNode(entry.getKey());
+            if (entry.getValue() == null && n != null) {
+                n.delete();
+            }
+        }
+        for (Map.Entry<String, UndoHistory.NodeState> entry : states.entrySet()) {
+            if (entry.getValue() != null && getNode(entry.getKey()) == null) {
+                restoreNode(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Map.Entry<String, UndoHistory.NodeState> entry : states.entrySet()) {
+            UndoHistory.NodeState state = entry.getValue();
+            NodeGui n = getNode(entry.getKey());
+            if (state == null || n == null) {
+                continue;
+            }
+            if (n.getX() != state.getX() || n.getY() != state.getY()) {
+                n.setPosition(state.getX(), state.getY());
+                journal.markDirty(n.getName());
+            }
+            if (n.getConfiguration() != state.getParameters()) {
+                n.setConfiguration(state.getParameters());
+            }
+            if (!n.getInputSources().equals(state.getSources())) {
+                n.removeConnections();
+                // each source goes back to its recorded input, unconnected inputs are kept
+                for (Map.Entry<Integer, String> source : state.getSources().entrySet()) {
+                    NodeGui sourceNode = getNode(source.getValue());
+                    if (sourceNode != null) {
+                        n.addConnection(sourceNode, source.getKey());
+                    }
+                }
+            }
+        }
+        triggerEvent();
+    }
+
+    /**
+     * Create again a deleted node with its original id.
+     * @param id node id
+     * @param state state of the node
+     */
+    private void restoreNode(String id, UndoHistory.NodeState state) {
+        UnifiedMetadata metadata = simpleMetadata.get(state.getOperator());
+        if (metadata == null) {
+            NotificationManager.getInstance().error("Graph", "Operator '" + state.getOperator() + "' not known.");
+            return;
+        }
+        Node node = new Node(id, state.getOperator());
+        node.setConfiguration(state.getConfiguration() != null ? state.getConfiguration()
+                                                               : new XppDomElement("parameters"));
+        this.graph.addNode(node);
+        OperatorUI ui = OperatorUIRegistry.CreateOperatorUI(metadata.getName());
+        NodeGui n = new NodeGui(node, state.getParameters(), metadata, ui);
+        n.setPosition(state.getX(), state.getY());
+        this.nodes.add(n);
+        indexNode(n);
+        this.graphIndex.add(n);
+        n.addNodeListener(this);
+        journal.markDirty(id);
+        validate(n);
+    }
+
+    /**
+     * Check if the previous session of the editor ended with unsaved edits, e.g. after a crash.
+     * @return true if the graph of the previous session can be recovered
+     */
+    public boolean hasRecoverableSession() {
+        return journal.hasSession();
+    }
+
+    /**
+     * Open the graph of the previous session, rebuilt from its last snapshot and its edit journal.
+     * @return false if the session could not be recovered
+     */
+    public boolean recoverSession() {
+        try {
+            File recovered = journal.recover();
+            openGraph(recovered);
+            recovering = true;
+            return true;
+        } catch (IOException | XMLStreamException e) {
+            NotificationManager.getInstance().error("Graph Recovery", "unable to recover the graph `"
+                    + e.getMessage() + "`");
+            journal.discard();
+            return false;
+        }
+    }
+
+    /**
+     * Delete the autosaved session, to be called when the unsaved edits are discarded on purpose.
+     */
+    public void discardSession() {
+        journal.discard();
+    }
+
     /**
      * Clean up current graph.
      */
     private void clearGraph() {
         NotificationManager.getInstance().info("GraphManager", "Clearing graph...");
+        journal.suspend();
+        history.suspend();
+        validationTimer.stop();
+        cancelCurrentJob();
         for (NodeGui n: nodes) {
             n.removeNodeListener(this);
+            n.dispose();
             this.graph.removeNode(n.getName());
         }
         if (this.graph.getNodeCount() > 0) {
@@ -493,6 +714,12 @@ public class GraphManager implements NodeListener {
             }
         }
         this.nodes.clear();
+        this.nodeIndex.clear();
+        this.idCounters.clear();
+        this.graphIndex.clear();
+        this.validationEngine.reset();
+        ExecutionProfiler.getInstance().clear();
+        ProductCache.getInstance().clear();
 
         NotificationManager.getInstance().info("GraphManager", "Clearing grapn done!");
     }
@@ -510,53 +737,159 @@ public class GraphManager implements NodeListener {
      * @param selectedFile file to open
      */
     public void openGraph(File selectedFile) {
+        if (currentLoader != null && !currentLoader.isDone()) {
+            currentLoader.token.cancel();
+        }
         clearGraph();
-        // TODO implement XML loading
+        recovering = false;
         NotificationManager.getInstance().processStart();
-        GraphLoadWorker worker = new GraphLoadWorker(selectedFile);
-        worker.execute();
+        currentLoader = new GraphLoadWorker(selectedFile);
+        currentLoader.execute();
     }
 
     /**
-     * Load a list of nodes and re-validate current graph.
-     * @param nodes nodes to be loaded
+     * Add a batch of loaded nodes to the current graph, so that they are displayed before the end of the loading.
+     * Nodes are not connected yet.
+     * @param nodes nodes to be added
+     * @return nodes actually added
      */
-    private void loadGraph(ArrayList<NodeGui> nodes) {
+    private List<NodeGui> loadNodes(List<NodeGui> nodes) {
+        ArrayList<NodeGui> added = new ArrayList<>(nodes.size());
         for (NodeGui n: nodes) {
-            n.addNodeListener(this);
+            try {
+                this.graph.addNode(n.getNode());
+            } catch (IllegalArgumentException e) {
+                NotificationManager.getInstance().error("Graph",
+                                                        "The node ID `" + n.getName() + "` exists already");
+                continue;
+            }
             this.nodes.add(n);
-            this.graph.addNode(n.getNode());
+            indexNode(n);
+            this.graphIndex.add(n);
+            added.add(n);
+        }
+        triggerEvent();
+        return added;
+    }
+
+    /**
+     * Complete the loading of the graph once all the nodes are connected and re-validate current graph.
+     * @param nodes loaded nodes
+     */
+    private void loadGraph(List<NodeGui> nodes) {
+        for (NodeGui n: nodes) {
+            n.addNodeListener(this);
+            this.graphIndex.setSources(n, n.getIncomingConnections());
         }
         NotificationManager.getInstance().processEnd();
         NotificationManager.getInstance().info("Graph", "Loaded and ready");
+        if (recovering) {
+            recovering = false;
+            journal.start();
+        } else {
+            journal.clean();
+        }
+        history.reset(this.nodes);
         triggerEvent();
         validate();
     }
 
     /**
-     * Save the current graph to file
+     * Save the current graph to file in background.
+     * An immutable snapshot of the graph and of the Presentation data is taken on the calling thread, so that the
+     * graph can still be edited while it is written. The graph is written to a temporary file next to the target and
+     * then renamed, so that a failure never leaves a truncated file.
      * @param f file where the graph will be saved
-     * @return the success of the operation
+     * @param callback called on the EDT once done, with the success of the operation
      */
-    public boolean saveGraph(File f) {
+    public void saveGraph(File f, Consumer<Boolean> callback) {
         NotificationManager.getInstance().processStart();
+        long editCount = journal.getEditCount();
+        new SaveWorker(snapshot(graph, nodes), f, success -> {
+            if (success) {
+                journal.saved(editCount);
+            }
+            if (callback != null) {
+                callback.accept(success);
+            }
+        }).execute();
+    }
+
+    /**
+     * Create a snapshot of a graph together with the Presentation data of its nodes.
+     * Node configurations are shared, as they are replaced and never modified by the NodeGui.
+     * @param graph graph to copy
+     * @param nodes nodes of the graph
+     * @return the snapshot
+     */
+    static Graph snapshot(Graph graph, Collection<NodeGui> nodes) {
+        Graph copy = GraphExecutionService.copyGraph(graph);
         XppDom presentationEl = new XppDom("applicationData");
         presentationEl.setAttribute("id", "Presentation");
         for (NodeGui n: nodes) {
             presentationEl.addChild(n.saveParameters());
         }
-        graph.setAppData("Presentation", presentationEl);
+        copy.setAppData("Presentation", presentationEl);
+        return copy;
+    }
+
+    /**
+     * Write a graph snapshot to file: the graph is written through a buffered writer to a temporary file in the same
+     * folder, synced to disk and atomically renamed into place. The file keeps the permissions of the file it
+     * replaces, a new file gets the default permissions of the user.
+     * @param snapshot graph to write
+     * @param f destination file
+     * @return number of bytes written
+     * @throws IOException if the file can not be written
+     */
+    static long writeGraph(Graph snapshot, File f) throws IOException {
+        Path target = f.getAbsoluteFile().toPath();
+        Path temp = createTempFile(target);
         try {
-            OutputStreamWriter fileWriter = new OutputStreamWriter(new FileOutputStream(f));
-            GraphIO.write(graph, fileWriter);
-            NotificationManager.getInstance().processEnd();
-            NotificationManager.getInstance().info("Graph Saver", "file saved `"+f.getName()+"`");
-            return true;
-        } catch (FileNotFoundException e){
-            NotificationManager.getInstance().processEnd();
-            NotificationManager.getInstance().error("Graph Saver", "file saving error `" + e.getMessage() + "`");
+            long size;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1),
+                                                   SAVE_BUFFER_SIZE);
+                GraphIO.write(snapshot, writer);
+                writer.flush();
+                size = channel.size();
+                channel.force(true);
+            }
+            if (Files.exists(target)) {
+                PosixFileAttributeView view = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+                if (view != null) {
+                    Files.setPosixFilePermissions(temp, view.readAttributes().permissions());
+                }
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return size;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Create an empty temporary file next to a target. Unlike Files.createTempFile, which restricts the file to its
+     * owner, the file gets the default permissions (umask) of a new file.
+     * @param target file to replace
+     * @return the temporary file
+     * @throws IOException if the file can not be created
+     */
+    static private Path createTempFile(Path target) throws IOException {
+        Random random = new Random();
+        while (true) {
+            Path temp = target.resolveSibling("." + target.getFileName() + "." + Long.toHexString(random.nextLong())
+                                                      + ".tmp");
+            try {
+                return Files.createFile(temp);
+            } catch (FileAlreadyExistsException e) {
+                // name taken, try another one
+            }
         }
-        return  false;
     }
 
     /**
@@ -567,90 +900,238 @@ public class GraphManager implements NodeListener {
         return appContext;
     }
 
+    /**
+     * Update the execution progress displayed by the nodes of the current graph.
+     */
+    private class ExecutionProgressListener implements ExecutionListener {
+        // executed node id -> ids of the nodes merged into it
+        private final HashMap<String, ArrayList<String>> shared = new HashMap<>();
+
+        @Override
+        public void executionStarted(String graphId) {
+            shared.clear();
+            for (NodeGui n : nodes) {
+                n.setExecutionProgress(0);
+            }
+            triggerEvent();
+        }
+
+        @Override
+        public void nodesMerged(Map<String, String> merged) {
+            for (Map.Entry<String, String> e : merged.entrySet()) {
+                shared.computeIfAbsent(e.getValue(), k -> new ArrayList<>()).add(e.getKey());
+                NodeGui n = getNode(e.getKey());
+                if (n != null) {
+                    n.setMergedInto(e.getValue());
+                }
+            }
+            NotificationManager.getInstance().info("Graph Execution", merged.size()
+                    + " duplicated node(s) merged");
+            triggerEvent();
+        }
+
+        @Override
+        public void nodeProgress(String nodeId, int value) {
+            // the node may have been deleted while the graph is running
+            NodeGui n = getNode(nodeId);
+            if (n != null) {
+                n.setExecutionProgress(value);
+            }
+            for (String id : shared.getOrDefault(nodeId, new ArrayList<>())) {
+                NodeGui m = getNode(id);
+                if (m != null) {
+                    m.setExecutionProgress(value);
+                }
+            }
+        }
+
+        @Override
+        public void tileProcessed(Rectangle tile, int done, int total) {
+            // nothing to display per tile
+        }
+
+        @Override
+        public void executionProgress(int value) {
+            triggerEvent();
+        }
+
+        @Override
+        public void executionEnded(boolean cancelled, String error) {
+            for (NodeGui n : nodes) {
+                n.setExecutionProgress(-1);
+                n.setMergedInto(null);
+            }
+            triggerEvent();
+        }
+    }
+
+    /**
+     * Worker used to store the operator metadata index.
+     */
+    private class IndexWorker extends SwingWorker<Void, Object> {
+        private final OperatorMetadataIndex index;
+
+        /**
+         * Initialize the worker to store an index already built.
+         * @param index index to store
+         */
+        IndexWorker(OperatorMetadataIndex index) {
+            this.index = index;
+        }
+
+        @Override
+        protected Void doInBackground() throws Exception {
+            index.save();
+            return null;
+        }
+
+        @Override
+        protected void done() {
+            try {
+                get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                SystemUtils.LOG.warning("Unable to store the operator index: " + e.getCause().getMessage());
+            }
+        }
+    }
+
+    /**
+     * Worker used to write a graph snapshot to file.
+     */
+    private class SaveWorker extends SwingWorker<Long, Object> {
+        private final Graph snapshot;
+        private final File file;
+        private final Consumer<Boolean> callback;
+        private final long start = System.currentTimeMillis();
+
+        /**
+         * Initialize the worker.
+         * @param snapshot graph snapshot to write
+         * @param file destination file
+         * @param callback called once done, with the success of the operation
+         */
+        SaveWorker(Graph snapshot, File file, Consumer<Boolean> callback) {
+            this.snapshot = snapshot;
+            this.file = file;
+            this.callback = callback;
+        }
+
+        @Override
+        protected Long doInBackground() throws Exception {
+            return writeGraph(snapshot, file);
+        }
+
+        @Override
+        protected void done() {
+            NotificationManager.getInstance().processEnd();
+            boolean success = false;
+            try {
+                long bytes = get();
+                NotificationManager.getInstance().info("Graph Saver", String.format(
+                        "file saved `%s` (%d KB in %d ms)", file.getName(), (bytes + 1023) / 1024,
+                        System.currentTimeMillis() - start));
+                success = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                NotificationManager.getInstance().error("Graph Saver",
+                                                        "file saving error `" + e.getCause().getMessage() + "`");
+            }
+            callback.accept(success);
+        }
+    }
+
     /**
      * Worker used to validate the graph or a part of it.
      * @author Martino Ferrari (CS Group)
      */
     private class ValidateWorker extends  SwingWorker<Boolean, Object> {
-        private final boolean validateSource;
-        private final ArrayList<NodeGui> nodes;
-        private final NodeGui source;
-
+        private final ValidationEngine.Plan plan;
+        private final CancellationToken token = new CancellationToken();
 
         /**
-         * Initialize the graph with all the needed informations.
-         * @param nodes current graph nodes
-         * @param source source of the changes to validate
-         * @param validateSource validate the source
+         * Initialize the worker with the validation plan to execute.
+         * @param plan snapshot of the nodes to validate
          */
-        ValidateWorker(ArrayList<NodeGui> nodes, NodeGui source, boolean validateSource) {
-            this.nodes = new ArrayList<>(nodes);
-            this.source = source;
-            this.validateSource = validateSource;
+        ValidateWorker(ValidationEngine.Plan plan) {
+            this.plan = plan;
         }
 
         @Override
         protected Boolean doInBackground() {
             NotificationManager.getInstance().processStart();
             NotificationManager.getInstance().info("Graph", "validation started");
-            if (this.validateSource) {
-                source.validate();
-            }
-            HashMap<Integer, HashSet<NodeGui>> orderedGraph = new HashMap<>();
-            int total = 0;
-            for (NodeGui n: nodes) {
-                if (n != source) {
-                    int dist = n.distance(source);
-                    if (dist > 0) {
-                        Integer key = dist;
-                        if (!orderedGraph.containsKey(key)) {
-                            orderedGraph.put(key, new HashSet<>());
-                        }
-                        orderedGraph.get(key).add(n);
-                        total ++;
-                    }
-                }
-            }
-            NotificationManager.getInstance().processEnd();
-            boolean status = true;
-            if (source.getValidationStatus() == NodeGui.ValidationStatus.ERROR) {
-                int i = 0;
-                for (Integer key: orderedGraph.keySet()) {
-                    for (NodeGui n: orderedGraph.get(key)) {
-                        i ++;
-                        NotificationManager.getInstance().progress((int)(i /(float) total) * 100);
-                        n.invalidate();
-                    }
-                }
-                status =false;
+            boolean status = validationEngine.run(plan, token);
+            if (token.isCancelled()) {
+                NotificationManager.getInstance().info("Graph", "validation superseded, "
+                        + plan.getValidatedCount() + " node(s) validated");
             } else {
-                int i = 0;
-                ArrayList<Integer> indexes = new ArrayList<>(orderedGraph.keySet());
-                Collections.sort(indexes);
-                for (Integer key: indexes) {
-                    for (NodeGui n: orderedGraph.get(key)) {
-                        i ++;
-                        NotificationManager.getInstance().progress((int)(i /(float) total) * 100);
-                        n.updateSources();
-                        n.validate();
-                    }
-                }
+                NotificationManager.getInstance().info("Graph", "validation done, "
+                        + plan.getValidatedCount() + " node(s) validated");
             }
-
             NotificationManager.getInstance().processEnd();
             triggerEvent();
             return status;
         }
+
+        @Override
+        protected void done() {
+            // the configurations are committed by the validation
+            journal.validated();
+        }
     }
 
 
     /**
      * Worker used to load a graph from file.
+     * The file is streamed by the GraphStreamReader: as soon as a node is read its configuration is parsed on a
+     * pool, as this step is independent for each node. Parsed nodes are published to the EDT in the order of the
+     * file, where their operator UI and NodeGui are created (operator UIs build Swing components), and they are added
+     * to the graph and displayed. Connections and positions are kept in a compact index and resolved in a second pass
+     * once all the nodes have been built.
      *
      * @author Martino Ferrari (CS Group)
      */
-    private class GraphLoadWorker extends SwingWorker<ArrayList<NodeGui>, Object> {
+    private class GraphLoadWorker extends SwingWorker<Integer, GraphLoadWorker.ParsedNode>
+            implements GraphStreamReader.Handler {
+        // provisional layout of the nodes, until the presentation positions are known
+        static private final int GRID_COLUMNS = 8;
+        static private final int GRID_X = 150;
+        static private final int GRID_Y = 80;
+
         private final File source;
+        private final CancellationToken token = new CancellationToken();
+        // node id -> source ids, filled on the worker thread and resolved in done()
+        private final HashMap<String, String[]> sources = new HashMap<>();
+        // node id -> presentation element, filled on the worker thread and resolved in done()
+        private final HashMap<String, XppDom> positions = new HashMap<>();
+        // nodes added to the graph, only accessed on the EDT
+        private final ArrayList<NodeGui> loaded = new ArrayList<>();
+        // nodes being parsed, in the order of the file, only accessed on the worker thread
+        private final ArrayDeque<Future<ParsedNode>> pending = new ArrayDeque<>();
+        private ExecutorService pool = null;
+        private volatile int progress = 0;
+        private int count = 0;
+
+        /**
+         * Graph node with its parsed configuration, ready to be built on the EDT.
+         */
+        private final class ParsedNode {
+            private final Node node;
+            private final Map<String, Object> configuration;
+            private final UnifiedMetadata metadata;
+            private final int position;
+
+            private ParsedNode(Node node, Map<String, Object> configuration, UnifiedMetadata metadata,
+                               int position) {
+                this.node = node;
+                this.configuration = configuration;
+                this.metadata = metadata;
+                this.position = position;
+            }
+        }
 
         /**
          * Initialize the worker with the file to load.
@@ -661,81 +1142,145 @@ public class GraphManager implements NodeListener {
         }
 
         @Override
-        protected ArrayList<NodeGui> doInBackground() throws Exception {
-            ArrayList<NodeGui> nodes = new ArrayList<>();
-            AtomicReference<Graph> graph = new AtomicReference<>();
-            try (InputStreamReader fileReader = new InputStreamReader(new FileInputStream(source))) {
-                graph.set(GraphIO.read(fileReader));
-            }
-
-            if (graph.get() != null) {
-
-                for (Node n : graph.get().getNodes()) {
-                    if (simpleMetadata.containsKey(n.getOperatorName())) {
-                        UnifiedMetadata meta = simpleMetadata.get(n.getOperatorName());
-                        OperatorUI ui = OperatorUIRegistry.CreateOperatorUI(meta.getName());
-                        Operator operator = GraphManager.getInstance().getOperator(meta);
-                        assert operator != null;
-                        NodeGui ng = new NodeGui(copyNode(n), getConfiguration(n), meta, ui, operator);
-                        nodes.add(ng);
-                    } else {
-                        NotificationManager.getInstance().error("Graph",
-                                                                "Operator '" + n.getOperatorName() +"' not known.");
-                    }
-                }
-                // Load position
-                final XppDom presentationXML = graph.get().getApplicationData("Presentation");
-                if (presentationXML != null) {
-                    for (XppDom el : presentationXML.getChildren()) {
-                        if (el.getName().equals("node")) {
-                            String id = el.getAttribute("id");
-                            for (NodeGui n: nodes) {
-                                if (n.getName().equals(id)) {
-                                    n.loadParameters(el);
-                                    break;
-                                }
-                            }
-                        }
-                    }
+        protected Integer doInBackground() throws Exception {
+            pool = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()));
+            try {
+                new GraphStreamReader(source).read(this, token);
+                while (!pending.isEmpty() && !token.isCancelled()) {
+                    publishNext();
                 }
-                //Connect nodes
-                for (Node n: graph.get().getNodes()) {
-                    int index = 0;
-
-                    NodeGui trgNode = null;
-                    for (NodeGui ng: nodes) {
-                        if (ng.getName().equals(n.getId())){
-                            trgNode = ng;
-                            break;
-                        }
-                    }
-                    if (trgNode != null) {
-                        for (NodeSource src: n.getSources()) {
-                            String id = src.getSourceNodeId();
-                            NodeGui srcNode = null;
-                            for (NodeGui ns: nodes) {
-                                if (ns.getName().equals(id)) {
-                                    srcNode = ns;
-                                    break;
-                                }
-                            }
-                            if (srcNode != null) {
-                                trgNode.addConnection(srcNode, index);
-                                index ++;
-                            }
-                        }
-                    }
+            } finally {
+                pool.shutdownNow();
+            }
+            return count;
+        }
+
+        @Override
+        public void node(Node n, String[] sourceIds, String[] sourceNames) {
+            final int position = count;
+            sources.put(n.getId(), sourceIds);
+            pending.add(pool.submit(() -> parseNode(n, position)));
+            count++;
+            // publish the nodes already built without breaking the order of the file
+            while (!pending.isEmpty() && pending.peek().isDone()) {
+                publishNext();
+            }
+        }
+
+        /**
+         * Wait for the first pending node and publish it.
+         */
+        private void publishNext() {
+            Future<ParsedNode> future = pending.poll();
+            try {
+                ParsedNode parsed = future.get();
+                if (parsed != null) {
+                    publish(parsed);
                 }
-                loadGraph(nodes);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                token.cancel();
+            } catch (ExecutionException e) {
+                NotificationManager.getInstance().error("Graph", "Unable to create node: " + e.getCause());
+            }
+        }
+
+        /**
+         * Parse the configuration of a graph node, executed on the pool.
+         * @param n graph node
+         * @param position position of the node in the file, used for the provisional layout
+         * @return the parsed node or null if the operator is not known
+         */
+        private ParsedNode parseNode(Node n, int position) {
+            UnifiedMetadata meta = simpleMetadata.get(n.getOperatorName());
+            if (meta == null) {
+                return new ParsedNode(n, null, null, position);
+            }
+            return new ParsedNode(n, getConfiguration(n), meta, position);
+        }
+
+        /**
+         * Build the NodeGui of a parsed node, executed on the EDT as the operator UIs create Swing components.
+         * @param parsed parsed node
+         * @return the NodeGui or null if the operator is not known
+         */
+        private NodeGui createNode(ParsedNode parsed) {
+            Node n = parsed.node;
+            if (parsed.metadata == null) {
+                NotificationManager.getInstance().error("Graph",
+                                                        "Operator '" + n.getOperatorName() +"' not known.");
+                return null;
             }
-            return nodes;
+            OperatorUI ui = OperatorUIRegistry.CreateOperatorUI(parsed.metadata.getName());
+            NodeGui ng = new NodeGui(n, parsed.configuration, parsed.metadata, ui);
+            ng.setPosition(30 + (parsed.position % GRID_COLUMNS) * GRID_X,
+                           30 + (parsed.position / GRID_COLUMNS) * GRID_Y);
+            return ng;
+        }
+
+        @Override
+        public void presentation(XppDom element) {
+            positions.put(element.getAttribute("id"), element);
         }
 
-        private Node copyNode(Node n) {
-            Node copy = new Node(n.getId(), n.getOperatorName());
-            copy.setConfiguration(n.getConfiguration());
+        @Override
+        public void progress(int value) {
+            progress = value;
+        }
+
+        @Override
+        protected void process(List<ParsedNode> chunk) {
+            if (token.isCancelled()) {
+                return;
+            }
+            ArrayList<NodeGui> built = new ArrayList<>(chunk.size());
+            for (ParsedNode parsed : chunk) {
+                NodeGui ng = createNode(parsed);
+                if (ng != null) {
+                    built.add(ng);
+                }
+            }
+            loaded.addAll(loadNodes(built));
+            NotificationManager.getInstance().progress(progress);
+        }
 
-            return copy;
+        @Override
+        protected void done() {
+            if (token.isCancelled()) {
+                return;
+            }
+            try {
+                get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                NotificationManager.getInstance().error("Graph",
+                                                        "Unable to load `" + source.getName() + "`: "
+                                                        + e.getCause().getMessage());
+            }
+            // Load position
+            for (NodeGui n: loaded) {
+                XppDom el = positions.get(n.getName());
+                if (el != null) {
+                    n.loadParameters(el);
+                }
+            }
+            //Connect nodes
+            for (NodeGui trgNode: loaded) {
+                int index = 0;
+                String[] sourceIds = sources.get(trgNode.getName());
+                if (sourceIds == null) {
+                    continue;
+                }
+                for (String id: sourceIds) {
+                    NodeGui srcNode = getNode(id);
+                    if (srcNode != null) {
+                        trgNode.addConnection(srcNode, index);
+                        index ++;
+                    }
+                }
+            }
+            loadGraph(loaded);
         }
     }
-}
\ No newline at end of file
+}
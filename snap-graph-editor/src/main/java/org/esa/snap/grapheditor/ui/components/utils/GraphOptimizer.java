@@ -0,0 +1,224 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.bc.ceres.binding.dom.DomElement;
+import org.esa.snap.core.gpf.graph.Graph;
+import org.esa.snap.core.gpf.graph.Node;
+import org.esa.snap.core.gpf.graph.NodeSource;
+import org.esa.snap.grapheditor.ui.components.utils.GraphRewriter.Rewrite;
+
+/**
+ * Optimizer of the graphs sent to the GraphProcessor.
+ * The optimizer works on an execution copy of the graph, the graph of the editor is never modified. Both
+ * optimizations can be disabled in the settings.
+ *
+ * Common subgraph elimination: two nodes with the same operator, the same canonical configuration and the same
+ * (already merged) sources compute the same product, so the second one is removed and its consumers read the first
+ * one. Visiting the nodes in topological order merges whole duplicated chains (e.g. Read, Subset, Calibration) in a
+ * single pass. Write nodes are never merged, each of them produces its own file.
+ *
+ * Graph rewrites: the GraphRewriter then fuses or removes nodes whose work can be done by their neighbours
+ * (BandMaths chains, nested Subsets, identity Resample/Reproject). Removed nodes are reported as merged as well.
+ */
+public class GraphOptimizer {
+    static private final String[] SIDE_EFFECTS = {"Write"};
+
+    private GraphOptimizer() {
+    }
+
+    /**
+     * Optimize an execution copy of a graph, without the rewrites depending on the validated products.
+     * @param graph graph to optimize (not modified)
+     * @return optimized copy and merged nodes
+     */
+    static public Result optimize(Graph graph) {
+        return optimize(graph, id -> null);
+    }
+
+    /**
+     * Optimize an execution copy of a graph.
+     * @param graph graph to optimize (not modified)
+     * @param signatures node id -> validated output signature (null if unknown)
+     * @return optimized copy, merged nodes and applied rewrites
+     */
+    static public Result optimize(Graph graph, Function<String, ProductSignature> signatures) {
+        Node[] nodes = topologicalOrder(graph);
+        if (nodes == null) {
+            // cycles are reported by the GraphProcessor
+            return new Result(GraphExecutionService.copyGraph(graph), Collections.emptyMap(),
+                              Collections.emptyList());
+        }
+        boolean merge = SettingManager.getInstance().isMergeDuplicatesEnabled();
+        Graph copy = new Graph(graph.getId());
+        // node id -> id of the node that replaces it in the copy
+        LinkedHashMap<String, String> merged = new LinkedHashMap<>();
+        HashMap<String, String> canonical = new HashMap<>();
+        for (Node node : nodes) {
+            NodeSource[] sources = node.getSources();
+            String[] names = new String[sources.length];
+            String[] ids = new String[sources.length];
+            for (int i = 0; i < sources.length; i++) {
+                names[i] = sources[i].getName();
+                ids[i] = merged.getOrDefault(sources[i].getSourceNodeId(), sources[i].getSourceNodeId());
+            }
+            if (merge && !Arrays.asList(SIDE_EFFECTS).contains(node.getOperatorName())) {
+                String key = key(node, names, ids);
+                String twin = canonical.putIfAbsent(key, node.getId());
+                if (twin != null) {
+                    merged.put(node.getId(), twin);
+                    continue;
+                }
+            }
+            Node n = new Node(node.getId(), node.getOperatorName());
+            n.setConfiguration(node.getConfiguration());
+            for (int i = 0; i < sources.length; i++) {
+                n.addSource(new NodeSource(names[i], ids[i]));
+            }
+            copy.addNode(n);
+        }
+        List<Rewrite> rewrites = Collections.emptyList();
+        if (SettingManager.getInstance().isGraphRewriteEnabled()) {
+            rewrites = GraphRewriter.getInstance().rewrite(copy, signatures, merged);
+        }
+        return new Result(copy, merged, rewrites);
+    }
+
+    /**
+     * Canonical identity of a node: operator, configuration and sources sorted by input name.
+     */
+    static private String key(Node node, String[] names, String[] ids) {
+        StringBuilder builder = new StringBuilder(node.getOperatorName()).append('\n');
+        Integer[] order = new Integer[names.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(i -> names[i]));
+        for (int i : order) {
+            builder.append(names[i]).append('=').append(ids[i]).append('\n');
+        }
+        canonicalize(node.getConfiguration(), builder);
+        return builder.toString();
+    }
+
+    /**
+     * Write a configuration element in canonical form: values are trimmed, attributes and children are sorted by
+     * name (repeated children keep their relative order, as they are list items).
+     * @param element configuration element (may be null)
+     * @param builder output
+     */
+    static void canonicalize(DomElement element, StringBuilder builder) {
+        if (element == null) {
+            return;
+        }
+        builder.append('<').append(element.getName());
+        String[] attributes = element.getAttributeNames();
+        if (attributes != null) {
+            attributes = attributes.clone();
+            Arrays.sort(attributes);
+            for (String attribute : attributes) {
+                builder.append(' ').append(attribute).append("=\"").append(element.getAttribute(attribute))
+                       .append('"');
+            }
+        }
+        builder.append('>');
+        DomElement[] children = element.getChildren().clone();
+        if (children.length == 0) {
+            String value = element.getValue();
+            builder.append(value != null ? value.trim() : "");
+        } else {
+            // stable sort
+            Arrays.sort(children, Comparator.comparing(DomElement::getName));
+            for (DomElement child : children) {
+                canonicalize(child, builder);
+            }
+        }
+        builder.append("</>");
+    }
+
+    /**
+     * Sort the nodes so that each node follows its sources.
+     * @param graph graph to sort
+     * @return nodes in topological order, or null if the graph has a cycle or a missing source
+     */
+    static private Node[] topologicalOrder(Graph graph) {
+        Node[] nodes = graph.getNodes();
+        HashMap<String, Integer> pending = new HashMap<>();
+        HashMap<String, ArrayList<Node>> consumers = new HashMap<>();
+        ArrayDeque<Node> ready = new ArrayDeque<>();
+        for (Node node : nodes) {
+            pending.put(node.getId(), node.getSources().length);
+        }
+        for (Node node : nodes) {
+            for (NodeSource source : node.getSources()) {
+                if (!pending.containsKey(source.getSourceNodeId())) {
+                    return null;
+                }
+                consumers.computeIfAbsent(source.getSourceNodeId(), k -> new ArrayList<>()).add(node);
+            }
+            if (node.getSources().length == 0) {
+                ready.add(node);
+            }
+        }
+        Node[] order = new Node[nodes.length];
+        int count = 0;
+        while (!ready.isEmpty()) {
+            Node node = ready.poll();
+            order[count++] = node;
+            for (Node consumer : consumers.getOrDefault(node.getId(), new ArrayList<>())) {
+                if (pending.merge(consumer.getId(), -1, Integer::sum) == 0) {
+                    ready.add(consumer);
+                }
+            }
+        }
+        return count == nodes.length ? order : null;
+    }
+
+    /**
+     * Optimized graph, nodes merged into other nodes and applied rewrites.
+     */
+    static public final class Result {
+        private final Graph graph;
+        private final Map<String, String> merged;
+        private final List<Rewrite> rewrites;
+
+        private Result(Graph graph, Map<String, String> merged, List<Rewrite> rewrites) {
+            this.graph = graph;
+            this.merged = merged;
+            this.rewrites = rewrites;
+        }
+
+        /**
+         * Optimized execution copy.
+         * @return graph to execute
+         */
+        public Graph getGraph() {
+            return graph;
+        }
+
+        /**
+         * Nodes removed from the copy.
+         * @return removed node id -> id of the node computing the same product
+         */
+        public Map<String, String> getMerged() {
+            return merged;
+        }
+
+        /**
+         * Rewrites applied to the copy, with their estimated savings.
+         * @return rewrites
+         */
+        public List<Rewrite> getRewrites() {
+            return rewrites;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.gpf.graph.Graph;
+import org.esa.snap.core.gpf.graph.Node;
+import org.esa.snap.core.gpf.graph.NodeSource;
+
+/**
+ * Rule based rewriter of the execution copy of a graph (see GraphOptimizer).
+ * Each rule looks at a single node and its neighbourhood and may rewrite it, for instance fusing it with its source.
+ * Rules are applied until none of them matches anymore. Every rewrite reports the intermediate product it avoids,
+ * as an estimate of the tiles and bytes that are not computed anymore.
+ *
+ * Built-in rules are listed in RewriteRules, other rules can be registered. Rules must never modify the
+ * configuration elements of the nodes, which are shared with the editor: rewritten nodes get new configurations.
+ */
+public class GraphRewriter {
+    // default tile size of the SNAP images
+    static private final int TILE_SIZE = 512;
+
+    static private GraphRewriter instance = null;
+
+    private final CopyOnWriteArrayList<Rule> rules = new CopyOnWriteArrayList<>();
+
+    private GraphRewriter() {
+        rules.add(new RewriteRules.FuseBandMaths());
+        rules.add(new RewriteRules.CollapseSubsets());
+        rules.add(new RewriteRules.RemoveIdentityGrid());
+    }
+
+    /**
+     * Access the GraphRewriter instance.
+     * @return the instance
+     */
+    static public synchronized GraphRewriter getInstance() {
+        if (instance == null) {
+            instance = new GraphRewriter();
+        }
+        return instance;
+    }
+
+    /**
+     * Register a new rule, applied after the existing ones.
+     * @param rule rewrite rule
+     */
+    public void register(Rule rule) {
+        rules.add(rule);
+    }
+
+    /**
+     * Rewrite a graph in place.
+     * @param graph execution copy of a graph
+     * @param signatures node id -> validated output signature (null if unknown)
+     * @param removed removed node id -> id of the node computing its product, updated with the removed nodes
+     * @return the applied rewrites
+     */
+    public List<Rewrite> rewrite(Graph graph, Function<String, ProductSignature> signatures,
+                                 Map<String, String> removed) {
+        ArrayList<Rewrite> rewrites = new ArrayList<>();
+        Context context = new Context(graph, signatures, removed);
+        // every rewrite removes a node, so the loop ends
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            context.index();
+            for (Node node : graph.getNodes()) {
+                for (Rule rule : rules) {
+                    Rewrite rewrite = rule.apply(node, context);
+                    if (rewrite != null) {
+                        rewrites.add(rewrite);
+                        changed = true;
+                        break;
+                    }
+                }
+                if (changed) {
+                    break;
+                }
+            }
+        }
+        return rewrites;
+    }
+
+    /**
+     * Rewrite rule.
+     */
+    public interface Rule {
+        /**
+         * Try to rewrite a node.
+         * @param node node of the graph
+         * @param context graph being rewritten
+         * @return the applied rewrite, or null if the rule does not match (the graph must not be modified then)
+         */
+        Rewrite apply(Node node, Context context);
+    }
+
+    /**
+     * Graph being rewritten, with the helpers used by the rules.
+     */
+    static public final class Context {
+        private final Graph graph;
+        private final Function<String, ProductSignature> signatures;
+        private final Map<String, String> removed;
+        private final HashMap<String, ArrayList<Node>> consumers = new HashMap<>();
+
+        private Context(Graph graph, Function<String, ProductSignature> signatures, Map<String, String> removed) {
+            this.graph = graph;
+            this.signatures = signatures;
+            this.removed = removed;
+        }
+
+        private void index() {
+            consumers.clear();
+            for (Node node : graph.getNodes()) {
+                for (NodeSource source : node.getSources()) {
+                    consumers.computeIfAbsent(source.getSourceNodeId(), k -> new ArrayList<>()).add(node);
+                }
+            }
+        }
+
+        public Node getNode(String id) {
+            return graph.getNode(id);
+        }
+
+        /**
+         * Get the single source of a node.
+         * @param node node
+         * @return the source node, or null if the node does not have exactly one source
+         */
+        public Node getSingleSource(Node node) {
+            return node.getSources().length == 1 ? graph.getNode(node.getSource(0).getSourceNodeId()) : null;
+        }
+
+        /**
+         * Nodes reading the output of a node.
+         * @param id node id
+         * @return consumers (empty if the node is an output of the graph)
+         */
+        public List<Node> getConsumers(String id) {
+            return consumers.getOrDefault(id, new ArrayList<>());
+        }
+
+        /**
+         * Output signature of a node, as validated in the editor. Not available for nodes that have not been
+         * validated and for batch executions, where the inputs change at each execution.
+         * @param id node id
+         * @return signature or null
+         */
+        public ProductSignature getSignature(String id) {
+            return signatures.apply(id);
+        }
+
+        /**
+         * Replace a source of a node.
+         * @param node consumer
+         * @param sourceId id of the current source
+         * @param replacementId id of the new source
+         */
+        public void replaceSource(Node node, String sourceId, String replacementId) {
+            NodeSource[] sources = node.getSources();
+            for (NodeSource source : sources) {
+                node.removeSource(source);
+            }
+            for (NodeSource source : sources) {
+                String id = source.getSourceNodeId().equals(sourceId) ? replacementId : source.getSourceNodeId();
+                node.addSource(new NodeSource(source.getName(), id));
+            }
+        }
+
+        /**
+         * Remove a node, its consumers read the replacement node instead.
+         * @param id id of the node to remove
+         * @param replacementId id of the node computing the same product, or the node absorbing it
+         */
+        public void remove(String id, String replacementId) {
+            for (Node consumer : getConsumers(id)) {
+                if (!consumer.getId().equals(replacementId)) {
+                    replaceSource(consumer, id, replacementId);
+                }
+            }
+            graph.removeNode(id);
+            for (Map.Entry<String, String> e : removed.entrySet()) {
+                if (e.getValue().equals(id)) {
+                    e.setValue(replacementId);
+                }
+            }
+            removed.put(id, replacementId);
+        }
+    }
+
+    /**
+     * Outcome of a rule.
+     */
+    static public final class Rewrite {
+        private final String rule;
+        private final String description;
+        private final long tiles;
+        private final long bytes;
+
+        /**
+         * Create a rewrite report.
+         * @param rule rule name
+         * @param description what has been rewritten
+         * @param avoided signature of the intermediate product that is not computed anymore (null if unknown)
+         */
+        public Rewrite(String rule, String description, ProductSignature avoided) {
+            this.rule = rule;
+            this.description = description;
+            if (avoided == null) {
+                tiles = -1;
+                bytes = -1;
+            } else {
+                long tilesPerBand = (long) ((avoided.getWidth() + TILE_SIZE - 1) / TILE_SIZE)
+                        * ((avoided.getHeight() + TILE_SIZE - 1) / TILE_SIZE);
+                long pixelBytes = 0;
+                for (int type : avoided.getBandTypes()) {
+                    pixelBytes += ProductData.getElemSize(type);
+                }
+                tiles = tilesPerBand * avoided.getBandTypes().length;
+                bytes = (long) avoided.getWidth() * avoided.getHeight() * pixelBytes;
+            }
+        }
+
+        public String getRule() {
+            return rule;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * Estimated number of tiles not computed anymore.
+         * @return tiles (-1 if unknown)
+         */
+        public long getTiles() {
+            return tiles;
+        }
+
+        /**
+         * Estimated size of the intermediate product not computed anymore.
+         * @return bytes (-1 if unknown)
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            if (tiles < 0) {
+                return rule + ": " + description;
+            }
+            return String.format(Locale.ENGLISH, "%s: %s (saves %d tiles, %.1f MB)", rule, description, tiles,
+                                 bytes / (1024.0 * 1024.0));
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.bc.ceres.binding.dom.XppDomElement;
+import com.thoughtworks.xstream.io.xml.xppdom.XppDom;
+import org.esa.snap.core.gpf.graph.Node;
+
+/**
+ * Streaming reader of GPF graph files based on StAX.
+ * Differently from GraphIO, the reader does not build the whole Graph in memory: each node is handed over to the
+ * Handler as soon as its element is closed, so that the nodes can be displayed while the rest of the file is still
+ * being read. The sources of a node are returned as plain lists of ids and names and the Presentation elements are
+ * returned as they are, the caller is in charge of resolving them once all nodes are known.
+ */
+public class GraphStreamReader {
+    private final File source;
+
+    /**
+     * Receiver of the elements of the graph.
+     */
+    public interface Handler {
+        /**
+         * A node has been read.
+         * @param node graph node with its configuration (sources are not set)
+         * @param sourceIds ids of the source nodes, in the order of the file
+         * @param sourceNames names of the sources (e.g. sourceProduct), in the same order
+         */
+        void node(Node node, String[] sourceIds, String[] sourceNames);
+
+        /**
+         * A node element of the Presentation application data has been read.
+         * @param element presentation element (its id attribute is the node id)
+         */
+        void presentation(XppDom element);
+
+        /**
+         * Update of the reading progress.
+         * @param value progress (0-100)
+         */
+        void progress(int value);
+    }
+
+    /**
+     * Initialize the reader.
+     * @param file graph file to read
+     */
+    public GraphStreamReader(File file) {
+        this.source = file;
+    }
+
+    /**
+     * Read the graph file and notify the handler of every node and presentation element.
+     * @param handler receiver of the graph elements
+     * @param token cancellation token, checked after each top level element
+     * @throws IOException if the file can not be read
+     * @throws XMLStreamException if the file is not a valid XML document
+     */
+    public void read(Handler handler, CancellationToken token) throws IOException, XMLStreamException {
+        final long length = Math.max(1, source.length());
+        try (CountingInputStream input =
+                     new CountingInputStream(new BufferedInputStream(new FileInputStream(source)))) {
+            XMLStreamReader reader = createFactory().createXMLStreamReader(input);
+            try {
+                int lastProgress = -1;
+                // move to the graph element
+                while (reader.hasNext() && reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    // prolog
+                }
+                while (reader.hasNext() && !token.isCancelled()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String name = reader.getLocalName();
+                        if (name.equals("node")) {
+                            readNode(reader, handler);
+                        } else if (name.equals("applicationData")
+                                && "Presentation".equals(reader.getAttributeValue(null, "id"))) {
+                            readPresentation(reader, handler);
+                        } else {
+                            skip(reader);
+                        }
+                        int progress = (int) (100 * input.getCount() / length);
+                        if (progress != lastProgress) {
+                            lastProgress = progress;
+                            handler.progress(progress);
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Create the StAX factory, external entities are not supported.
+     * @return the input factory
+     */
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    /**
+     * Read a node element, the reader has to be positioned on its start element.
+     * @param reader xml reader
+     * @param handler receiver of the node
+     * @throws XMLStreamException if the element is malformed
+     */
+    private static void readNode(XMLStreamReader reader, Handler handler) throws XMLStreamException {
+        final String id = reader.getAttributeValue(null, "id");
+        String operator = null;
+        XppDom parameters = null;
+        ArrayList<String> sources = new ArrayList<>();
+        ArrayList<String> sourceNames = new ArrayList<>();
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            switch (reader.getLocalName()) {
+                case "operator":
+                    operator = reader.getElementText().trim();
+                    break;
+                case "sources":
+                    readSources(reader, sources, sourceNames);
+                    break;
+                case "parameters":
+                    parameters = readDom(reader);
+                    break;
+                default:
+                    skip(reader);
+            }
+        }
+        if (id == null || operator == null) {
+            NotificationManager.getInstance().warning("Graph", "malformed node `" + id + "` ignored");
+            return;
+        }
+        Node node = new Node(id, operator);
+        node.setConfiguration(new XppDomElement(parameters != null ? parameters : new XppDom("parameters")));
+        handler.node(node, sources.toArray(new String[0]), sourceNames.toArray(new String[0]));
+    }
+
+    /**
+     * Read the sources of a node. As in GraphIO a source is either referenced by the refid attribute or by the text
+     * of the element.
+     * @param reader xml reader positioned on the sources start element
+     * @param sources list where the source ids are added
+     * @param names list where the source names are added
+     * @throws XMLStreamException if the element is malformed
+     */
+    private static void readSources(XMLStreamReader reader, ArrayList<String> sources, ArrayList<String> names)
+            throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                names.add(reader.getLocalName());
+                String refId = reader.getAttributeValue(null, "refid");
+                String text = reader.getElementText().trim();
+                sources.add(refId != null ? refId : text);
+            }
+        }
+    }
+
+    /**
+     * Read the Presentation application data, the reader has to be positioned on its start element.
+     * @param reader xml reader
+     * @param handler receiver of the presentation elements
+     * @throws XMLStreamException if the element is malformed
+     */
+    private static void readPresentation(XMLStreamReader reader, Handler handler) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (reader.getLocalName().equals("node")) {
+                    handler.presentation(readDom(reader));
+                } else {
+                    skip(reader);
+                }
+            }
+        }
+    }
+
+    /**
+     * Parse a XML fragment into a XppDom, with the same rules used for the node configurations.
+     * @param xml XML fragment with a single root element
+     * @return the root element as XppDom
+     * @throws XMLStreamException if the fragment is malformed
+     */
+    static XppDom readDom(String xml) throws XMLStreamException {
+        XMLStreamReader reader = createFactory().createXMLStreamReader(new StringReader(xml));
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    return readDom(reader);
+                }
+            }
+            throw new XMLStreamException("no element found");
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Convert the current element into a XppDom. As done by XStream the text of an element is kept only if the
+     * element has no children.
+     * @param reader xml reader positioned on a start element
+     * @return the element as XppDom
+     * @throws XMLStreamException if the element is malformed
+     */
+    private static XppDom readDom(XMLStreamReader reader) throws XMLStreamException {
+        XppDom dom = new XppDom(reader.getLocalName());
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            dom.setAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+        }
+        StringBuilder text = new StringBuilder();
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                dom.addChild(readDom(reader));
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                text.append(reader.getText());
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+        }
+        if (dom.getChildCount() == 0 && text.length() > 0) {
+            dom.setValue(text.toString());
+        }
+        return dom;
+    }
+
+    /**
+     * Skip the current element and all its children.
+     * @param reader xml reader positioned on a start element
+     * @throws XMLStreamException if the element is malformed
+     */
+    private static void skip(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Input stream counting the bytes read, used to report the progress.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long count = 0;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Execution profile of a single node, collected by the ExecutionProfiler.
+ * Tiles are computed concurrently by the GPF tile scheduler, all the counters are therefore atomic.
+ */
+public class NodeProfile {
+    private final AtomicLong tileCount = new AtomicLong();
+    private final AtomicLong tileNanos = new AtomicLong();
+    private final AtomicLong bytesProduced = new AtomicLong();
+    private final AtomicLong firstStart = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong lastEnd = new AtomicLong(Long.MIN_VALUE);
+    private volatile long validationNanos = -1;
+    // tiles of the grid of the node computed at least once, whatever the band
+    private final BitSet gridTiles = new BitSet();
+    private int gridSize = 0;
+
+    /**
+     * Record a computed tile.
+     * @param startNanos computation start (System.nanoTime)
+     * @param endNanos computation end (System.nanoTime)
+     * @param bytes size of the tile
+     */
+    void tileComputed(long startNanos, long endNanos, long bytes) {
+        tileCount.incrementAndGet();
+        tileNanos.addAndGet(endNanos - startNanos);
+        bytesProduced.addAndGet(bytes);
+        firstStart.accumulateAndGet(startNanos, Math::min);
+        lastEnd.accumulateAndGet(endNanos, Math::max);
+    }
+
+    /**
+     * Record the position of a computed tile in the tile grid of the node.
+     * @param index index of the tile in the grid (row major)
+     * @param size number of tiles of the grid
+     */
+    synchronized void tilePosition(int index, int size) {
+        gridTiles.set(index);
+        gridSize = Math.max(gridSize, size);
+    }
+
+    /**
+     * Progress of the node during an execution: fraction of its tile grid already computed.
+     * @return progress (0-100), -1 if no tile of the node has been observed
+     */
+    public synchronized int getTileProgress() {
+        if (gridSize == 0) {
+            return -1;
+        }
+        return (int) Math.min(100, 100L * gridTiles.cardinality() / gridSize);
+    }
+
+    /**
+     * Record the duration of the last validation of the node (initialization of the operator).
+     * @param nanos duration in nanoseconds
+     */
+    void setValidationNanos(long nanos) {
+        this.validationNanos = nanos;
+    }
+
+    /**
+     * Number of tiles computed.
+     * @return tile count
+     */
+    public long getTileCount() {
+        return tileCount.get();
+    }
+
+    /**
+     * Total computation time of the tiles, summed over all the threads.
+     * @return time in nanoseconds
+     */
+    public long getTileNanos() {
+        return tileNanos.get();
+    }
+
+    /**
+     * Bytes produced by the node, i.e. the raster data of the computed tiles.
+     * @return number of bytes
+     */
+    public long getBytesProduced() {
+        return bytesProduced.get();
+    }
+
+    /**
+     * Wall time of the node, from the start of its first tile to the end of its last tile.
+     * @return time in nanoseconds (0 if no tile has been computed)
+     */
+    public long getWallNanos() {
+        long start = firstStart.get();
+        long end = lastEnd.get();
+        return end > start ? end - start : 0;
+    }
+
+    /**
+     * Duration of the last validation.
+     * @return time in nanoseconds (-1 if the node has not been validated)
+     */
+    public long getValidationNanos() {
+        return validationNanos;
+    }
+
+    /**
+     * Human readable profile, one entry per line.
+     * @return profile description
+     */
+    public String describe() {
+        StringBuilder builder = new StringBuilder();
+        if (validationNanos >= 0) {
+            builder.append(String.format(Locale.ENGLISH, "validation: %.3fs", validationNanos / 1e9));
+        }
+        if (getTileCount() > 0) {
+            if (builder.length() > 0) {
+                builder.append('\n');
+            }
+            builder.append(String.format(Locale.ENGLISH, "wall time: %.3fs\ntiles: %d in %.3fs\nproduced: %s",
+                                         getWallNanos() / 1e9, getTileCount(), getTileNanos() / 1e9,
+                                         formatBytes(getBytesProduced())));
+        }
+        return builder.toString();
+    }
+
+    static private String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        int exp = (int) (Math.log(bytes) / Math.log(1024));
+        return String.format(Locale.ENGLISH, "%.1f %sB", bytes / Math.pow(1024, exp), "KMGTPE".charAt(exp - 1));
+    }
+}
@@ -3,7 +3,9 @@ package org.esa.snap.grapheditor.ui.components.utils;
 import com.bc.ceres.core.ProgressMonitor;
 import org.esa.snap.grapheditor.ui.components.interfaces.NotificationListener;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 
 /**
  * Simple Notification Manager, used to dispatch the notification to all interested parties. It also implements the
@@ -15,6 +17,8 @@ public class NotificationManager implements ProgressMonitor {
     static private NotificationManager instance = null;
 
     private final HashSet<NotificationListener> listeners = new HashSet<>();
+    // Notifications captured by the current thread, used to keep the order of parallel tasks notifications.
+    private final ThreadLocal<List<Notification>> captured = new ThreadLocal<>();
     // Maybe for future applications. In case we want to store log history.
     // private ArrayList<Notification> notifications = new ArrayList<>();
 
@@ -28,12 +32,44 @@ public class NotificationManager implements ProgressMonitor {
      * @param n new notification
      */
     private void notify(Notification n) {
+        List<Notification> buffer = captured.get();
+        if (buffer != null) {
+            buffer.add(n);
+            return;
+        }
         // this.notifications.add(n); // see line #13
         for (NotificationListener l: listeners) {
             l.notificationIncoming(n);
         }
     }
 
+    /**
+     * Start capturing the notifications sent by the current thread instead of dispatching them.
+     */
+    void startCapture() {
+        captured.set(new ArrayList<>());
+    }
+
+    /**
+     * Stop capturing the notifications of the current thread.
+     * @return the captured notifications
+     */
+    List<Notification> stopCapture() {
+        List<Notification> buffer = captured.get();
+        captured.remove();
+        return buffer == null ? new ArrayList<>() : buffer;
+    }
+
+    /**
+     * Dispatch a list of previously captured notifications, in order.
+     * @param notifications notifications to dispatch
+     */
+    void publish(List<Notification> notifications) {
+        for (Notification n : notifications) {
+            notify(n);
+        }
+    }
+
     /**
      * Add new listener to the notification Manager
      * @param l new listener
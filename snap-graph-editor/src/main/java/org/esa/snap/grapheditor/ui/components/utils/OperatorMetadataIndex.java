@@ -0,0 +1,141 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+
+import org.esa.snap.core.gpf.OperatorSpi;
+import org.esa.snap.core.gpf.OperatorSpiRegistry;
+import org.esa.snap.core.gpf.annotations.OperatorMetadata;
+import org.esa.snap.core.gpf.descriptor.OperatorDescriptor;
+import org.esa.snap.core.util.SystemUtils;
+import org.openide.modules.ModuleInfo;
+import org.openide.util.Lookup;
+
+/**
+ * Persistent index of the operator metadata.
+ * Extracting the UnifiedMetadata of every operator requires the reflection of all the operator classes, which slows
+ * down the start of the editor when many toolboxes are installed. The extracted metadata are serialized in the SNAP
+ * user directory together with a fingerprint of the installed modules and of the registered operator SPIs, so that
+ * the index is rebuilt only when the set of operators may have changed.
+ */
+public class OperatorMetadataIndex {
+    static private final String INDEX_FILE = "graph-builder" + File.separator + "operator-index.ser";
+
+    private final String fingerprint;
+    private final HashMap<String, UnifiedMetadata> metadata;
+
+    /**
+     * Create an index.
+     * @param fingerprint fingerprint of the installed modules
+     * @param metadata operator alias -> metadata
+     */
+    public OperatorMetadataIndex(String fingerprint, HashMap<String, UnifiedMetadata> metadata) {
+        this.fingerprint = fingerprint;
+        this.metadata = metadata;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public HashMap<String, UnifiedMetadata> getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Compute the fingerprint of the installed modules (names, versions and status) and of the operator SPIs of the
+     * registry, which also covers the operators registered outside of the NetBeans modules.
+     * @param registry operator SPI registry
+     * @return modules and operators fingerprint
+     */
+    static public String computeFingerprint(OperatorSpiRegistry registry) {
+        ArrayList<String> modules = new ArrayList<>();
+        for (ModuleInfo module : Lookup.getDefault().lookupAll(ModuleInfo.class)) {
+            modules.add(module.getCodeNameBase() + "@" + module.getSpecificationVersion()
+                                + "/" + module.getImplementationVersion() + (module.isEnabled() ? "+" : "-"));
+        }
+        Collections.sort(modules);
+        ArrayList<String> spis = new ArrayList<>();
+        for (OperatorSpi opSpi : registry.getOperatorSpis()) {
+            spis.add(opSpi.getClass().getName() + "=" + opSpi.getOperatorAlias());
+        }
+        Collections.sort(spis);
+        return String.join(";", modules) + "|" + String.join(";", spis);
+    }
+
+    /**
+     * Extract the metadata of all the public operators of the registry.
+     * @param registry operator SPI registry
+     * @return operator alias -> metadata
+     */
+    static public HashMap<String, UnifiedMetadata> build(OperatorSpiRegistry registry) {
+        HashMap<String, UnifiedMetadata> metadata = new HashMap<>();
+        for (final OperatorSpi opSpi : registry.getOperatorSpis()) {
+            OperatorDescriptor descriptor = opSpi.getOperatorDescriptor();
+            if (descriptor != null && !descriptor.isInternal()) {
+                OperatorMetadata operatorMetadata = opSpi.getOperatorClass().getAnnotation(OperatorMetadata.class);
+                Field[] fields = opSpi.getOperatorClass().getDeclaredFields();
+                metadata.put(operatorMetadata.alias(), new UnifiedMetadata(operatorMetadata, descriptor, fields));
+            }
+        }
+        return metadata;
+    }
+
+    /**
+     * Load the index from the user directory.
+     * @return the stored index or null if it does not exist or can not be read
+     */
+    @SuppressWarnings("unchecked")
+    static public OperatorMetadataIndex load() {
+        File file = getFile();
+        if (!file.isFile()) {
+            return null;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            String fingerprint = (String) in.readObject();
+            HashMap<String, UnifiedMetadata> metadata = (HashMap<String, UnifiedMetadata>) in.readObject();
+            return new OperatorMetadataIndex(fingerprint, metadata);
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            SystemUtils.LOG.info("Operator index `" + file + "` not readable: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Store the index in the user directory. The index is written to a temporary file first, so that a concurrent
+     * start of the editor never reads a partial index.
+     * @throws IOException if the index can not be written
+     */
+    public void save() throws IOException {
+        File file = getFile();
+        File parent = file.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("unable to create `" + parent + "`");
+        }
+        File tmp = File.createTempFile("operator-index", ".tmp", parent);
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeObject(fingerprint);
+            out.writeObject(metadata);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp.toPath());
+            throw e;
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static private File getFile() {
+        return new File(SystemUtils.getApplicationDataDir(), INDEX_FILE);
+    }
+}
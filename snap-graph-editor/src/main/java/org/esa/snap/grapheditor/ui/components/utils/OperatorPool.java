@@ -0,0 +1,123 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.esa.snap.core.gpf.GPF;
+import org.esa.snap.core.gpf.Operator;
+import org.esa.snap.core.gpf.OperatorSpi;
+import org.esa.snap.core.util.SystemUtils;
+
+/**
+ * Small per-operator-type pool of operator instances used by the NodeGui validation.
+ * A GPF operator can not be re-initialized: once its target product has been computed, every following call returns
+ * the same product. A node therefore needs a new instance for each re-validation. The pool keeps a few fresh
+ * instances of the operator types in use, refilled on a background thread, while the used instances are disposed
+ * as soon as they are released, so that their target products and contexts do not wait for the GC. Operators whose
+ * target product may still be read by other nodes are released through the ProductLeases.
+ */
+public class OperatorPool {
+    static private final int POOL_SIZE = 2;
+    static private OperatorPool instance = null;
+
+    private final HashMap<String, ArrayDeque<Operator>> pools = new HashMap<>();
+    private final HashSet<String> refilling = new HashSet<>();
+    private final ExecutorService refiller = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "operator-pool");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private OperatorPool() {
+    }
+
+    /**
+     * Access the OperatorPool instance.
+     * @return the instance
+     */
+    static public synchronized OperatorPool getInstance() {
+        if (instance == null) {
+            instance = new OperatorPool();
+        }
+        return instance;
+    }
+
+    /**
+     * Get a fresh operator instance, taken from the pool if available.
+     * @param alias operator alias
+     * @return the operator or null if the operator is not available
+     */
+    public Operator acquire(String alias) {
+        Operator operator;
+        synchronized (this) {
+            ArrayDeque<Operator> pool = pools.computeIfAbsent(alias, k -> new ArrayDeque<>());
+            operator = pool.poll();
+            scheduleRefill(alias);
+        }
+        return operator != null ? operator : create(alias);
+    }
+
+    /**
+     * Release an operator that is not used anymore. Its context and target product are disposed.
+     * @param operator operator to release
+     */
+    public void release(Operator operator) {
+        if (operator == null) {
+            return;
+        }
+        try {
+            operator.dispose();
+        } catch (RuntimeException e) {
+            SystemUtils.LOG.fine("Unable to dispose operator: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Refill the pool of an operator type in background, if not already scheduled.
+     * @param alias operator alias
+     */
+    private synchronized void scheduleRefill(String alias) {
+        if (pools.get(alias).size() >= POOL_SIZE || !refilling.add(alias)) {
+            return;
+        }
+        refiller.execute(() -> {
+            while (true) {
+                synchronized (this) {
+                    if (pools.get(alias).size() >= POOL_SIZE) {
+                        refilling.remove(alias);
+                        return;
+                    }
+                }
+                Operator operator = create(alias);
+                synchronized (this) {
+                    if (operator == null) {
+                        refilling.remove(alias);
+                        return;
+                    }
+                    pools.get(alias).add(operator);
+                }
+            }
+        });
+    }
+
+    /**
+     * Create a new operator instance from the registry.
+     * @param alias operator alias
+     * @return the operator or null if the operator is not available
+     */
+    static private Operator create(String alias) {
+        OperatorSpi spi = GPF.getDefaultInstance().getOperatorSpiRegistry().getOperatorSpi(alias);
+        if (spi == null) {
+            return null;
+        }
+        try {
+            return spi.createOperator();
+        } catch (RuntimeException e) {
+            SystemUtils.LOG.warning("Unable to create operator `" + alias + "`: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.bc.ceres.binding.ConversionException;
+import com.bc.ceres.binding.Converter;
+import com.bc.ceres.binding.Property;
+import com.bc.ceres.binding.PropertyContainer;
+import com.bc.ceres.binding.PropertyDescriptor;
+import com.bc.ceres.binding.dom.DomConverter;
+import com.bc.ceres.binding.dom.DomElement;
+import org.esa.snap.core.gpf.OperatorSpi;
+import org.esa.snap.core.gpf.annotations.ParameterDescriptorFactory;
+import org.esa.snap.core.util.SystemUtils;
+
+/**
+ * Parameter schema of an operator: the Converter and DomConverter of each parameter, indexed by parameter name and
+ * alias.
+ * Building the property descriptors of an operator is expensive, so the schema is built once per operator and cached.
+ * The schema is immutable and can be shared by concurrent loads.
+ */
+public class OperatorSchema {
+    // the schema only depends on the operator class
+    static private final ConcurrentHashMap<Class<?>, OperatorSchema> cache = new ConcurrentHashMap<>();
+
+    private final HashMap<String, Converter<?>> converters = new HashMap<>();
+    private final HashMap<String, DomConverter> domConverters = new HashMap<>();
+
+    /**
+     * Build the schema of an operator.
+     * @param operatorSpi operator SPI
+     */
+    private OperatorSchema(OperatorSpi operatorSpi) {
+        final PropertyContainer valueContainer = PropertyContainer.createMapBacked(new HashMap<>(),
+                operatorSpi.getOperatorClass(), new ParameterDescriptorFactory());
+        for (final Property p : valueContainer.getProperties()) {
+            final PropertyDescriptor descriptor = p.getDescriptor();
+            if (descriptor == null) {
+                continue;
+            }
+            register(descriptor.getName(), descriptor);
+            if (descriptor.getAlias() != null) {
+                register(descriptor.getAlias(), descriptor);
+            }
+        }
+    }
+
+    /**
+     * Index a descriptor by name, as for a linear scan of the properties the first match wins.
+     * @param key parameter name or alias
+     * @param descriptor property descriptor
+     */
+    private void register(String key, PropertyDescriptor descriptor) {
+        if (!converters.containsKey(key)) {
+            converters.put(key, descriptor.getConverter());
+            domConverters.put(key, descriptor.getDomConverter());
+        }
+    }
+
+    /**
+     * Get the schema of an operator, built on first use.
+     * @param operatorSpi operator SPI
+     * @return the cached schema
+     */
+    static public OperatorSchema get(OperatorSpi operatorSpi) {
+        return cache.computeIfAbsent(operatorSpi.getOperatorClass(), c -> new OperatorSchema(operatorSpi));
+    }
+
+    /**
+     * Get the Converter of a parameter.
+     * @param name parameter name or alias
+     * @return the converter if it is found (null otherwise)
+     */
+    public Converter<?> getConverter(String name) {
+        return converters.get(name);
+    }
+
+    /**
+     * Get the DomConverter of a parameter.
+     * @param name parameter name or alias
+     * @return the DOM converter if it is found (null otherwise)
+     */
+    public DomConverter getDomConverter(String name) {
+        return domConverters.get(name);
+    }
+
+    /**
+     * Convert the configuration of a graph node into a parameter map.
+     * @param config node configuration
+     * @return parameter map
+     */
+    public Map<String, Object> parse(DomElement config) {
+        final HashMap<String, Object> parameterMap = new HashMap<>();
+        final int count = config.getChildCount();
+        for (int i = 0; i < count; ++i) {
+            final DomElement child = config.getChild(i);
+            final String name = child.getName();
+            final String value = child.getValue();
+            try {
+                if (name == null || value == null || value.startsWith("$")) {
+                    continue;
+                }
+                if (child.getChildCount() == 0) {
+                    final Converter<?> converter = getConverter(name);
+                    if (converter != null) {
+                        parameterMap.put(name, converter.parse(value));
+                    }
+                } else {
+                    final DomConverter domConverter = getDomConverter(name);
+                    if (domConverter != null) {
+                        try {
+                            final Object obj = domConverter.convertDomToValue(child, null);
+                            parameterMap.put(name, obj);
+                        } catch (final Exception e) {
+                            SystemUtils.LOG.warning(e.getMessage());
+                        }
+                    } else {
+                        final Converter<?> converter = getConverter(name);
+                        final Object[] objArray = new Object[child.getChildCount()];
+                        int c = 0;
+                        for (final DomElement ch : child.getChildren()) {
+                            final String v = ch.getValue();
+
+                            if (converter != null) {
+                                objArray[c++] = converter.parse(v);
+                            } else {
+                                objArray[c++] = v;
+                            }
+                        }
+                        parameterMap.put(name, objArray);
+                    }
+                }
+            } catch (final ConversionException e) {
+                SystemUtils.LOG.info(e.getMessage());
+            }
+        }
+        return parameterMap;
+    }
+}
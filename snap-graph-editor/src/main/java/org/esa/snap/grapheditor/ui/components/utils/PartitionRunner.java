@@ -0,0 +1,655 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.awt.Rectangle;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import javax.swing.SwingWorker;
+
+import com.bc.ceres.binding.dom.DomElement;
+import com.bc.ceres.binding.dom.XppDomElement;
+import com.bc.ceres.core.ProgressMonitor;
+import org.esa.snap.core.dataio.ProductIO;
+import org.esa.snap.core.dataio.ProductWriter;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.gpf.graph.Graph;
+import org.esa.snap.core.gpf.graph.Node;
+import org.esa.snap.core.gpf.graph.NodeSource;
+import org.esa.snap.core.util.ProductUtils;
+import org.esa.snap.core.util.SystemUtils;
+import org.esa.snap.grapheditor.ui.components.interfaces.ExecutionListener;
+
+/**
+ * Partitioned execution of a graph over a large scene.
+ * The scene of the Read node is split into N regions along its longest axis (see SettingManager.getPartitionRegions),
+ * each region extended by an overlap on both sides (see SettingManager.getPartitionOverlap). The graph is cloned
+ * once per region with a Subset of the region inserted after the Read node, and the clones are executed
+ * concurrently by separate gpt processes (up to SettingManager.getBatchParallelism at a time), so that a region is
+ * not bounded by the tile scheduler and heap of the editor JVM. The regions are written in a temporary folder.
+ *
+ * Once all the regions are done, the output of each Write node is stitched: the region outputs must have the size
+ * of their region, the same bands and data types, otherwise the graph changes the raster grid and the execution
+ * fails. The overlap of each region is cut at the middle, and the pixels on both sides of each seam are compared
+ * between the two regions: differences mean that the overlap is smaller than the neighbourhood of an operator.
+ * The mosaic gets the geo-coding of the scene and the metadata of the first region; masks, tie-point grids and
+ * vectors are not stitched. It is written in a staging folder next to the target and moved into place once all the
+ * bands are written. The temporary folder is kept if something fails.
+ */
+public class PartitionRunner extends SwingWorker<Integer, PartitionRunner.RegionResult> {
+    static private final String READ = "Read";
+    static private final String WRITE = "Write";
+    static private final String SUBSET = "Subset";
+    static private final String PART_FORMAT = "BEAM-DIMAP";
+    // delay between two checks of the cancellation of a gpt process
+    static private final long POLL_DELAY = 500;
+    // pixels copied at once by the mosaic
+    static private final int CHUNK_PIXELS = 1 << 20;
+
+    private final Graph graph;
+    private final int regionCount;
+    private final int overlap;
+    private final int parallelism;
+    private final Collection<ExecutionListener> listeners;
+    private final CancellationToken token = new CancellationToken();
+    private final List<String> warnings = new CopyOnWriteArrayList<>();
+    private final long startTime = System.currentTimeMillis();
+    private volatile Region[] regions = new Region[0];
+    private volatile File workDir = null;
+
+    // counters updated by the regions, the chunks published by the regions may reach process() after done()
+    private final AtomicInteger processed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    /**
+     * Region of the scene processed by a gpt process.
+     */
+    static final class Region {
+        private final int index;
+        // processed area, overlap included
+        private final Rectangle bounds;
+        // area taken into the mosaic
+        private final Rectangle core;
+
+        private Region(int index, Rectangle bounds, Rectangle core) {
+            this.index = index;
+            this.bounds = bounds;
+            this.core = core;
+        }
+    }
+
+    /**
+     * Outcome of a single region.
+     */
+    static class RegionResult {
+        private final Region region;
+        private final String error;
+        private final long duration;
+
+        private RegionResult(Region region, String error, long duration) {
+            this.region = region;
+            this.error = error;
+            this.duration = duration;
+        }
+    }
+
+    /**
+     * Prepare a partitioned execution, must be created on the EDT.
+     * @param graph graph to execute (it is copied, optimized if enabled)
+     * @param regionCount number of regions
+     * @param overlap pixels shared by two neighbouring regions
+     * @param listeners execution listeners to notify
+     */
+    PartitionRunner(Graph graph, int regionCount, int overlap, Collection<ExecutionListener> listeners) {
+        GraphOptimizer.Result result = GraphOptimizer.optimize(graph);
+        this.graph = result.getGraph();
+        Map<String, String> merged = result.getMerged();
+        this.regionCount = regionCount;
+        this.overlap = overlap;
+        this.parallelism = SettingManager.getInstance().getBatchParallelism();
+        this.listeners = new ArrayList<>(listeners);
+        for (ExecutionListener l : this.listeners) {
+            l.executionStarted(graph.getId());
+            if (!merged.isEmpty()) {
+                l.nodesMerged(merged);
+            }
+        }
+        NotificationManager.getInstance().processStart();
+        NotificationManager.getInstance().info("Partitioned execution", "splitting the scene in " + regionCount
+                + " region(s) with " + overlap + " px of overlap, " + parallelism + " at a time");
+        for (GraphRewriter.Rewrite rewrite : result.getRewrites()) {
+            NotificationManager.getInstance().info("Graph Optimizer", rewrite.toString());
+        }
+    }
+
+    /**
+     * Check if a graph can be partitioned: it must read a whole product with a single Read node and write at least
+     * a product.
+     * @param graph graph to check
+     * @return if the graph can be executed by regions
+     */
+    static boolean isPartitionable(Graph graph) {
+        int readers = 0;
+        int writers = 0;
+        for (Node node : graph.getNodes()) {
+            String operator = node.getOperatorName();
+            if (operator.equals(READ)) {
+                DomElement config = node.getConfiguration();
+                if (config == null || isEmpty(value(config, "file")) || !isEmpty(value(config, "pixelRegion"))
+                        || !isEmpty(value(config, "geometryRegion"))) {
+                    return false;
+                }
+                readers++;
+            } else if (operator.equals(WRITE)) {
+                writers++;
+            } else if (node.getSources().length == 0) {
+                // other readers, e.g. ProductSet-Reader
+                return false;
+            }
+        }
+        return readers == 1 && writers > 0;
+    }
+
+    /**
+     * Split a scene into regions along its longest axis.
+     * @param width scene width
+     * @param height scene height
+     * @param count number of regions (reduced if the scene is too small)
+     * @param overlap pixels added on both sides of each region
+     * @return regions, in scene order
+     */
+    static Region[] split(int width, int height, int count, int overlap) {
+        boolean rows = height >= width;
+        int length = rows ? height : width;
+        count = Math.max(1, Math.min(count, length));
+        Region[] regions = new Region[count];
+        for (int k = 0; k < count; k++) {
+            int start = (int) ((long) length * k / count);
+            int end = (int) ((long) length * (k + 1) / count);
+            int from = Math.max(0, start - overlap);
+            int to = Math.min(length, end + overlap);
+            if (rows) {
+                regions[k] = new Region(k, new Rectangle(0, from, width, to - from),
+                                        new Rectangle(0, start, width, end - start));
+            } else {
+                regions[k] = new Region(k, new Rectangle(from, 0, to - from, height),
+                                        new Rectangle(start, 0, end - start, height));
+            }
+        }
+        return regions;
+    }
+
+    /**
+     * Stop the execution, the gpt processes are destroyed.
+     */
+    void cancelPartition() {
+        token.cancel();
+    }
+
+    @Override
+    protected Integer doInBackground() throws Exception {
+        File gpt = findGpt();
+        if (!gpt.canExecute()) {
+            throw new IOException("gpt executable not found: " + gpt + ", it can be set in the settings");
+        }
+        File input = new File(value(readNode().getConfiguration(), "file"));
+        Product scene = ProductIO.readProduct(input);
+        if (scene == null) {
+            throw new IOException("no reader found for `" + input + "`");
+        }
+        try {
+            regions = split(scene.getSceneRasterWidth(), scene.getSceneRasterHeight(), regionCount, overlap);
+            workDir = Files.createTempDirectory("snap-partition-").toFile();
+            int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / parallelism);
+            ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, regions.length));
+            List<Future<RegionResult>> futures = new ArrayList<>();
+            try {
+                for (Region region : regions) {
+                    futures.add(pool.submit(() -> {
+                        RegionResult result = runRegion(region, gpt, threads);
+                        (result.error != null ? failed : processed).incrementAndGet();
+                        publish(result);
+                        return result;
+                    }));
+                }
+            } finally {
+                pool.shutdown();
+            }
+            List<String> failures = new ArrayList<>();
+            for (Future<RegionResult> future : futures) {
+                RegionResult result = future.get();
+                if (result.error != null) {
+                    failures.add(String.valueOf(result.region.index));
+                }
+            }
+            if (token.isCancelled()) {
+                return 0;
+            }
+            if (!failures.isEmpty()) {
+                throw new IOException(failures.size() + " region(s) failed: " + String.join(", ", failures)
+                                              + ", nothing has been stitched");
+            }
+
+            int mosaics = 0;
+            for (Node node : graph.getNodes()) {
+                if (node.getOperatorName().equals(WRITE) && !token.isCancelled()) {
+                    mosaic(scene, node);
+                    mosaics++;
+                }
+            }
+            if (!token.isCancelled()) {
+                delete(workDir);
+            }
+            return mosaics;
+        } finally {
+            scene.dispose();
+        }
+    }
+
+    /**
+     * Locate the gpt executable, by default the one of the SNAP installation.
+     * @return executable
+     */
+    static private File findGpt() {
+        String configured = SettingManager.getInstance().getGptExecutable();
+        if (!configured.isEmpty()) {
+            return new File(configured);
+        }
+        boolean windows = System.getProperty("os.name").toLowerCase(Locale.ENGLISH).startsWith("windows");
+        return new File(new File(SystemUtils.getApplicationHomeDir(), "bin"), windows ? "gpt.exe" : "gpt");
+    }
+
+    private Node readNode() {
+        for (Node node : graph.getNodes()) {
+            if (node.getOperatorName().equals(READ)) {
+                return node;
+            }
+        }
+        throw new IllegalStateException("the graph has no Read node");
+    }
+
+    /**
+     * Execute the graph of a region in a gpt process.
+     * @param region region to process
+     * @param gpt gpt executable
+     * @param threads parallelism of the gpt process
+     * @return region outcome
+     */
+    private RegionResult runRegion(Region region, File gpt, int threads) {
+        if (token.isCancelled()) {
+            return new RegionResult(region, "cancelled", 0);
+        }
+        long start = System.currentTimeMillis();
+        File graphFile = new File(workDir, "region" + region.index + ".xml");
+        File log = new File(workDir, "region" + region.index + ".log");
+        try {
+            GraphManager.writeGraph(createRegionGraph(region), graphFile);
+            ProcessBuilder builder = new ProcessBuilder(gpt.getAbsolutePath(), graphFile.getAbsolutePath(),
+                                                        "-q", String.valueOf(threads));
+            builder.redirectErrorStream(true);
+            builder.redirectOutput(log);
+            Process process = builder.start();
+            try {
+                while (!process.waitFor(POLL_DELAY, TimeUnit.MILLISECONDS)) {
+                    if (token.isCancelled()) {
+                        process.destroy();
+                    }
+                }
+            } catch (InterruptedException e) {
+                process.destroy();
+                Thread.currentThread().interrupt();
+                return new RegionResult(region, "interrupted", System.currentTimeMillis() - start);
+            }
+            if (token.isCancelled()) {
+                return new RegionResult(region, "cancelled", System.currentTimeMillis() - start);
+            }
+            if (process.exitValue() != 0) {
+                return new RegionResult(region, "gpt exited with code " + process.exitValue() + ", see `"
+                        + log + "`", System.currentTimeMillis() - start);
+            }
+        } catch (IOException e) {
+            String msg = e.getMessage() != null ? e.getMessage() : e.toString();
+            return new RegionResult(region, msg, System.currentTimeMillis() - start);
+        }
+        return new RegionResult(region, null, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Clone the graph for a region: a Subset of the region is read instead of the Read product and the Write nodes
+     * write in the temporary folder.
+     * @param region region to process
+     * @return graph of the region
+     */
+    private Graph createRegionGraph(Region region) {
+        Graph job = GraphExecutionService.copyGraph(graph);
+        String readId = readNode().getId();
+        String subsetId = "Partition-" + SUBSET;
+        for (int i = 2; job.getNode(subsetId) != null; i++) {
+            subsetId = "Partition-" + SUBSET + "(" + i + ")";
+        }
+        for (Node node : job.getNodes()) {
+            NodeSource[] sources = node.getSources();
+            for (NodeSource source : sources) {
+                node.removeSource(source);
+            }
+            for (NodeSource source : sources) {
+                String id = source.getSourceNodeId().equals(readId) ? subsetId : source.getSourceNodeId();
+                node.addSource(new NodeSource(source.getName(), id));
+            }
+            if (node.getOperatorName().equals(WRITE)) {
+                node.setConfiguration(ConfigurationUtils.copy(node.getConfiguration()));
+                BatchRunner.setParameter(node.getConfiguration(), "file",
+                                         regionFile(region, node.getId()).getAbsolutePath());
+                BatchRunner.setParameter(node.getConfiguration(), "formatName", PART_FORMAT);
+            }
+        }
+        Rectangle bounds = region.bounds;
+        DomElement config = new XppDomElement("parameters");
+        BatchRunner.setParameter(config, "region", bounds.x + "," + bounds.y + "," + bounds.width + ","
+                + bounds.height);
+        BatchRunner.setParameter(config, "copyMetadata", "true");
+        Node subset = new Node(subsetId, SUBSET);
+        subset.setConfiguration(config);
+        subset.addSource(new NodeSource("sourceProduct", readId));
+        job.addNode(subset);
+        return job;
+    }
+
+    private File regionFile(Region region, String writeId) {
+        return new File(workDir, "region" + region.index + "_" + writeId.replace(' ', '_') + ".dim");
+    }
+
+    /**
+     * Stitch the region outputs of a Write node into its target product.
+     * @param scene product of the Read node
+     * @param write Write node
+     * @throws IOException if the regions can not be read, stitched or written
+     */
+    private void mosaic(Product scene, Node write) throws IOException {
+        DomElement config = write.getConfiguration();
+        String format = !isEmpty(value(config, "formatName")) ? value(config, "formatName") : PART_FORMAT;
+        File target = new File(value(config, "file"));
+        Product[] parts = new Product[regions.length];
+        try {
+            for (Region region : regions) {
+                parts[region.index] = ProductIO.readProduct(regionFile(region, write.getId()));
+                if (parts[region.index] == null) {
+                    throw new IOException("region " + region.index + " of `" + write.getId() + "` can not be read");
+                }
+            }
+            validateGrid(parts, write.getId());
+            validateSeams(parts, write.getId());
+            // written next to the target and moved into place once complete, a cancelled or failed mosaic never
+            // leaves a partial product at the target
+            File folder = target.getAbsoluteFile().getParentFile();
+            Files.createDirectories(folder.toPath());
+            File staging = Files.createTempDirectory(folder.toPath(), "." + BatchRunner.baseName(target) + ".partial")
+                    .toFile();
+            try {
+                if (writeMosaic(scene, parts, new File(staging, target.getName()), format)) {
+                    moveInto(staging, folder);
+                }
+            } finally {
+                delete(staging);
+            }
+        } finally {
+            for (Product part : parts) {
+                if (part != null) {
+                    part.dispose();
+                }
+            }
+        }
+    }
+
+    /**
+     * Check that the region outputs can be stitched: each of them covers its region with the same bands.
+     */
+    private void validateGrid(Product[] parts, String writeId) throws IOException {
+        Band[] bands = parts[0].getBands();
+        for (Region region : regions) {
+            Product part = parts[region.index];
+            if (part.isMultiSize() || part.getSceneRasterWidth() != region.bounds.width
+                    || part.getSceneRasterHeight() != region.bounds.height) {
+                throw new IOException("`" + writeId + "` can not be stitched: region " + region.index + " is "
+                        + part.getSceneRasterWidth() + "x" + part.getSceneRasterHeight() + " instead of "
+                        + region.bounds.width + "x" + region.bounds.height + ", the graph changes the raster grid");
+            }
+            if (part.getNumBands() != bands.length) {
+                throw new IOException("`" + writeId + "` can not be stitched: region " + region.index + " has "
+                        + part.getNumBands() + " band(s) instead of " + bands.length);
+            }
+            for (Band band : bands) {
+                Band other = part.getBand(band.getName());
+                if (other == null || other.getDataType() != band.getDataType()) {
+                    throw new IOException("`" + writeId + "` can not be stitched: band `" + band.getName()
+                            + "` differs in region " + region.index);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compare the pixels on both sides of each seam between the two regions computing them.
+     */
+    private void validateSeams(Product[] parts, String writeId) throws IOException {
+        if (regions.length < 2) {
+            return;
+        }
+        if (overlap == 0) {
+            warnings.add("`" + writeId + "`: no overlap, the seams are not validated");
+            return;
+        }
+        for (int k = 0; k + 1 < regions.length; k++) {
+            Region first = regions[k];
+            Region second = regions[k + 1];
+            Rectangle core = second.core;
+            Rectangle seam = core.y > 0 ? new Rectangle(0, core.y - 1, core.width, 2)
+                                        : new Rectangle(core.x - 1, 0, 2, core.height);
+            long differ = 0;
+            long total = 0;
+            for (Band band : parts[k].getBands()) {
+                double[] a = read(band, seam, first.bounds);
+                double[] b = read(parts[k + 1].getBand(band.getName()), seam, second.bounds);
+                for (int i = 0; i < a.length; i++) {
+                    total++;
+                    if (!same(a[i], b[i])) {
+                        differ++;
+                    }
+                }
+            }
+            if (differ > 0) {
+                warnings.add(String.format(Locale.ENGLISH,
+                        "`%s`: %.2f%% of the pixels differ at the seam of regions %d and %d, the overlap (%d px) "
+                                + "may be smaller than the neighbourhood of an operator",
+                        writeId, differ * 100.0 / total, k, k + 1, overlap));
+            }
+        }
+    }
+
+    static private double[] read(Band band, Rectangle area, Rectangle bounds) throws IOException {
+        double[] pixels = new double[area.width * area.height];
+        return band.readPixels(area.x - bounds.x, area.y - bounds.y, area.width, area.height, pixels);
+    }
+
+    static private boolean same(double a, double b) {
+        return a == b || (Double.isNaN(a) && Double.isNaN(b))
+                || Math.abs(a - b) <= 1e-6 * Math.max(Math.abs(a), Math.abs(b));
+    }
+
+    /**
+     * Write the mosaic of the region cores.
+     * @return false if the execution was cancelled before all the bands were written
+     */
+    private boolean writeMosaic(Product scene, Product[] parts, File target, String format) throws IOException {
+        ProductWriter writer = ProductIO.getProductWriter(format);
+        if (writer == null) {
+            throw new IOException("no writer found for format " + format);
+        }
+        int width = scene.getSceneRasterWidth();
+        int height = scene.getSceneRasterHeight();
+        Product mosaic = new Product(BatchRunner.baseName(target), parts[0].getProductType(), width, height);
+        try {
+            ProductUtils.copyMetadata(parts[0], mosaic);
+            ProductUtils.copyGeoCoding(scene, mosaic);
+            mosaic.setStartTime(parts[0].getStartTime());
+            mosaic.setEndTime(parts[0].getEndTime());
+            for (Band band : parts[0].getBands()) {
+                Band copy = new Band(band.getName(), band.getDataType(), width, height);
+                ProductUtils.copyRasterDataNodeProperties(band, copy);
+                mosaic.addBand(copy);
+            }
+            mosaic.setProductWriter(writer);
+            writer.writeProductNodes(mosaic, target);
+            for (Band band : mosaic.getBands()) {
+                for (Region region : regions) {
+                    if (token.isCancelled()) {
+                        return false;
+                    }
+                    copyCore(parts[region.index].getBand(band.getName()), region, band, writer);
+                }
+            }
+            return true;
+        } finally {
+            writer.close();
+            mosaic.dispose();
+        }
+    }
+
+    static private void copyCore(Band source, Region region, Band target, ProductWriter writer) throws IOException {
+        Rectangle core = region.core;
+        int rows = Math.max(1, CHUNK_PIXELS / core.width);
+        for (int y = core.y; y < core.y + core.height; y += rows) {
+            int h = Math.min(rows, core.y + core.height - y);
+            ProductData data = ProductData.createInstance(source.getDataType(), core.width * h);
+            source.readRasterData(core.x - region.bounds.x, y - region.bounds.y, core.width, h, data,
+                                  ProgressMonitor.NULL);
+            writer.writeBandRasterData(target, core.x, y, core.width, h, data, ProgressMonitor.NULL);
+        }
+    }
+
+    /**
+     * Move the files written in a staging folder into the target folder, replacing the previous ones. The folders
+     * (e.g. the data folder of a BEAM-DIMAP product) are moved first, so that the header file appears last.
+     * @param staging folder the product was written to
+     * @param folder target folder
+     * @throws IOException if a file can not be moved
+     */
+    static private void moveInto(File staging, File folder) throws IOException {
+        File[] files = staging.listFiles();
+        if (files == null) {
+            throw new IOException("`" + staging + "` can not be listed");
+        }
+        Arrays.sort(files, Comparator.comparing(File::isFile));
+        for (File file : files) {
+            Path target = new File(folder, file.getName()).toPath();
+            if (Files.isDirectory(target)) {
+                delete(target.toFile());
+            }
+            try {
+                Files.move(file.toPath(), target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(file.toPath(), target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    /**
+     * Delete a file or a folder with all its content.
+     * @param folder file or folder to delete
+     * @throws IOException if a file can not be deleted
+     */
+    static void delete(File folder) throws IOException {
+        try (Stream<Path> paths = Files.walk(folder.toPath())) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    static private String value(DomElement config, String name) {
+        DomElement child = config.getChild(name);
+        return child != null ? child.getValue() : null;
+    }
+
+    static private boolean isEmpty(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    @Override
+    protected void process(List<RegionResult> chunks) {
+        for (RegionResult result : chunks) {
+            if (result.error != null) {
+                if (!token.isCancelled()) {
+                    NotificationManager.getInstance().error("Partitioned execution", "region "
+                            + result.region.index + " failed: " + result.error);
+                }
+            } else {
+                NotificationManager.getInstance().ok("Partitioned execution", String.format(Locale.ENGLISH,
+                        "region %d (%dx%d) processed in %.1fs", result.region.index, result.region.bounds.width,
+                        result.region.bounds.height, result.duration / 1000.0));
+            }
+        }
+        if (isDone()) {
+            // late chunk, the execution has already been reported as ended
+            return;
+        }
+        // the last step is the mosaic
+        int progress = (processed.get() + failed.get()) * 100 / (regions.length + 1);
+        // the regions are executed as separate graphs, only the progress of the whole execution is meaningful
+        for (ExecutionListener l : listeners) {
+            l.executionProgress(progress);
+        }
+        NotificationManager.getInstance().progress(progress);
+    }
+
+    @Override
+    protected void done() {
+        String error = null;
+        int mosaics = 0;
+        try {
+            mosaics = get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            error = e.getCause().getMessage() != null ? e.getCause().getMessage() : e.getCause().toString();
+            NotificationManager.getInstance().error("Partitioned execution", error);
+        }
+        for (String warning : warnings) {
+            NotificationManager.getInstance().warning("Partitioned execution", warning);
+        }
+        if (token.isCancelled()) {
+            NotificationManager.getInstance().info("Partitioned execution", "cancelled");
+        } else if (error == null) {
+            NotificationManager.getInstance().ok("Partitioned execution", String.format(Locale.ENGLISH,
+                    "%d product(s) stitched from %d region(s) in %.1fs", mosaics, regions.length,
+                    (System.currentTimeMillis() - startTime) / 1000.0));
+        }
+        if (workDir != null && workDir.exists()) {
+            NotificationManager.getInstance().info("Partitioned execution", "regions kept in `" + workDir + "`");
+        }
+        NotificationManager.getInstance().processEnd();
+        for (ExecutionListener l : listeners) {
+            l.executionEnded(token.isCancelled(), error);
+        }
+    }
+}
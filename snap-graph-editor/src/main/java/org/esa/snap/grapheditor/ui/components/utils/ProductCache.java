@@ -0,0 +1,225 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+
+/**
+ * Bounded cache of the target products validated by the nodes.
+ * A product is identified by the operator name, the structural digest of the parameters (see ConfigurationHash) and
+ * the identity of the source products, so that
+ * switching a parameter back to a previous value reuses the product validated before instead of initializing a new
+ * operator. Each entry holds a lease on its product (see ProductLeases), which keeps the product and its sources
+ * alive.
+ *
+ * Entries are evicted in least recently used order when the number of entries or their estimated memory weight
+ * exceed the limits of the SettingManager. Evicted entries release their lease: the product is disposed together
+ * with its operator, so that the raster buffers are released. Products leased by anything else than the cache, i.e.
+ * the output of a node, the sources bound to the operator of a node or the sources of another product, are never
+ * evicted: the cache may then exceed its limits until the next product is stored.
+ */
+public class ProductCache {
+    // fixed weight of a product without raster data (metadata, tie-point grids, operator context)
+    static private final long PRODUCT_WEIGHT = 64 * 1024;
+
+    static private ProductCache instance = null;
+
+    // access ordered, the first entry is the least recently used
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final IdentityHashMap<Product, Entry> products = new IdentityHashMap<>();
+
+    private ProductCache() {
+    }
+
+    /**
+     * Access the ProductCache instance.
+     * @return the instance
+     */
+    static public synchronized ProductCache getInstance() {
+        if (instance == null) {
+            instance = new ProductCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Build the key of a product.
+     * @param operator operator name
+     * @param digest structural digest of the operator parameters (see ConfigurationHash)
+     * @param sources source products, in input order
+     * @return cache key
+     */
+    static public Key key(String operator, long digest, Product[] sources) {
+        return new Key(operator, digest, sources);
+    }
+
+    /**
+     * Look up a product, marking it as the most recently used.
+     * @param key product key
+     * @return the cached product or null
+     */
+    public synchronized Product get(Key key) {
+        Entry entry = entries.get(key);
+        return entry != null ? entry.product : null;
+    }
+
+    /**
+     * Store a validated product, registered in the ProductLeases. On success the cache leases the product.
+     * @param key product key
+     * @param product target product
+     * @return false if the product was not cached (cache disabled or key already used)
+     */
+    public boolean put(Key key, Product product) {
+        ArrayList<Entry> evicted;
+        synchronized (this) {
+            if (SettingManager.getInstance().getProductCacheSize() == 0 || entries.containsKey(key)
+                    || products.containsKey(product)) {
+                return false;
+            }
+            Entry entry = new Entry(key, product);
+            ProductLeases.getInstance().acquire(product);
+            entries.put(key, entry);
+            products.put(product, entry);
+            evicted = trim();
+        }
+        dispose(evicted);
+        return true;
+    }
+
+    /**
+     * Number of cached products.
+     * @return number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Release all the cached products, in use or not. Used when the graph is cleared.
+     */
+    public void clear() {
+        ArrayList<Entry> evicted;
+        synchronized (this) {
+            evicted = new ArrayList<>(entries.values());
+            entries.clear();
+            products.clear();
+        }
+        dispose(evicted);
+    }
+
+    /**
+     * Evict the least recently used entries until the cache is within its limits, or nothing else can be evicted.
+     * @return the evicted entries, to be disposed outside the lock
+     */
+    private ArrayList<Entry> trim() {
+        ArrayList<Entry> evicted = new ArrayList<>();
+        int maxSize = SettingManager.getInstance().getProductCacheSize();
+        long budget = SettingManager.getInstance().getProductCacheMemory();
+        long weight = 0;
+        for (Entry entry : entries.values()) {
+            weight += weight(entry.product);
+        }
+        while (entries.size() > maxSize || weight > budget) {
+            Entry victim = null;
+            for (Entry entry : entries.values()) {
+                // the lease of the entry is the only one
+                if (ProductLeases.getInstance().getCount(entry.product) <= 1) {
+                    victim = entry;
+                    break;
+                }
+            }
+            if (victim == null) {
+                break;
+            }
+            entries.remove(victim.key);
+            products.remove(victim.product);
+            weight -= weight(victim.product);
+            evicted.add(victim);
+        }
+        return evicted;
+    }
+
+    static private void dispose(ArrayList<Entry> evicted) {
+        for (Entry entry : evicted) {
+            ProductLeases.getInstance().release(entry.product);
+        }
+    }
+
+    /**
+     * Estimated memory retained by a product: a fixed weight plus the raster data already loaded by its bands.
+     * @param product product
+     * @return weight in bytes
+     */
+    static long weight(Product product) {
+        long weight = PRODUCT_WEIGHT;
+        for (Band band : product.getBands()) {
+            if (band.hasRasterData()) {
+                weight += (long) band.getRasterWidth() * band.getRasterHeight()
+                        * ProductData.getElemSize(band.getDataType());
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Identity of a product: operator name, parameter digest (equal digests are taken as equal parameters) and
+     * source products (compared by reference).
+     */
+    static public final class Key {
+        private final String operator;
+        private final long parameters;
+        private final Product[] sources;
+        private final int hash;
+
+        private Key(String operator, long parameters, Product[] sources) {
+            this.operator = operator;
+            this.parameters = parameters;
+            this.sources = sources.clone();
+            int h = operator.hashCode() * 31 + Long.hashCode(parameters);
+            for (Product source : this.sources) {
+                h = h * 31 + System.identityHashCode(source);
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            if (hash != other.hash || !operator.equals(other.operator) || parameters != other.parameters
+                    || sources.length != other.sources.length) {
+                return false;
+            }
+            for (int i = 0; i < sources.length; i++) {
+                if (sources[i] != other.sources[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    static private class Entry {
+        private final Key key;
+        private final Product product;
+
+        private Entry(Key key, Product product) {
+            this.key = key;
+            this.product = product;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.gpf.Operator;
+
+/**
+ * Reference counts of the products computed during the validation.
+ * The target product of an operator is read by the operators of the downstream nodes and may be kept by the
+ * ProductCache, while the node that computed it may already have moved to a new operator (a re-validation whose
+ * signature did not change does not re-validate the children). A product is therefore leased by everything that
+ * uses it: the node whose output it is, each product computed from it and each cache entry. The operator of a
+ * registered product is disposed, through the OperatorPool, only when its last lease is released; disposing a
+ * product releases the leases it holds on its own sources.
+ *
+ * Products that are not registered (e.g. products opened outside of the validation) can be leased as well, they are
+ * never disposed.
+ */
+public class ProductLeases {
+    static private ProductLeases instance = null;
+
+    private final IdentityHashMap<Product, Lease> leases = new IdentityHashMap<>();
+
+    private ProductLeases() {
+    }
+
+    /**
+     * Access the ProductLeases instance.
+     * @return the instance
+     */
+    static public synchronized ProductLeases getInstance() {
+        if (instance == null) {
+            instance = new ProductLeases();
+        }
+        return instance;
+    }
+
+    /**
+     * Register the target product of an operator. The product takes over the leases on its sources, which are
+     * released when the product is disposed.
+     * @param product target product, not leased yet
+     * @param operator operator that computed the product
+     * @param sources source products bound to the operator, already leased by the caller
+     */
+    public synchronized void register(Product product, Operator operator, Product[] sources) {
+        Lease lease = leases.computeIfAbsent(product, k -> new Lease());
+        lease.operator = operator;
+        lease.sources = sources.clone();
+    }
+
+    /**
+     * Lease a product.
+     * @param product product (ignored if null)
+     */
+    public synchronized void acquire(Product product) {
+        if (product != null) {
+            leases.computeIfAbsent(product, k -> new Lease()).count++;
+        }
+    }
+
+    /**
+     * Lease several products.
+     * @param products products (null items are ignored)
+     */
+    public synchronized void acquire(Product[] products) {
+        for (Product product : products) {
+            acquire(product);
+        }
+    }
+
+    /**
+     * Release a lease. The operator of the product is disposed if it was the last lease.
+     * @param product product (ignored if null)
+     */
+    public void release(Product product) {
+        release(new Product[]{product});
+    }
+
+    /**
+     * Release a lease on several products.
+     * @param products products (null items are ignored)
+     */
+    public void release(Product[] products) {
+        ArrayList<Operator> disposed = new ArrayList<>();
+        synchronized (this) {
+            ArrayList<Product> pending = new ArrayList<>();
+            for (Product product : products) {
+                if (product != null) {
+                    pending.add(product);
+                }
+            }
+            while (!pending.isEmpty()) {
+                Product product = pending.remove(pending.size() - 1);
+                Lease lease = leases.get(product);
+                if (lease == null || --lease.count > 0) {
+                    continue;
+                }
+                leases.remove(product);
+                if (lease.operator != null) {
+                    disposed.add(lease.operator);
+                    for (Product source : lease.sources) {
+                        if (source != null) {
+                            pending.add(source);
+                        }
+                    }
+                }
+            }
+        }
+        for (Operator operator : disposed) {
+            OperatorPool.getInstance().release(operator);
+        }
+    }
+
+    /**
+     * Number of leases of a product.
+     * @param product product
+     * @return lease count (0 if not leased)
+     */
+    public synchronized int getCount(Product product) {
+        Lease lease = leases.get(product);
+        return lease != null ? lease.count : 0;
+    }
+
+    static private class Lease {
+        private int count = 0;
+        private Operator operator = null;
+        private Product[] sources = new Product[0];
+    }
+}
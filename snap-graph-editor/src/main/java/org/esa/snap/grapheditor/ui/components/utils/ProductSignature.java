@@ -0,0 +1,213 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.GeoCoding;
+import org.esa.snap.core.datamodel.GeoPos;
+import org.esa.snap.core.datamodel.PixelPos;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+
+/**
+ * Compact and immutable description of the output of a node: band names and types, raster dimensions, geo-coding
+ * (including the CRS) and time range.
+ * Two outputs with the same signature are equivalent from the point of view of the downstream nodes validation, so
+ * the ValidationEngine can stop propagating a change as soon as the signature of a node did not change.
+ * The signature is also the product schema propagated by the schema validation (see SchemaTransfer): the with*
+ * methods derive the output schema of an operator from the schema of its source.
+ */
+public class ProductSignature {
+    private final int width;
+    private final int height;
+    private final String[] bandNames;
+    private final int[] bandTypes;
+    private final String geoCoding;
+    private final String startTime;
+    private final String endTime;
+    // bands of different sizes (the raster dimensions are the scene ones)
+    private final boolean multiSize;
+    private final int hash;
+
+    /**
+     * Create a new signature.
+     * @param width raster width
+     * @param height raster height
+     * @param bandNames names of the bands
+     * @param bandTypes data type of the bands
+     * @param geoCoding textual description of the geo-coding (can be null)
+     */
+    public ProductSignature(int width, int height, String[] bandNames, int[] bandTypes, String geoCoding) {
+        this(width, height, bandNames, bandTypes, geoCoding, null, null);
+    }
+
+    /**
+     * Create a new signature with a time range.
+     * @param width raster width
+     * @param height raster height
+     * @param bandNames names of the bands
+     * @param bandTypes data type of the bands
+     * @param geoCoding textual description of the geo-coding (can be null)
+     * @param startTime sensing start time (can be null)
+     * @param endTime sensing stop time (can be null)
+     */
+    public ProductSignature(int width, int height, String[] bandNames, int[] bandTypes, String geoCoding,
+                            String startTime, String endTime) {
+        this(width, height, bandNames, bandTypes, geoCoding, startTime, endTime, false);
+    }
+
+    private ProductSignature(int width, int height, String[] bandNames, int[] bandTypes, String geoCoding,
+                             String startTime, String endTime, boolean multiSize) {
+        this.width = width;
+        this.height = height;
+        this.bandNames = bandNames;
+        this.bandTypes = bandTypes;
+        this.geoCoding = geoCoding;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.multiSize = multiSize;
+        this.hash = Objects.hash(width, height, Arrays.hashCode(bandNames), Arrays.hashCode(bandTypes), geoCoding,
+                                 startTime, endTime, multiSize);
+    }
+
+    /**
+     * Extract the signature of a product.
+     * @param product source product
+     * @return the product signature or null if the product is null
+     */
+    static public ProductSignature of(Product product) {
+        if (product == null) {
+            return null;
+        }
+        Band[] bands = product.getBands();
+        String[] names = new String[bands.length];
+        int[] types = new int[bands.length];
+        for (int i = 0; i < bands.length; i++) {
+            names[i] = bands[i].getName();
+            types[i] = bands[i].getDataType();
+        }
+        return new ProductSignature(product.getSceneRasterWidth(), product.getSceneRasterHeight(), names, types,
+                                    describe(product.getSceneGeoCoding(), product.getSceneRasterWidth(),
+                                             product.getSceneRasterHeight()),
+                                    format(product.getStartTime()), format(product.getEndTime()),
+                                    product.isMultiSize());
+    }
+
+    static private String format(ProductData.UTC time) {
+        return time != null ? time.format() : null;
+    }
+
+    /**
+     * Same schema with different bands.
+     * @param names names of the bands
+     * @param types data type of the bands
+     * @return new signature
+     */
+    public ProductSignature withBands(String[] names, int[] types) {
+        return new ProductSignature(width, height, names, types, geoCoding, startTime, endTime, multiSize);
+    }
+
+    /**
+     * Same schema with a different raster, for instance a subset or a reprojection.
+     * @param width raster width
+     * @param height raster height
+     * @param geoCoding textual description of the new geo-coding (can be null)
+     * @return new signature
+     */
+    public ProductSignature withRaster(int width, int height, String geoCoding) {
+        return new ProductSignature(width, height, bandNames, bandTypes, geoCoding, startTime, endTime, multiSize);
+    }
+
+    /**
+     * Same schema with a different time range.
+     * @param startTime sensing start time (can be null)
+     * @param endTime sensing stop time (can be null)
+     * @return new signature
+     */
+    public ProductSignature withTimeRange(String startTime, String endTime) {
+        return new ProductSignature(width, height, bandNames, bandTypes, geoCoding, startTime, endTime, multiSize);
+    }
+
+    /**
+     * Describe a geo-coding using its CRS and the geo-position of the first and last pixel, enough to detect
+     * changes of projection as well as changes of the covered area.
+     * @param geoCoding geo-coding to describe
+     * @param width raster width
+     * @param height raster height
+     * @return textual description (null if the geo-coding is missing)
+     */
+    static private String describe(GeoCoding geoCoding, int width, int height) {
+        if (geoCoding == null) {
+            return null;
+        }
+        StringBuilder builder = new StringBuilder(geoCoding.getClass().getSimpleName());
+        try {
+            builder.append(';').append(geoCoding.getMapCRS().toWKT());
+        } catch (RuntimeException e) {
+            // some CRS can not be formatted as WKT, the corner positions are still meaningful
+        }
+        GeoPos first = geoCoding.getGeoPos(new PixelPos(0.5, 0.5), null);
+        GeoPos last = geoCoding.getGeoPos(new PixelPos(width - 0.5, height - 0.5), null);
+        builder.append(';').append(first.getLat()).append(',').append(first.getLon());
+        builder.append(';').append(last.getLat()).append(',').append(last.getLon());
+        return builder.toString();
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public String[] getBandNames() {
+        return bandNames;
+    }
+
+    public int[] getBandTypes() {
+        return bandTypes;
+    }
+
+    public String getGeoCoding() {
+        return geoCoding;
+    }
+
+    public String getStartTime() {
+        return startTime;
+    }
+
+    public String getEndTime() {
+        return endTime;
+    }
+
+    public boolean isMultiSize() {
+        return multiSize;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProductSignature)) {
+            return false;
+        }
+        ProductSignature other = (ProductSignature) o;
+        return hash == other.hash
+                && width == other.width
+                && height == other.height
+                && Arrays.equals(bandNames, other.bandNames)
+                && Arrays.equals(bandTypes, other.bandTypes)
+                && Objects.equals(geoCoding, other.geoCoding)
+                && Objects.equals(startTime, other.startTime)
+                && Objects.equals(endTime, other.endTime)
+                && multiSize == other.multiSize;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -0,0 +1,232 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.awt.Rectangle;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.bc.ceres.binding.dom.DomElement;
+import org.esa.snap.core.gpf.graph.Node;
+import org.esa.snap.grapheditor.ui.components.utils.GraphRewriter.Context;
+import org.esa.snap.grapheditor.ui.components.utils.GraphRewriter.Rewrite;
+
+/**
+ * Built-in rules of the GraphRewriter.
+ * The rules only match configurations they fully understand, anything unusual (variables, geographic regions,
+ * no-data replacement...) leaves the graph untouched.
+ */
+class RewriteRules {
+    static private final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    private RewriteRules() {
+    }
+
+    /**
+     * Inline a BandMaths node into the BandMaths node reading it: the band of the first node is replaced by its
+     * expression. The first node must have a single floating point band without no-data value and without valid
+     * pixel expression, so that the fused expression computes the same values and masks, and no other consumer.
+     */
+    static class FuseBandMaths implements GraphRewriter.Rule {
+        @Override
+        public Rewrite apply(Node node, Context context) {
+            Node source = context.getSingleSource(node);
+            if (!isBandMaths(node) || source == null || !isBandMaths(source)
+                    || context.getSingleSource(source) == null || context.getConsumers(source.getId()).size() != 1
+                    || hasVariables(node) || hasVariables(source)) {
+                return null;
+            }
+            DomElement[] inner = targetBands(source);
+            if (inner.length != 1 || !isPlainFloat(inner[0]) || !isEmpty(value(inner[0], "validExpression"))) {
+                return null;
+            }
+            String name = value(inner[0], "name");
+            String expression = value(inner[0], "expression");
+            if (name == null || expression == null || !IDENTIFIER.matcher(name).matches()) {
+                return null;
+            }
+
+            DomElement configuration = ConfigurationUtils.copy(node.getConfiguration());
+            for (DomElement band : targetBands(configuration)) {
+                DomElement outer = band.getChild("expression");
+                String fused = outer != null ? inline(outer.getValue(), name, expression) : null;
+                if (fused == null) {
+                    return null;
+                }
+                outer.setValue(fused);
+            }
+            node.setConfiguration(configuration);
+            context.replaceSource(node, source.getId(), context.getSingleSource(source).getId());
+            context.remove(source.getId(), node.getId());
+            return new Rewrite("BandMaths fusion", "`" + source.getId() + "` inlined into `" + node.getId() + "`",
+                               context.getSignature(source.getId()));
+        }
+
+        static private boolean isBandMaths(Node node) {
+            return node.getOperatorName().equals("BandMaths") && node.getConfiguration() != null;
+        }
+
+        static private boolean hasVariables(Node node) {
+            DomElement variables = node.getConfiguration().getChild("variables");
+            return variables != null && variables.getChildCount() > 0;
+        }
+
+        static private DomElement[] targetBands(Node node) {
+            return targetBands(node.getConfiguration());
+        }
+
+        static private DomElement[] targetBands(DomElement configuration) {
+            DomElement bands = configuration.getChild("targetBands");
+            return bands != null ? bands.getChildren() : new DomElement[0];
+        }
+
+        static private boolean isPlainFloat(DomElement band) {
+            String type = value(band, "type");
+            String noData = value(band, "noDataValue");
+            return (type == null || type.equals("float32") || type.equals("float64"))
+                    && (noData == null || noData.equalsIgnoreCase("NaN"));
+        }
+
+        /**
+         * Replace the references to a band (plain or prefixed by the source reference, e.g. $1.band) with an
+         * expression.
+         * @return the new expression, or null if the band is used in a way that can not be inlined (e.g. band.raw)
+         */
+        static private String inline(String expression, String name, String replacement) {
+            if (expression == null) {
+                return null;
+            }
+            Matcher matcher = Pattern.compile("(?<![A-Za-z0-9_.$])(\\$[A-Za-z0-9_]+\\.)?" + Pattern.quote(name)
+                                              + "(?![A-Za-z0-9_])").matcher(expression);
+            StringBuffer result = new StringBuffer();
+            while (matcher.find()) {
+                if (matcher.end() < expression.length() && expression.charAt(matcher.end()) == '.') {
+                    return null;
+                }
+                matcher.appendReplacement(result, Matcher.quoteReplacement("(" + replacement + ")"));
+            }
+            matcher.appendTail(result);
+            return result.toString();
+        }
+    }
+
+    /**
+     * Collapse a Subset reading a Subset into a single Subset of the original source: regions are composed and
+     * sub-samplings multiplied. Only pixel regions are supported.
+     */
+    static class CollapseSubsets implements GraphRewriter.Rule {
+        @Override
+        public Rewrite apply(Node node, Context context) {
+            Node source = context.getSingleSource(node);
+            if (!isPixelSubset(node) || source == null || !isPixelSubset(source)
+                    || context.getSingleSource(source) == null || context.getConsumers(source.getId()).size() != 1) {
+                return null;
+            }
+            DomElement outer = node.getConfiguration();
+            DomElement inner = source.getConfiguration();
+            Rectangle outerRegion = region(outer);
+            Rectangle innerRegion = region(inner);
+            int innerStepX = step(inner, "subSamplingX");
+            int innerStepY = step(inner, "subSamplingY");
+            int outerStepX = step(outer, "subSamplingX");
+            int outerStepY = step(outer, "subSamplingY");
+            if (innerStepX < 1 || innerStepY < 1 || outerStepX < 1 || outerStepY < 1) {
+                return null;
+            }
+
+            Rectangle region = innerRegion;
+            if (outerRegion != null) {
+                // the outer region must lie inside the inner subset, otherwise the clipping would differ
+                ProductSignature innerOutput = context.getSignature(source.getId());
+                if (innerOutput == null || !new Rectangle(innerOutput.getWidth(), innerOutput.getHeight())
+                        .contains(outerRegion)) {
+                    return null;
+                }
+                int x = (innerRegion != null ? innerRegion.x : 0) + outerRegion.x * innerStepX;
+                int y = (innerRegion != null ? innerRegion.y : 0) + outerRegion.y * innerStepY;
+                region = new Rectangle(x, y, (outerRegion.width - 1) * innerStepX + 1,
+                                       (outerRegion.height - 1) * innerStepY + 1);
+            }
+
+            DomElement configuration = ConfigurationUtils.copy(outer, "region", "subSamplingX", "subSamplingY",
+                                                               "sourceBands", "tiePointGrids");
+            if (region != null) {
+                configuration.createChild("region").setValue(region.x + "," + region.y + ","
+                                                                     + region.width + "," + region.height);
+            }
+            configuration.createChild("subSamplingX").setValue(String.valueOf(innerStepX * outerStepX));
+            configuration.createChild("subSamplingY").setValue(String.valueOf(innerStepY * outerStepY));
+            for (String list : new String[]{"sourceBands", "tiePointGrids"}) {
+                String value = !isEmpty(value(outer, list)) ? value(outer, list) : value(inner, list);
+                if (!isEmpty(value)) {
+                    configuration.createChild(list).setValue(value);
+                }
+            }
+            node.setConfiguration(configuration);
+            context.replaceSource(node, source.getId(), context.getSingleSource(source).getId());
+            context.remove(source.getId(), node.getId());
+            return new Rewrite("Subset collapse", "`" + source.getId() + "` merged into `" + node.getId() + "`",
+                               context.getSignature(source.getId()));
+        }
+
+        static private boolean isPixelSubset(Node node) {
+            DomElement configuration = node.getConfiguration();
+            return node.getOperatorName().equals("Subset") && configuration != null
+                    && isEmpty(value(configuration, "geoRegion")) && isEmpty(value(configuration, "referenceBand"))
+                    && !"true".equals(value(configuration, "fullSwath"));
+        }
+
+        /**
+         * Pixel region of a subset.
+         * @return region, or null for the whole product
+         */
+        static private Rectangle region(DomElement configuration) {
+            String value = value(configuration, "region");
+            if (isEmpty(value)) {
+                return null;
+            }
+            String[] parts = value.split(",");
+            if (parts.length != 4) {
+                return null;
+            }
+            Rectangle region = new Rectangle(SchemaTransfers.toInt(parts[0], 0), SchemaTransfers.toInt(parts[1], 0),
+                                             SchemaTransfers.toInt(parts[2], 0), SchemaTransfers.toInt(parts[3], 0));
+            return region.isEmpty() ? null : region;
+        }
+
+        static private int step(DomElement configuration, String name) {
+            return SchemaTransfers.toInt(value(configuration, name), 1);
+        }
+    }
+
+    /**
+     * Remove a Resample or Reproject node whose validated output has the same grid as its source (same size, bands,
+     * geo-coding and time range, single size source): it only copies its source. Output nodes are kept.
+     */
+    static class RemoveIdentityGrid implements GraphRewriter.Rule {
+        @Override
+        public Rewrite apply(Node node, Context context) {
+            String operator = node.getOperatorName();
+            Node source = context.getSingleSource(node);
+            if (!(operator.equals("Resample") || operator.equals("Reproject")) || source == null
+                    || context.getConsumers(node.getId()).isEmpty()) {
+                return null;
+            }
+            ProductSignature input = context.getSignature(source.getId());
+            ProductSignature output = context.getSignature(node.getId());
+            if (input == null || input.isMultiSize() || !input.equals(output)) {
+                return null;
+            }
+            context.remove(node.getId(), source.getId());
+            return new Rewrite("Identity " + operator, "`" + node.getId() + "` removed, `" + source.getId()
+                    + "` already matches the target grid", output);
+        }
+    }
+
+    static private String value(DomElement element, String name) {
+        DomElement child = element.getChild(name);
+        return child != null ? child.getValue() : null;
+    }
+
+    static private boolean isEmpty(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
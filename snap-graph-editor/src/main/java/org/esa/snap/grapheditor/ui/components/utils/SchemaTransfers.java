@@ -0,0 +1,165 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.gpf.common.BandMathsOp;
+import org.esa.snap.grapheditor.ui.components.interfaces.SchemaTransfer;
+
+/**
+ * Registry of the schema transfer functions, indexed by operator alias.
+ * With the schema validation enabled (see SettingManager.isSchemaValidationEnabled) a node whose operator has a
+ * transfer function only propagates the schema of its output: no operator is created and no file is opened. The
+ * other nodes are validated as usual, computing on demand the products of their schema validated ancestors.
+ * Built-in functions cover BandMaths and Subset, other operators can register their own functions.
+ */
+public class SchemaTransfers {
+    static private SchemaTransfers instance = null;
+
+    private final ConcurrentHashMap<String, SchemaTransfer> transfers = new ConcurrentHashMap<>();
+
+    private SchemaTransfers() {
+        transfers.put("BandMaths", SchemaTransfers::bandMaths);
+        transfers.put("Subset", SchemaTransfers::subset);
+    }
+
+    /**
+     * Access the SchemaTransfers instance.
+     * @return the instance
+     */
+    static public synchronized SchemaTransfers getInstance() {
+        if (instance == null) {
+            instance = new SchemaTransfers();
+        }
+        return instance;
+    }
+
+    /**
+     * Register the transfer function of an operator, replacing the previous one.
+     * @param alias operator alias
+     * @param transfer transfer function
+     */
+    public void register(String alias, SchemaTransfer transfer) {
+        transfers.put(alias, transfer);
+    }
+
+    /**
+     * Get the transfer function of an operator.
+     * @param alias operator alias
+     * @return the transfer function or null if the operator only supports the full validation
+     */
+    public SchemaTransfer get(String alias) {
+        return transfers.get(alias);
+    }
+
+    /**
+     * BandMaths: one band per target band descriptor, on the raster of the first source.
+     */
+    static private ProductSignature bandMaths(ProductSignature[] sources, Map<String, Object> parameters) {
+        Object descriptors = parameters.get("targetBandDescriptors");
+        if (descriptors == null) {
+            descriptors = parameters.get("targetBands");
+        }
+        if (sources.length == 0 || !(descriptors instanceof Object[]) || ((Object[]) descriptors).length == 0) {
+            return null;
+        }
+        for (ProductSignature source : sources) {
+            if (source.getWidth() != sources[0].getWidth() || source.getHeight() != sources[0].getHeight()) {
+                return null;
+            }
+        }
+        Object[] bands = (Object[]) descriptors;
+        String[] names = new String[bands.length];
+        int[] types = new int[bands.length];
+        for (int i = 0; i < bands.length; i++) {
+            if (!(bands[i] instanceof BandMathsOp.BandDescriptor)) {
+                return null;
+            }
+            BandMathsOp.BandDescriptor descriptor = (BandMathsOp.BandDescriptor) bands[i];
+            names[i] = descriptor.name;
+            types[i] = descriptor.type != null ? ProductData.getType(descriptor.type) : ProductData.TYPE_FLOAT32;
+            if (names[i] == null || types[i] == ProductData.TYPE_UNDEFINED) {
+                return null;
+            }
+        }
+        return sources[0].withBands(names, types);
+    }
+
+    /**
+     * Subset: pixel region, sub-sampling and band selection. Geographic regions and multi-size subsets need the
+     * geo-coding of the source and are left to the full validation.
+     */
+    static private ProductSignature subset(ProductSignature[] sources, Map<String, Object> parameters) {
+        if (sources.length != 1 || parameters.get("geoRegion") != null || !isEmpty(parameters.get("referenceBand"))) {
+            return null;
+        }
+        ProductSignature source = sources[0];
+        Rectangle bounds = new Rectangle(source.getWidth(), source.getHeight());
+        Object value = parameters.get("region");
+        Rectangle region = value instanceof Rectangle && !((Rectangle) value).isEmpty() ? (Rectangle) value : bounds;
+        region = region.intersection(bounds);
+        int stepX = toInt(parameters.get("subSamplingX"), 1);
+        int stepY = toInt(parameters.get("subSamplingY"), 1);
+        if (region.isEmpty() || stepX < 1 || stepY < 1) {
+            return null;
+        }
+
+        String[] names = source.getBandNames();
+        int[] types = source.getBandTypes();
+        Object selection = parameters.get("sourceBands");
+        if (selection instanceof Object[] && ((Object[]) selection).length > 0) {
+            List<Object> selected = Arrays.asList((Object[]) selection);
+            ArrayList<String> subsetNames = new ArrayList<>();
+            int[] subsetTypes = new int[names.length];
+            for (int i = 0; i < names.length; i++) {
+                if (selected.contains(names[i])) {
+                    subsetTypes[subsetNames.size()] = types[i];
+                    subsetNames.add(names[i]);
+                }
+            }
+            if (subsetNames.size() != selected.size()) {
+                // unknown band, the full validation reports the error
+                return null;
+            }
+            names = subsetNames.toArray(new String[0]);
+            types = Arrays.copyOf(subsetTypes, names.length);
+        }
+
+        String geoCoding = source.getGeoCoding();
+        if (geoCoding != null && (!region.equals(bounds) || stepX != 1 || stepY != 1)) {
+            geoCoding += ";subset=" + region.x + "," + region.y + "," + region.width + "," + region.height
+                    + "," + stepX + "," + stepY;
+        }
+        return source.withBands(names, types)
+                     .withRaster((region.width - 1) / stepX + 1, (region.height - 1) / stepY + 1, geoCoding);
+    }
+
+    static private boolean isEmpty(Object value) {
+        return value == null || value.toString().isEmpty();
+    }
+
+    /**
+     * Read an integer parameter, that can be stored as a number or as a string.
+     * @param value parameter value
+     * @param defaultValue value used if the parameter is missing or invalid
+     * @return parameter value
+     */
+    static public int toInt(Object value, int defaultValue) {
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.toString().trim());
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+}
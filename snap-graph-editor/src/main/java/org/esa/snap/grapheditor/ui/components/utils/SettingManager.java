@@ -183,6 +183,19 @@ public class SettingManager {
     static final private String BGGRIDVISIBLEKEY = "background grid visible";
     static final private String LAYOUTMODE = "layout mode";
     static final private String WAITVERIFICATION = "wait verification";
+    static final private String VALIDATIONTHREADS = "validation threads";
+    static final private String BATCHJOBS = "batch parallel jobs";
+    static final private String BATCHJOBMEMORY = "batch job memory (MB)";
+    static final private String HEATMAPENABLED = "profiler heat map";
+    static final private String UNDOMEMORY = "undo memory (MB)";
+    static final private String PRODUCTCACHESIZE = "product cache entries";
+    static final private String PRODUCTCACHEMEMORY = "product cache memory (MB)";
+    static final private String SCHEMAVALIDATION = "schema only validation";
+    static final private String MERGEDUPLICATES = "merge duplicated nodes on execution";
+    static final private String GRAPHREWRITE = "graph rewrites on execution";
+    static final private String PARTITIONREGIONS = "partitioned execution regions";
+    static final private String PARTITIONOVERLAP = "partitioned execution overlap (px)";
+    static final private String GPTEXECUTABLE = "gpt executable (empty for the SNAP one)";
 
     /**
      * Initialize SettingManager with default values.
@@ -194,6 +207,19 @@ public class SettingManager {
         settings.put(AUTOVALIDATEKEY, new SettingValue(true));
         settings.put(BGGRIDVISIBLEKEY, new SettingValue(true));
         settings.put(WAITVERIFICATION, new SettingValue(true));
+        settings.put(VALIDATIONTHREADS, new SettingValue(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)));
+        settings.put(BATCHJOBS, new SettingValue(Math.max(1, Runtime.getRuntime().availableProcessors() / 2)));
+        settings.put(BATCHJOBMEMORY, new SettingValue(1024));
+        settings.put(HEATMAPENABLED, new SettingValue(false));
+        settings.put(UNDOMEMORY, new SettingValue(16));
+        settings.put(PRODUCTCACHESIZE, new SettingValue(32));
+        settings.put(PRODUCTCACHEMEMORY, new SettingValue(256));
+        settings.put(SCHEMAVALIDATION, new SettingValue(false));
+        settings.put(MERGEDUPLICATES, new SettingValue(true));
+        settings.put(GRAPHREWRITE, new SettingValue(true));
+        settings.put(PARTITIONREGIONS, new SettingValue(4));
+        settings.put(PARTITIONOVERLAP, new SettingValue(64));
+        settings.put(GPTEXECUTABLE, new SettingValue(""));
 
         String[] options = {"classic", "modern"};
         settings.put(LAYOUTMODE, new SettingValue(options, options[0]));
@@ -235,6 +261,119 @@ public class SettingManager {
         return settings.get(WAITVERIFICATION).asBoolean();
     }
 
+    /**
+     * Number of nodes that can be validated concurrently.
+     * @return validation parallelism (at least 1)
+     */
+    public int getValidationParallelism() {
+        return Math.max(1, settings.get(VALIDATIONTHREADS).asInt());
+    }
+
+    /**
+     * Maximum number of graphs executed concurrently by a batch.
+     * @return batch concurrency cap (at least 1)
+     */
+    public int getBatchParallelism() {
+        return Math.max(1, settings.get(BATCHJOBS).asInt());
+    }
+
+    /**
+     * Memory expected to be used by a single batch job, a new job is started only if this memory is available.
+     * @return job memory in bytes
+     */
+    public long getBatchJobMemory() {
+        return Math.max(0, settings.get(BATCHJOBMEMORY).asInt()) * 1024L * 1024L;
+    }
+
+    /**
+     * Are the nodes colored by their profiled execution time?
+     * @return heat map preference
+     */
+    public boolean isHeatMapEnabled() {
+        return settings.get(HEATMAPENABLED).asBoolean();
+    }
+
+    /**
+     * Memory budget of the undo history, the oldest edits are dropped above it.
+     * @return budget in bytes
+     */
+    public long getUndoMemory() {
+        return Math.max(0, settings.get(UNDOMEMORY).asInt()) * 1024L * 1024L;
+    }
+
+    /**
+     * Maximum number of validated products kept by the ProductCache (0 disables the cache).
+     * @return number of entries
+     */
+    public int getProductCacheSize() {
+        return Math.max(0, settings.get(PRODUCTCACHESIZE).asInt());
+    }
+
+    /**
+     * Memory budget of the ProductCache, the least recently used products are disposed above it.
+     * @return budget in bytes
+     */
+    public long getProductCacheMemory() {
+        return Math.max(0, settings.get(PRODUCTCACHEMEMORY).asInt()) * 1024L * 1024L;
+    }
+
+    /**
+     * Do the operators with a schema transfer function only propagate the product schema during the validation?
+     * @return schema validation preference
+     */
+    public boolean isSchemaValidationEnabled() {
+        return settings.get(SCHEMAVALIDATION).asBoolean();
+    }
+
+    /**
+     * Enable or disable the schema validation (see SchemaTransfers).
+     * @param enabled schema validation preference
+     */
+    public void setSchemaValidationEnabled(boolean enabled) {
+        settings.put(SCHEMAVALIDATION, new SettingValue(enabled));
+    }
+
+    /**
+     * Are the duplicated nodes merged before the execution (see GraphOptimizer)?
+     * @return merge preference
+     */
+    public boolean isMergeDuplicatesEnabled() {
+        return settings.get(MERGEDUPLICATES).asBoolean();
+    }
+
+    /**
+     * Are the graph rewrites (BandMaths fusion, Subset collapse...) applied before executing a graph?
+     * @return graph rewrite preference
+     */
+    public boolean isGraphRewriteEnabled() {
+        return settings.get(GRAPHREWRITE).asBoolean();
+    }
+
+    /**
+     * Number of regions of a partitioned execution (see PartitionRunner).
+     * @return region count (at least 1)
+     */
+    public int getPartitionRegions() {
+        return Math.max(1, settings.get(PARTITIONREGIONS).asInt());
+    }
+
+    /**
+     * Pixels shared by two neighbouring regions of a partitioned execution, it must cover the neighbourhood used by
+     * the operators of the graph (e.g. the filter size) for the stitching to be seamless.
+     * @return overlap in pixels
+     */
+    public int getPartitionOverlap() {
+        return Math.max(0, settings.get(PARTITIONOVERLAP).asInt());
+    }
+
+    /**
+     * gpt executable used by the partitioned execution.
+     * @return path of the executable (empty to use the one of the SNAP installation)
+     */
+    public String getGptExecutable() {
+        return settings.get(GPTEXECUTABLE).asString().trim();
+    }
+
     /**
      * Display the setting dialog
      * @param parent owner of the dialog
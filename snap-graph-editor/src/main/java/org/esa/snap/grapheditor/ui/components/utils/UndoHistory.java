@@ -0,0 +1,392 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.lang.reflect.Array;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.swing.SwingUtilities;
+
+import com.bc.ceres.binding.dom.DomElement;
+import org.esa.snap.core.gpf.graph.Node;
+import org.esa.snap.grapheditor.ui.components.NodeGui;
+
+/**
+ * Undo/redo history of the current graph.
+ * An edit stores the state of the nodes it touched before and after the change, and nothing else: undoing the edit
+ * restores the previous states, redoing it restores the new ones. The node states share the parameter maps and the
+ * configuration elements with the nodes (they are replaced and never modified), so the history costs a few objects
+ * per edited node even for large configurations.
+ * The nodes edited during an EDT event are collected into a single edit (e.g. a delete with the disconnection of all
+ * the outputs). The oldest edits are dropped when the estimated size of the history exceeds the memory budget.
+ * All the methods must be called from the EDT.
+ */
+class UndoHistory {
+    private final Function<String, NodeGui> lookup;
+    private final Consumer<Map<String, NodeState>> restorer;
+
+    // node id -> last recorded state of the node
+    private final HashMap<String, NodeState> baseline = new HashMap<>();
+    // ids of the nodes edited since the last flush
+    private final LinkedHashSet<String> dirty = new LinkedHashSet<>();
+    private final ArrayDeque<Edit> undoStack = new ArrayDeque<>();
+    private final ArrayDeque<Edit> redoStack = new ArrayDeque<>();
+    private long size = 0;
+    private boolean recording = false;
+    private boolean restoring = false;
+    private boolean flushScheduled = false;
+
+    /**
+     * Initialize the history.
+     * @param lookup node id -> node of the current graph (null if the node does not exist)
+     * @param restorer applies a set of node states to the graph (a null state means that the node must not exist)
+     */
+    UndoHistory(Function<String, NodeGui> lookup, Consumer<Map<String, NodeState>> restorer) {
+        this.lookup = lookup;
+        this.restorer = restorer;
+    }
+
+    /**
+     * Start a new history from the current nodes.
+     * @param nodes nodes of the graph
+     */
+    void reset(Collection<NodeGui> nodes) {
+        dirty.clear();
+        undoStack.clear();
+        redoStack.clear();
+        size = 0;
+        baseline.clear();
+        for (NodeGui n : nodes) {
+            baseline.put(n.getName(), NodeState.of(n));
+        }
+        recording = true;
+    }
+
+    /**
+     * Stop recording, for instance while a graph is being loaded.
+     */
+    void suspend() {
+        recording = false;
+        dirty.clear();
+    }
+
+    /**
+     * Record the change of a node, or its deletion if it does not exist anymore.
+     * @param id node id
+     */
+    void markDirty(String id) {
+        if (!recording || restoring) {
+            return;
+        }
+        dirty.add(id);
+        if (!flushScheduled) {
+            flushScheduled = true;
+            SwingUtilities.invokeLater(this::flush);
+        }
+    }
+
+    boolean canUndo() {
+        return !undoStack.isEmpty() || !dirty.isEmpty();
+    }
+
+    boolean canRedo() {
+        return !redoStack.isEmpty();
+    }
+
+    /**
+     * Estimated memory used by the history.
+     * @return size in bytes
+     */
+    long getSize() {
+        return size;
+    }
+
+    /**
+     * Undo the last edit.
+     * @return false if there is nothing to undo
+     */
+    boolean undo() {
+        flush();
+        Edit edit = undoStack.pollLast();
+        if (edit == null) {
+            return false;
+        }
+        restore(edit.before);
+        redoStack.addLast(edit);
+        return true;
+    }
+
+    /**
+     * Redo the last undone edit.
+     * @return false if there is nothing to redo
+     */
+    boolean redo() {
+        flush();
+        Edit edit = redoStack.pollLast();
+        if (edit == null) {
+            return false;
+        }
+        restore(edit.after);
+        undoStack.addLast(edit);
+        return true;
+    }
+
+    private void restore(Map<String, NodeState> states) {
+        restoring = true;
+        try {
+            restorer.accept(states);
+        } finally {
+            restoring = false;
+        }
+        for (String id : states.keySet()) {
+            NodeGui n = lookup.apply(id);
+            if (n == null) {
+                baseline.remove(id);
+            } else {
+                baseline.put(id, NodeState.of(n));
+            }
+        }
+    }
+
+    /**
+     * Collect the changes of the nodes edited since the last flush into a new edit.
+     */
+    private void flush() {
+        flushScheduled = false;
+        if (!recording || dirty.isEmpty()) {
+            return;
+        }
+        LinkedHashMap<String, NodeState> before = new LinkedHashMap<>();
+        LinkedHashMap<String, NodeState> after = new LinkedHashMap<>();
+        for (String id : dirty) {
+            NodeGui n = lookup.apply(id);
+            NodeState previous = baseline.get(id);
+            NodeState current = n != null ? NodeState.of(n) : null;
+            if (!NodeState.same(previous, current)) {
+                before.put(id, previous);
+                after.put(id, current);
+            }
+            if (current == null) {
+                baseline.remove(id);
+            } else {
+                baseline.put(id, current);
+            }
+        }
+        dirty.clear();
+        if (before.isEmpty()) {
+            return;
+        }
+        for (Edit edit : redoStack) {
+            size -= edit.size;
+        }
+        redoStack.clear();
+        Edit edit = new Edit(before, after);
+        undoStack.addLast(edit);
+        size += edit.size;
+
+        long budget = SettingManager.getInstance().getUndoMemory();
+        while (size > budget && undoStack.size() > 1) {
+            size -= undoStack.pollFirst().size;
+        }
+    }
+
+    /**
+     * States of the nodes touched by an edit.
+     */
+    static private class Edit {
+        private final Map<String, NodeState> before;
+        private final Map<String, NodeState> after;
+        private final long size;
+
+        private Edit(Map<String, NodeState> before, Map<String, NodeState> after) {
+            this.before = before;
+            this.after = after;
+            long s = 64;
+            for (String id : before.keySet()) {
+                s += 2 * (32 + 2L * id.length()) + NodeState.size(before.get(id), null)
+                        + NodeState.size(after.get(id), before.get(id));
+            }
+            this.size = s;
+        }
+    }
+
+    /**
+     * Immutable state of a node: operator, position, sources and parameters.
+     */
+    static final class NodeState {
+        // nesting level of the parameter values estimated by size
+        static private final int MAX_DEPTH = 6;
+
+        private final String operator;
+        private final int x;
+        private final int y;
+        private final SortedMap<Integer, String> sources;
+        private final Map<String, Object> parameters;
+        private final DomElement configuration;
+
+        private NodeState(String operator, int x, int y, SortedMap<Integer, String> sources,
+                          Map<String, Object> parameters, DomElement configuration) {
+            this.operator = operator;
+            this.x = x;
+            this.y = y;
+            this.sources = sources;
+            this.parameters = parameters;
+            this.configuration = configuration;
+        }
+
+        static NodeState of(NodeGui n) {
+            Node node = n.getNode();
+            return new NodeState(node.getOperatorName(), n.getX(), n.getY(),
+                                 Collections.unmodifiableSortedMap(n.getInputSources()), n.getConfiguration(),
+                                 node.getConfiguration());
+        }
+
+        String getOperator() {
+            return operator;
+        }
+
+        int getX() {
+            return x;
+        }
+
+        int getY() {
+            return y;
+        }
+
+        /**
+         * Ids of the source nodes by input index, inputs may be left unconnected (e.g. the first of two mandatory
+         * inputs).
+         * @return input index -> source id, in input order
+         */
+        SortedMap<Integer, String> getSources() {
+            return sources;
+        }
+
+        Map<String, Object> getParameters() {
+            return parameters;
+        }
+
+        DomElement getConfiguration() {
+            return configuration;
+        }
+
+        /**
+         * Rough estimate of the memory retained by a state, from the payload of the parameters: the values shared
+         * with another state of the same edit (same reference) are counted only once.
+         * @param state state to estimate
+         * @param base other state of the edit, or null
+         * @return size in bytes
+         */
+        static private long size(NodeState state, NodeState base) {
+            if (state == null) {
+                return 0;
+            }
+            long s = 64 + 48L * state.sources.size();
+            if (state.parameters != null) {
+                for (Map.Entry<String, Object> p : state.parameters.entrySet()) {
+                    s += 48 + 2L * p.getKey().length();
+                    boolean shared = base != null && base.parameters != null
+                            && base.parameters.get(p.getKey()) == p.getValue();
+                    if (!shared) {
+                        s += payload(p.getValue(), 0);
+                    }
+                }
+            }
+            return s;
+        }
+
+        /**
+         * Estimated size of a parameter value: strings by length, arrays by length and element size, DOM elements
+         * and collections by their content.
+         */
+        static private long payload(Object value, int depth) {
+            if (value == null) {
+                return 0;
+            }
+            if (value instanceof String) {
+                return 40 + 2L * ((String) value).length();
+            }
+            if (depth >= MAX_DEPTH) {
+                return 64;
+            }
+            if (value instanceof Object[]) {
+                long s = 16 + 8L * ((Object[]) value).length;
+                for (Object element : (Object[]) value) {
+                    s += payload(element, depth + 1);
+                }
+                return s;
+            }
+            if (value.getClass().isArray()) {
+                Class<?> type = value.getClass().getComponentType();
+                int element = type == long.class || type == double.class ? 8
+                        : type == int.class || type == float.class ? 4
+                        : type == short.class || type == char.class ? 2 : 1;
+                return 16 + (long) element * Array.getLength(value);
+            }
+            if (value instanceof DomElement) {
+                DomElement element = (DomElement) value;
+                long s = 64 + payload(element.getName(), depth + 1) + payload(element.getValue(), depth + 1);
+                String[] attributes = element.getAttributeNames();
+                if (attributes != null) {
+                    for (String attribute : attributes) {
+                        s += payload(attribute, depth + 1) + payload(element.getAttribute(attribute), depth + 1);
+                    }
+                }
+                for (DomElement child : element.getChildren()) {
+                    // the nesting of a configuration is not bounded by the parameters
+                    s += payload(child, depth);
+                }
+                return s;
+            }
+            if (value instanceof Map) {
+                long s = 48;
+                for (Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+                    s += 32 + payload(e.getKey(), depth + 1) + payload(e.getValue(), depth + 1);
+                }
+                return s;
+            }
+            if (value instanceof Collection) {
+                long s = 48;
+                for (Object element : (Collection<?>) value) {
+                    s += 16 + payload(element, depth + 1);
+                }
+                return s;
+            }
+            return 64;
+        }
+
+        static private boolean same(NodeState a, NodeState b) {
+            if (a == null || b == null) {
+                return a == b;
+            }
+            return a.operator.equals(b.operator) && a.x == b.x && a.y == b.y && a.sources.equals(b.sources)
+                    && sameParameters(a.parameters, b.parameters);
+        }
+
+        static private boolean sameParameters(Map<String, Object> a, Map<String, Object> b) {
+            if (a == b) {
+                return true;
+            }
+            if (a == null || b == null || !a.keySet().equals(b.keySet())) {
+                return false;
+            }
+            for (String key : a.keySet()) {
+                Object x = a.get(key);
+                Object y = b.get(key);
+                // the hash rejects most of the changes, equal hashes are confirmed as they may collide
+                if (x != y && (ConfigurationHash.hash(x, 0) != ConfigurationHash.hash(y, 0)
+                        || !ConfigurationHash.equal(x, y, 0))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
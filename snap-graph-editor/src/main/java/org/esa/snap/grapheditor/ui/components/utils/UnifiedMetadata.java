@@ -1,27 +1,45 @@
 package org.esa.snap.grapheditor.ui.components.utils;
 
+import java.io.Serializable;
 import java.lang.reflect.Field;
 import java.util.HashMap;
 import java.util.ArrayList;
 
+import org.esa.snap.core.gpf.GPF;
+import org.esa.snap.core.gpf.OperatorSpi;
 import org.esa.snap.core.gpf.annotations.OperatorMetadata;
 import org.esa.snap.core.gpf.annotations.SourceProduct;
 import org.esa.snap.core.gpf.annotations.SourceProducts;
 import org.esa.snap.core.gpf.descriptor.OperatorDescriptor;
 
-public class UnifiedMetadata {
+/**
+ * Operator metadata used by the editor (menus, inputs, tooltips).
+ * All the information is extracted once from the operator annotations and descriptor, so that the metadata can be
+ * serialized in the OperatorMetadataIndex. The full OperatorDescriptor is not serialized and is resolved from the
+ * operator registry only when needed.
+ */
+public class UnifiedMetadata implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private String name;
+    private final String alias;
     private final String name_lower;
     private final String description;
     private final String category;
     private final String category_lower;
-    private final OperatorDescriptor descriptor;
+    private transient OperatorDescriptor descriptor;
 
     private final int minNInputs;
     private final int maxNInputs;
     private final boolean hasOutputProduct;
-    private final HashMap<String, SourceProduct> sourceProductList = new HashMap<>();
-    private final HashMap<String, SourceProducts> sourceProductsList = new HashMap<>();
+    private final String outputDescription;
+    private final String[] inputDescriptions;
+    private final String sourceProductsDescription;
+    private final boolean hasSourceProductsDescriptor;
+    // source product name -> optional flag
+    private final HashMap<String, Boolean> sourceProductList = new HashMap<>();
+    // source products name -> count
+    private final HashMap<String, Integer> sourceProductsList = new HashMap<>();
     private final HashMap<Integer, String> indexNameMap = new HashMap<>();
     private final HashMap<String, Integer> nameIndexMap = new HashMap<>();
     private final ArrayList<String> mandatoryInputs = new ArrayList<>();
@@ -38,7 +56,16 @@ public class UnifiedMetadata {
         //     maxNInputs = minNInputs;
         // }
         hasOutputProduct = descriptor.getTargetProductDescriptor() != null;
+        outputDescription = descriptor.getDescription();
+        hasSourceProductsDescriptor = descriptor.getSourceProductsDescriptor() != null;
+        sourceProductsDescription = hasSourceProductsDescriptor
+                ? descriptor.getSourceProductsDescriptor().getDescription() : null;
+        inputDescriptions = new String[descriptor.getSourceProductDescriptors().length];
+        for (int index = 0; index < inputDescriptions.length; index ++) {
+            inputDescriptions[index] = descriptor.getSourceProductDescriptors()[index].getDescription();
+        }
 
+        alias = opMetadata.alias();
         name = opMetadata.label();
         if (name.length() == 0) {
             name = opMetadata.alias();
@@ -61,7 +88,7 @@ public class UnifiedMetadata {
         for (Field declaredField : fields) {
             SourceProduct sourceProductAnnotation = declaredField.getAnnotation(SourceProduct.class);
             if (sourceProductAnnotation != null) {
-                this.sourceProductList.put(declaredField.getName(), sourceProductAnnotation);
+                this.sourceProductList.put(declaredField.getName(), sourceProductAnnotation.optional());
                 if (!sourceProductAnnotation.optional()) {
                     this.mandatoryInputs.add(declaredField.getName());
                 }
@@ -72,7 +99,7 @@ public class UnifiedMetadata {
             }
             SourceProducts sourceProductsAnnotation = declaredField.getAnnotation(SourceProducts.class);
             if (sourceProductsAnnotation != null) {
-                this.sourceProductsList.put(declaredField.getName(), sourceProductsAnnotation);
+                this.sourceProductsList.put(declaredField.getName(), sourceProductsAnnotation.count());
                 if (sourceProductsAnnotation.count() > 0) {
                     minInput += sourceProductsAnnotation.count();
                     if (maxInput >= 0)
@@ -94,6 +121,14 @@ public class UnifiedMetadata {
         return name;
     }
 
+    /**
+     * Operator alias, as registered in the operator SPI registry.
+     * @return alias
+     */
+    public String getAlias() {
+        return alias;
+    }
+
     @Override
     public String toString() {
         return "<html>\n<b>"+name+"</b><br>\n"+category+"\n</html>";
@@ -153,16 +188,16 @@ public class UnifiedMetadata {
 
     public String getOutputDescription() {
         if (hasOutput())
-            return descriptor.getDescription(); // TODO or get label??
+            return outputDescription; // TODO or get label??
         return "";
     }
 
     public String getInputDescription(int index) {
         if (hasInputs()) {
-            if (index <  descriptor.getSourceProductDescriptors().length) {
-                return descriptor.getSourceProductDescriptors()[index].getDescription(); // TODO or label?
-            } else if (descriptor.getSourceProductsDescriptor() != null) {
-                return descriptor.getSourceProductsDescriptor().getDescription();
+            if (index <  inputDescriptions.length) {
+                return inputDescriptions[index]; // TODO or label?
+            } else if (hasSourceProductsDescriptor) {
+                return sourceProductsDescription;
             }
         }
         return "";
@@ -172,7 +207,7 @@ public class UnifiedMetadata {
         if (hasInputs()) {
             if (this.indexNameMap.containsKey(index)) {
                 return this.indexNameMap.get(index);
-            } else if (descriptor.getSourceProductsDescriptor() != null) {
+            } else if (hasSourceProductsDescriptor) {
                 String name =  "sourceProduct";
                 if (index > this.getMinNumberOfInputs() - 1) {
                     int localIndex = index - this.getMinNumberOfInputs() + 1;
@@ -193,7 +228,7 @@ public class UnifiedMetadata {
 
     public boolean isInputOptional(String name){
         if (sourceProductList.containsKey(name)) {
-            return sourceProductList.get(name).optional();
+            return sourceProductList.get(name);
         }
         return true;
     }
@@ -210,12 +245,22 @@ public class UnifiedMetadata {
         return this.mandatoryInputs;
     }
 
+    /**
+     * Full operator descriptor, resolved from the operator registry if the metadata has been loaded from the index.
+     * @return operator descriptor (null if the operator is not available anymore)
+     */
     public OperatorDescriptor getDescriptor() {
+        if (descriptor == null) {
+            OperatorSpi spi = GPF.getDefaultInstance().getOperatorSpiRegistry().getOperatorSpi(alias);
+            if (spi != null) {
+                descriptor = spi.getOperatorDescriptor();
+            }
+        }
         return descriptor;
     }
 
 
     public boolean hasSourceProducts(){
-        return descriptor.getSourceProductsDescriptor() != null;
+        return hasSourceProductsDescriptor;
     }
 }
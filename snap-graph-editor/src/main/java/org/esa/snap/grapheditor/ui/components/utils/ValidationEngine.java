@@ -0,0 +1,337 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.esa.snap.grapheditor.ui.components.NodeGui;
+
+/**
+ * Incremental validation engine.
+ * Instead of re-validating every node downstream of a change, the engine keeps:
+ *  - a cached topological order of the graph, provided by the GraphIndex and recomputed only when the structure
+ *    of the graph changes
+ *  - a dirty set, containing the nodes whose inputs or parameters changed since their last validation
+ *  - the output signature of each node (see ProductSignature)
+ * When a dirty node is validated its children are marked dirty only if its validation status or its output
+ * signature changed, so a parameter change that does not modify the output stops the propagation immediately.
+ *
+ * Dirty marking and planning happen on the EDT, while the returned Plan is executed on a worker thread. Nodes of the
+ * same level of the graph do not depend on each other, so the dirty nodes of a level are validated concurrently on
+ * a bounded ForkJoinPool (see SettingManager.getValidationParallelism). The notifications of each node are captured
+ * and dispatched in topological order once the level is completed, so the status updates stay ordered for the UI.
+ *
+ * Plans are executed one at a time. A running plan can be superseded by cancelling its CancellationToken: it stops at
+ * the next node and the nodes it could not validate are handed over to the next plan.
+ */
+public class ValidationEngine {
+    private final GraphIndex index;
+
+    private final LinkedHashSet<NodeGui> dirty = new LinkedHashSet<>();
+    // nodes left over by a cancelled plan
+    private final LinkedHashSet<NodeGui> leftovers = new LinkedHashSet<>();
+    private final Object runLock = new Object();
+    private ForkJoinPool pool = null;
+
+    /**
+     * Create the engine on top of the graph index.
+     * @param index graph index (owned by the GraphManager)
+     */
+    ValidationEngine(GraphIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Mark a node as dirty, it will be re-validated by the next plan.
+     * @param node node to re-validate
+     */
+    synchronized void markDirty(NodeGui node) {
+        dirty.add(node);
+    }
+
+    /**
+     * Mark a collection of nodes as dirty.
+     * @param nodes nodes to re-validate
+     */
+    synchronized void markDirty(Collection<NodeGui> nodes) {
+        dirty.addAll(nodes);
+    }
+
+    /**
+     * Mark all the nodes of the graph as dirty.
+     */
+    synchronized void markAllDirty() {
+        GraphIndex.Snapshot snapshot = index.getSnapshot();
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (snapshot.getNode(i) != null) {
+                dirty.add(snapshot.getNode(i));
+            }
+        }
+    }
+
+    /**
+     * Clear the dirty set, used when the graph is cleared.
+     */
+    synchronized void reset() {
+        dirty.clear();
+        leftovers.clear();
+    }
+
+    /**
+     * Check if there is any pending change.
+     * @return if some node needs to be validated
+     */
+    synchronized boolean hasDirtyNodes() {
+        return !dirty.isEmpty();
+    }
+
+    /**
+     * Prepare a validation plan: a snapshot of the current graph structure and of the dirty set, that can be safely
+     * executed on a different thread. The dirty set is drained.
+     * @return the validation plan
+     */
+    synchronized Plan plan() {
+        GraphIndex.Snapshot snapshot = index.getSnapshot();
+        if (!snapshot.isAcyclic()) {
+            NotificationManager.getInstance().warning("Graph", "cycle detected, some nodes will not be validated");
+        }
+        boolean[] flags = new boolean[snapshot.size()];
+        int count = 0;
+        for (NodeGui n : dirty) {
+            int i = index.indexOf(n);
+            if (i >= 0) {
+                flags[i] = true;
+                count++;
+            }
+        }
+        dirty.clear();
+        return new Plan(snapshot, flags, count);
+    }
+
+    /**
+     * Execute a validation plan. Levels are visited in order, only dirty nodes are validated and the children of a
+     * node are marked dirty only if its output changed.
+     * The call waits for the end of any other running plan, so that two plans never modify the same nodes
+     * concurrently.
+     * @param plan plan to execute
+     * @param token cancellation token of the job
+     * @return false if at least one node is in error or if the plan has been cancelled
+     */
+    boolean run(Plan plan, CancellationToken token) {
+        synchronized (runLock) {
+            adoptLeftovers(plan);
+            boolean status = run(plan, token, getPool());
+            if (token.isCancelled()) {
+                saveLeftovers(plan);
+                return false;
+            }
+            return status;
+        }
+    }
+
+    private boolean run(Plan plan, CancellationToken token, ForkJoinPool executor) {
+        boolean status = true;
+        int total = plan.snapshot.getOrder().length;
+        int done = 0;
+        for (int[] level : plan.snapshot.getLevels()) {
+            if (token.isCancelled()) {
+                return false;
+            }
+            ArrayList<Integer> toValidate = new ArrayList<>();
+            for (int current : level) {
+                if (plan.dirty[current]) {
+                    toValidate.add(current);
+                }
+            }
+            done += level.length;
+            if (toValidate.isEmpty()) {
+                continue;
+            }
+
+            ArrayList<Future<Result>> futures = new ArrayList<>(toValidate.size());
+            if (toValidate.size() > 1 && executor.getParallelism() > 1) {
+                for (int current : toValidate) {
+                    NodeGui n = plan.snapshot.getNode(current);
+                    futures.add(executor.submit(() -> validate(n, token, true)));
+                }
+            }
+
+            for (int i = 0; i < toValidate.size(); i++) {
+                int current = toValidate.get(i);
+                NodeGui n = plan.snapshot.getNode(current);
+                Result result = futures.isEmpty() ? validate(n, token, false) : await(futures.get(i), n);
+                NotificationManager.getInstance().publish(result.notifications);
+                if (token.isCancelled()) {
+                    // the node keeps its dirty flag, it will be handed over to the next plan
+                    continue;
+                }
+                plan.dirty[current] = false;
+                plan.validated++;
+
+                if (n.getValidationStatus() == NodeGui.ValidationStatus.ERROR) {
+                    status = false;
+                }
+                if (result.changed) {
+                    for (int child : plan.snapshot.getChildren(current)) {
+                        plan.dirty[child] = true;
+                    }
+                }
+            }
+            NotificationManager.getInstance().progress((int) (100 * done / (float) total));
+        }
+        return status;
+    }
+
+    /**
+     * Add the nodes left over by a cancelled plan to a new plan.
+     * @param plan new plan
+     */
+    private synchronized void adoptLeftovers(Plan plan) {
+        for (NodeGui n : leftovers) {
+            int i = plan.snapshot.indexOf(n);
+            if (i >= 0) {
+                plan.dirty[i] = true;
+            }
+        }
+        leftovers.clear();
+    }
+
+    /**
+     * Save the nodes that a cancelled plan could not validate.
+     * @param plan cancelled plan
+     */
+    private synchronized void saveLeftovers(Plan plan) {
+        for (int i = 0; i < plan.dirty.length; i++) {
+            if (plan.dirty[i]) {
+                leftovers.add(plan.snapshot.getNode(i));
+            }
+        }
+    }
+
+    /**
+     * Validate a single node and check if its output changed.
+     * @param n node to validate
+     * @param token cancellation token of the job
+     * @param capture capture the notifications of the node instead of dispatching them immediately
+     * @return validation result
+     */
+    private static Result validate(NodeGui n, CancellationToken token, boolean capture) {
+        ProductSignature signature = n.getOutputSignature();
+        NodeGui.ValidationStatus validationStatus = n.getValidationStatus();
+        if (capture) {
+            NotificationManager.getInstance().startCapture();
+        }
+        List<Notification> notifications;
+        try {
+            n.updateSources();
+            n.validate(token);
+        } finally {
+            notifications = capture ? NotificationManager.getInstance().stopCapture() : new ArrayList<>();
+        }
+        return new Result(hasChanged(n, signature, validationStatus), notifications);
+    }
+
+    private static boolean hasChanged(NodeGui n, ProductSignature signature, NodeGui.ValidationStatus status) {
+        return status != n.getValidationStatus() || !Objects.equals(signature, n.getOutputSignature());
+    }
+
+    /**
+     * Wait for the validation of a node executed on the pool.
+     * @param future pending validation
+     * @param n validated node
+     * @return validation result
+     */
+    private static Result await(Future<Result> future, NodeGui n) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            NotificationManager.getInstance().error(n.getName(), "validation failed `" + e.getCause() + "`");
+        }
+        // the output of the node is unknown, consider it changed
+        return new Result(true, new ArrayList<>());
+    }
+
+    /**
+     * Run a task on the validation pool, e.g. the computation of products needed by the UI, so that it does not
+     * block the EDT while the nodes it touches are being validated.
+     * @param task task to run
+     */
+    void submit(Runnable task) {
+        getPool().execute(task);
+    }
+
+    /**
+     * Get the validation pool, re-created if the parallelism setting changed.
+     * @return validation pool
+     */
+    private synchronized ForkJoinPool getPool() {
+        int parallelism = SettingManager.getInstance().getValidationParallelism();
+        if (pool == null || pool.getParallelism() != parallelism) {
+            if (pool != null) {
+                pool.shutdown();
+            }
+            pool = new ForkJoinPool(parallelism);
+        }
+        return pool;
+    }
+
+    /**
+     * Outcome of the validation of a single node.
+     */
+    private static class Result {
+        private final boolean changed;
+        private final List<Notification> notifications;
+
+        private Result(boolean changed, List<Notification> notifications) {
+            this.changed = changed;
+            this.notifications = notifications;
+        }
+    }
+
+    /**
+     * Snapshot of the work to do for a validation job.
+     */
+    static class Plan {
+        private final GraphIndex.Snapshot snapshot;
+        private final boolean[] dirty;
+        private final int dirtyCount;
+        private int validated = 0;
+
+        private Plan(GraphIndex.Snapshot snapshot, boolean[] dirty, int dirtyCount) {
+            this.snapshot = snapshot;
+            this.dirty = dirty;
+            this.dirtyCount = dirtyCount;
+        }
+
+        /**
+         * Check if the plan has something to validate.
+         * @return if the plan is empty
+         */
+        boolean isEmpty() {
+            return dirtyCount == 0;
+        }
+
+        /**
+         * Number of nodes marked as dirty when the plan was created.
+         * @return dirty nodes count
+         */
+        int getDirtyCount() {
+            return dirtyCount;
+        }
+
+        /**
+         * Number of nodes actually validated while running the plan.
+         * @return validated nodes count
+         */
+        int getValidatedCount() {
+            return validated;
+        }
+    }
+}
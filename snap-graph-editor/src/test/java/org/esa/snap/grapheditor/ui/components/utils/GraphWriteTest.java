@@ -0,0 +1,63 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+import org.esa.snap.core.gpf.graph.Graph;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Atomic write of the graph files (GraphManager.writeGraph).
+ */
+public class GraphWriteTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void posixOnly() {
+        Assume.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+    }
+
+    @Test
+    public void writeGraphKeepsThePermissionsOfTheReplacedFile() throws IOException {
+        Path file = folder.newFile("graph.xml").toPath();
+        Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-r--r--"));
+
+        GraphManager.writeGraph(new Graph("test"), file.toFile());
+
+        assertEquals("rw-r--r--", PosixFilePermissions.toString(Files.getPosixFilePermissions(file)));
+        assertTrue(Files.size(file) > 0);
+    }
+
+    @Test
+    public void writeGraphCreatesFilesWithTheDefaultPermissions() throws IOException {
+        Set<PosixFilePermission> defaults = Files.getPosixFilePermissions(folder.newFile("reference").toPath());
+        File file = new File(folder.getRoot(), "graph.xml");
+
+        GraphManager.writeGraph(new Graph("test"), file);
+
+        assertEquals(defaults, Files.getPosixFilePermissions(file.toPath()));
+    }
+
+    @Test
+    public void writeGraphLeavesNoTemporaryFile() throws IOException {
+        GraphManager.writeGraph(new Graph("test"), new File(folder.getRoot(), "graph.xml"));
+
+        String[] names = folder.getRoot().list();
+        assertEquals(1, names.length);
+        assertEquals("graph.xml", names[0]);
+    }
+}
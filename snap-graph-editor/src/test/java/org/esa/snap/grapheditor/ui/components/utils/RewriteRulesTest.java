@@ -0,0 +1,211 @@
+package org.esa.snap.grapheditor.ui.components.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.bc.ceres.binding.dom.DomElement;
+import com.bc.ceres.binding.dom.XppDomElement;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.gpf.graph.Graph;
+import org.esa.snap.core.gpf.graph.Node;
+import org.esa.snap.core.gpf.graph.NodeSource;
+import org.junit.Test;
+
+/**
+ * Built-in rules of the GraphRewriter, applied through GraphRewriter.rewrite on small graphs.
+ */
+public class RewriteRulesTest {
+
+    @Test
+    public void fuseBandMathsInlinesTheInnerExpression() {
+        Graph graph = graph(read(), bandMaths("inner", "Read", "a", "B1 * 2"),
+                            bandMaths("outer", "inner", "b", "a + 1"));
+        Map<String, String> removed = new HashMap<>();
+
+        List<GraphRewriter.Rewrite> rewrites = rewrite(graph, new HashMap<>(), removed);
+
+        assertEquals(1, rewrites.size());
+        assertNull(graph.getNode("inner"));
+        assertEquals("(B1 * 2) + 1", expression(graph.getNode("outer")));
+        assertEquals("Read", graph.getNode("outer").getSource(0).getSourceNodeId());
+        assertEquals("outer", removed.get("inner"));
+    }
+
+    @Test
+    public void fuseBandMathsReplacesPrefixedReferencesOnly() {
+        Graph graph = graph(read(), bandMaths("inner", "Read", "a", "B1 * 2"),
+                            bandMaths("outer", "inner", "b", "$1.a + ab + a_1 + a"));
+
+        rewrite(graph, new HashMap<>(), new HashMap<>());
+
+        assertEquals("(B1 * 2) + ab + a_1 + (B1 * 2)", expression(graph.getNode("outer")));
+    }
+
+    @Test
+    public void fuseBandMathsKeepsBandProperties() {
+        Graph graph = graph(read(), bandMaths("inner", "Read", "a", "B1 * 2"),
+                            bandMaths("outer", "inner", "b", "a.raw + 1"));
+
+        assertTrue(rewrite(graph, new HashMap<>(), new HashMap<>()).isEmpty());
+        assertNotNull(graph.getNode("inner"));
+        assertEquals("a.raw + 1", expression(graph.getNode("outer")));
+    }
+
+    @Test
+    public void fuseBandMathsRejectsValidExpressions() {
+        Node inner = bandMaths("inner", "Read", "a", "B1 * 2");
+        targetBand(inner).createChild("validExpression").setValue("B1 > 0");
+        Graph graph = graph(read(), inner, bandMaths("outer", "inner", "b", "a + 1"));
+
+        assertTrue(rewrite(graph, new HashMap<>(), new HashMap<>()).isEmpty());
+        assertNotNull(graph.getNode("inner"));
+    }
+
+    @Test
+    public void fuseBandMathsRejectsIntegerBands() {
+        Node inner = bandMaths("inner", "Read", "a", "B1 * 2");
+        targetBand(inner).getChild("type").setValue("int16");
+        Graph graph = graph(read(), inner, bandMaths("outer", "inner", "b", "a + 1"));
+
+        assertTrue(rewrite(graph, new HashMap<>(), new HashMap<>()).isEmpty());
+    }
+
+    @Test
+    public void fuseBandMathsRejectsSharedProducts() {
+        Graph graph = graph(read(), bandMaths("inner", "Read", "a", "B1 * 2"),
+                            bandMaths("outer", "inner", "b", "a + 1"), bandMaths("other", "inner", "c", "a - 1"));
+
+        assertTrue(rewrite(graph, new HashMap<>(), new HashMap<>()).isEmpty());
+        assertNotNull(graph.getNode("inner"));
+    }
+
+    @Test
+    public void collapseSubsetsComposesRegionsAndSteps() {
+        Graph graph = graph(read(), subset("inner", "Read", "10,20,100,100", 2),
+                            subset("outer", "inner", "5,5,10,10", 3));
+        Map<String, ProductSignature> signatures = new HashMap<>();
+        signatures.put("inner", signature(50, 50));
+        Map<String, String> removed = new HashMap<>();
+
+        List<GraphRewriter.Rewrite> rewrites = rewrite(graph, signatures, removed);
+
+        assertEquals(1, rewrites.size());
+        assertNull(graph.getNode("inner"));
+        Node outer = graph.getNode("outer");
+        assertEquals("20,30,19,19", value(outer, "region"));
+        assertEquals("6", value(outer, "subSamplingX"));
+        assertEquals("6", value(outer, "subSamplingY"));
+        assertEquals("B1", value(outer, "sourceBands"));
+        assertEquals("Read", outer.getSource(0).getSourceNodeId());
+        assertEquals("outer", removed.get("inner"));
+    }
+
+    @Test
+    public void collapseSubsetsKeepsTheInnerRegion() {
+        Graph graph = graph(read(), subset("inner", "Read", "10,20,100,100", 2), subset("outer", "inner", null, 1));
+
+        rewrite(graph, new HashMap<>(), new HashMap<>());
+
+        Node outer = graph.getNode("outer");
+        assertNull(graph.getNode("inner"));
+        assertEquals("10,20,100,100", value(outer, "region"));
+        assertEquals("2", value(outer, "subSamplingX"));
+    }
+
+    @Test
+    public void collapseSubsetsNeedsTheInnerSize() {
+        Graph graph = graph(read(), subset("inner", "Read", "10,20,100,100", 1),
+                            subset("outer", "inner", "5,5,10,10", 1));
+
+        assertTrue(rewrite(graph, new HashMap<>(), new HashMap<>()).isEmpty());
+    }
+
+    @Test
+    public void collapseSubsetsRejectsRegionsOutsideTheInnerSubset() {
+        Graph graph = graph(read(), subset("inner", "Read", "10,20,100,100", 1),
+                            subset("outer", "inner", "95,0,10,10", 1));
+        Map<String, ProductSignature> signatures = new HashMap<>();
+        signatures.put("inner", signature(100, 100));
+
+        assertTrue(rewrite(graph, signatures, new HashMap<>()).isEmpty());
+        assertNotNull(graph.getNode("inner"));
+    }
+
+    @Test
+    public void collapseSubsetsRejectsGeographicRegions() {
+        Node inner = subset("inner", "Read", null, 1);
+        inner.getConfiguration().createChild("geoRegion").setValue("POLYGON((0 0, 1 0, 1 1, 0 1, 0 0))");
+        Graph graph = graph(read(), inner, subset("outer", "inner", null, 2));
+
+        assertTrue(rewrite(graph, new HashMap<>(), new HashMap<>()).isEmpty());
+    }
+
+    static private List<GraphRewriter.Rewrite> rewrite(Graph graph, Map<String, ProductSignature> signatures,
+                                                       Map<String, String> removed) {
+        return GraphRewriter.getInstance().rewrite(graph, signatures::get, removed);
+    }
+
+    static private Graph graph(Node... nodes) {
+        Graph graph = new Graph("test");
+        for (Node node : nodes) {
+            graph.addNode(node);
+        }
+        return graph;
+    }
+
+    static private Node read() {
+        Node node = new Node("Read", "Read");
+        node.setConfiguration(new XppDomElement("parameters"));
+        node.getConfiguration().createChild("file").setValue("input.dim");
+        return node;
+    }
+
+    static private Node bandMaths(String id, String source, String band, String expression) {
+        Node node = new Node(id, "BandMaths");
+        node.addSource(new NodeSource("sourceProduct", source));
+        DomElement configuration = new XppDomElement("parameters");
+        DomElement targetBand = configuration.createChild("targetBands").createChild("targetBand");
+        targetBand.createChild("name").setValue(band);
+        targetBand.createChild("type").setValue("float32");
+        targetBand.createChild("expression").setValue(expression);
+        node.setConfiguration(configuration);
+        return node;
+    }
+
+    static private Node subset(String id, String source, String region, int step) {
+        Node node = new Node(id, "Subset");
+        node.addSource(new NodeSource("sourceProduct", source));
+        DomElement configuration = new XppDomElement("parameters");
+        if (region != null) {
+            configuration.createChild("region").setValue(region);
+        }
+        configuration.createChild("subSamplingX").setValue(String.valueOf(step));
+        configuration.createChild("subSamplingY").setValue(String.valueOf(step));
+        configuration.createChild("sourceBands").setValue("B1");
+        node.setConfiguration(configuration);
+        return node;
+    }
+
+    static private DomElement targetBand(Node bandMaths) {
+        return bandMaths.getConfiguration().getChild("targetBands").getChild("targetBand");
+    }
+
+    static private String expression(Node bandMaths) {
+        return targetBand(bandMaths).getChild("expression").getValue();
+    }
+
+    static private String value(Node node, String name) {
+        DomElement child = node.getConfiguration().getChild(name);
+        return child != null ? child.getValue() : null;
+    }
+
+    static private ProductSignature signature(int width, int height) {
+        return new ProductSignature(width, height, new String[]{"B1"}, new int[]{ProductData.TYPE_FLOAT32}, null);
+    }
+}